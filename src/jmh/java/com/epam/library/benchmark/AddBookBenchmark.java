@@ -0,0 +1,56 @@
+package com.epam.library.benchmark;
+
+import com.epam.library.entity.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures adding a book, both as a copy of an existing book and as a new title.
+ * The new titles are deleted after the trial, so the stored catalog keeps its size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AddBookBenchmark extends CatalogBenchmark {
+
+    private static final String NEW_TITLE_PREFIX = "Benchmark ";
+
+    private String title;
+    private String author;
+    private String publicationYear;
+
+    @Override
+    protected void started() {
+        Map<String, Object> book = jdbcTemplate.queryForMap(
+                "select title, author, publication_year from books where id = ?", catalogSize / 2);
+        title = (String) book.get("title");
+        author = (String) book.get("author");
+        publicationYear = String.valueOf(book.get("publication_year"));
+    }
+
+    @Benchmark
+    public Book addCopy() throws Exception {
+        return bookService.add(title, author, publicationYear);
+    }
+
+    @Benchmark
+    public Book addNewTitle() throws Exception {
+        return bookService.add(NEW_TITLE_PREFIX + UUID.randomUUID(), "Benchmark Author", "2000");
+    }
+
+    @Override
+    protected void stopping() {
+        jdbcTemplate.update("delete from books where title like ?", NEW_TITLE_PREFIX + "%");
+    }
+}
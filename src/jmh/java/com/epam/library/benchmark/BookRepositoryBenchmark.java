@@ -0,0 +1,114 @@
+package com.epam.library.benchmark;
+
+import com.epam.library.entity.Book;
+import com.epam.library.repository.BookRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the book repository queries behind the catalog, without the search index and the service.
+ * The offset page and the keyset slice both read the books in the middle of the sorted catalog,
+ * so their difference is the cost of skipping the preceding rows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookRepositoryBenchmark extends CatalogBenchmark {
+
+    // As many books as a catalog page
+    private static final int PAGE_SIZE = 5;
+
+    @Param({"title", "author"})
+    public String sortField;
+
+    @Param({"asc", "desc"})
+    public String sortOrder;
+
+    // Searched with LIKE '%query%' in the sort field, as when the search index is not ready
+    @Param({"Gar"})
+    public String searchQuery;
+
+    private BookRepository repo;
+    private Pageable firstPage;
+    private Pageable middlePage;
+    private String middleValue;
+    private Integer middleId;
+    private String title;
+    private String author;
+    private int publicationYear;
+
+    @Override
+    protected void started() {
+        repo = context.getBean(BookRepository.class);
+
+        Sort.Direction direction = sortOrder.equals("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Sort sort = Sort.by(direction, sortField, "id");
+        firstPage = PageRequest.of(0, PAGE_SIZE, sort);
+        middlePage = PageRequest.of(catalogSize / 2 / PAGE_SIZE, PAGE_SIZE, sort);
+
+        // The last book before the middle page, the cursor of the keyset slice
+        Map<String, Object> middle = jdbcTemplate.queryForMap("select " + sortField + ", id from books " +
+                "order by " + sortField + " " + sortOrder + ", id " + sortOrder + " limit 1 offset ?",
+                middlePage.getOffset() - 1);
+        middleValue = (String) middle.get(sortField);
+        middleId = ((Number) middle.get("id")).intValue();
+
+        Map<String, Object> book = jdbcTemplate.queryForMap(
+                "select title, author, publication_year from books where id = ?", catalogSize / 2);
+        title = (String) book.get("title");
+        author = (String) book.get("author");
+        publicationYear = ((Number) book.get("publication_year")).intValue();
+    }
+
+    @Benchmark
+    public Slice<Book> firstSlice() {
+        return repo.findAllBy(firstPage);
+    }
+
+    @Benchmark
+    public Page<Book> middlePageByOffset() {
+        return repo.findAll(middlePage);
+    }
+
+    @Benchmark
+    public Slice<Book> middleSliceByKeyset() {
+        if (sortField.equals("author")) {
+            return sortOrder.equals("desc") ?
+                    repo.findByAuthorLessThanOrAuthorAndIdLessThan(middleValue, middleValue, middleId, firstPage) :
+                    repo.findByAuthorGreaterThanOrAuthorAndIdGreaterThan(middleValue, middleValue, middleId, firstPage);
+        }
+
+        return sortOrder.equals("desc") ?
+                repo.findByTitleLessThanOrTitleAndIdLessThan(middleValue, middleValue, middleId, firstPage) :
+                repo.findByTitleGreaterThanOrTitleAndIdGreaterThan(middleValue, middleValue, middleId, firstPage);
+    }
+
+    @Benchmark
+    public Page<Book> searchContaining() {
+        return sortField.equals("author") ?
+                repo.findByAuthorContaining(searchQuery, firstPage) :
+                repo.findByTitleContaining(searchQuery, firstPage);
+    }
+
+    @Benchmark
+    public Optional<Book> findByTitleAndAuthorAndPublicationYear() {
+        return repo.findByTitleAndAuthorAndPublicationYear(title, author, publicationYear);
+    }
+}
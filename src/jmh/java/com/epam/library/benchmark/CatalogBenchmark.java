@@ -0,0 +1,75 @@
+package com.epam.library.benchmark;
+
+import com.epam.library.LibraryApplication;
+import com.epam.library.service.BookSearchIndex;
+import com.epam.library.service.BookService;
+import com.epam.library.service.DatasetGenerator;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Base state of the catalog benchmarks.
+ * Boots the application against an embedded H2 database with the given number of books.
+ * The database is kept in target/jmh, so a catalog is seeded once and reused by every fork and later runs.
+ */
+@State(Scope.Benchmark)
+public abstract class CatalogBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    protected ConfigurableApplicationContext context;
+    protected BookService bookService;
+    protected JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(LibraryApplication.class)
+                .profiles("benchmark")
+                .run("--spring.datasource.url=jdbc:h2:file:./target/jmh/catalog-" + catalogSize +
+                        ";MODE=MySQL;DATABASE_TO_LOWER=TRUE");
+
+        bookService = context.getBean(BookService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        if (seed()) {
+            context.getBean(BookSearchIndex.class).rebuild();
+        }
+
+        started();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        stopping();
+        context.close();
+    }
+
+    /**
+     * Prepares the benchmark once the application is started and the catalog is seeded.
+     */
+    protected void started() {}
+
+    /**
+     * Cleans up after the benchmark before the application is stopped.
+     */
+    protected void stopping() {}
+
+    // Generates the books missing up to the catalog size, returns whether any were added
+    private boolean seed() {
+        Integer count = jdbcTemplate.queryForObject("select count(*) from books", Integer.class);
+        if (count == null || count >= catalogSize) {
+            return false;
+        }
+
+        context.getBean(DatasetGenerator.class).generate(DatasetGenerator.Spec.books(catalogSize - count));
+        return true;
+    }
+}
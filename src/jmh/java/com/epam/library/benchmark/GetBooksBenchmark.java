@@ -0,0 +1,61 @@
+package com.epam.library.benchmark;
+
+import com.epam.library.entity.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a catalog page request across search field, sort and page depth.
+ * An empty search field lists the whole catalog.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GetBooksBenchmark extends CatalogBenchmark {
+
+    @Param({"", "title", "author"})
+    public String searchField;
+
+    // 42 is shorter than a trigram, so the search index checks every entry, it matches the generated titles
+    // whose id contains it. Gar is looked up by its trigram, it matches Garden, Garten and García
+    @Param({"42", "Gar"})
+    public String searchQuery;
+
+    @Param({"title", "author"})
+    public String sortField;
+
+    @Param({"asc", "desc"})
+    public String sortOrder;
+
+    @Param({"first", "middle", "last"})
+    public String pageDepth;
+
+    private int pageNo;
+
+    @Override
+    protected void started() {
+        int totalPages = bookService.getBooks(searchQuery, searchField, 1, sortField, sortOrder).getTotalPages();
+
+        pageNo = switch (pageDepth) {
+            case "middle" -> Math.max(1, totalPages / 2);
+            case "last" -> Math.max(1, totalPages);
+            default -> 1;
+        };
+    }
+
+    @Benchmark
+    public Page<Book> getBooks() {
+        return bookService.getBooks(searchQuery, searchField, pageNo, sortField, sortOrder);
+    }
+}
@@ -0,0 +1,117 @@
+package com.epam.library.config;
+
+import com.epam.library.service.LoginRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.security.web.authentication.www.BasicAuthenticationEntryPoint;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Limits the failed HTTP Basic authentications by client IP and by username with {@link LoginRateLimiter}.
+ * Only a failure takes an attempt from the buckets, so the metrics scrapes with valid credentials
+ * are never limited. While the IP or the username is over its limit, requests with Basic credentials
+ * get 429 Too Many Requests before any user is looked up or any password is hashed.
+ * Added to the actuator filter chain only, with {@link #entryPoint()} as its Basic entry point.
+ */
+public class BasicAuthRateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LogManager.getLogger(BasicAuthRateLimitFilter.class);
+
+    private final LoginRateLimiter limiter;
+    private final MeterRegistry meterRegistry;
+
+    public BasicAuthRateLimitFilter(LoginRateLimiter limiter, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return username(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Duration wait = limiter.waitTime(LoginRateLimiter.Scope.IP, request.getRemoteAddr());
+        LoginRateLimiter.Scope scope = LoginRateLimiter.Scope.IP;
+
+        String username = username(request);
+        if (wait.isZero() && !username.isBlank()) {
+            wait = limiter.waitTime(LoginRateLimiter.Scope.ACCOUNT, username.trim());
+            scope = LoginRateLimiter.Scope.ACCOUNT;
+        }
+
+        if (!wait.isZero()) {
+            log.warn("Too many failed Basic authentications from {} for {}", request.getRemoteAddr(), username);
+            meterRegistry.counter("library.logins.limited", "path", "basic",
+                    "scope", scope.name().toLowerCase(Locale.ROOT)).increment();
+
+            response.setHeader("Retry-After", String.valueOf(wait.toSeconds() + 1));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value());
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * The entry point which takes an attempt for each failed Basic authentication.
+     * It is also called for requests without credentials, which are not counted, and answers both
+     * with 401 and a Basic challenge. Authentications rejected because the password hashing pool
+     * is full are not failures and get 503 at once.
+     *
+     * @return the entry point of the Basic authentication
+     */
+    public AuthenticationEntryPoint entryPoint() {
+        BasicAuthenticationEntryPoint challenge = new BasicAuthenticationEntryPoint();
+        challenge.setRealmName("Library");
+
+        return (request, response, exception) -> {
+            if (PasswordHashingBusyException.isCause(exception)) {
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
+
+            String username = username(request);
+            if (username != null) {
+                limiter.tryAcquire(LoginRateLimiter.Scope.IP, request.getRemoteAddr());
+                if (!username.isBlank()) {
+                    limiter.tryAcquire(LoginRateLimiter.Scope.ACCOUNT, username.trim());
+                }
+            }
+            challenge.commence(request, response, exception);
+        };
+    }
+
+    // The username of the Basic credentials, empty when they cannot be decoded, null without them
+    private static String username(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, "Basic ", 0, 6)) {
+            return null;
+        }
+
+        try {
+            String credentials = new String(Base64.getDecoder().decode(header.substring(6).trim()),
+                    StandardCharsets.UTF_8);
+            int colon = credentials.indexOf(':');
+            return colon < 0 ? "" : credentials.substring(0, colon);
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+}
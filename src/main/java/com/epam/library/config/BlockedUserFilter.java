@@ -0,0 +1,49 @@
+package com.epam.library.config;
+
+import com.epam.library.dto.UserPrincipal;
+import com.epam.library.service.BlockedUsers;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.logout.SecurityContextLogoutHandler;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Signs out the authenticated users who were blocked after they logged in, and redirects them to the login page.
+ * The check is a lookup in the in-memory {@link BlockedUsers} set, without a database query.
+ * Added to the security filter chain only, so it is not a bean registered for every request by Spring Boot.
+ */
+public class BlockedUserFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LogManager.getLogger(BlockedUserFilter.class);
+
+    private final BlockedUsers blockedUsers;
+    private final SecurityContextLogoutHandler logoutHandler = new SecurityContextLogoutHandler();
+
+    public BlockedUserFilter(BlockedUsers blockedUsers) {
+        this.blockedUsers = blockedUsers;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal
+                && blockedUsers.contains(principal.getId())) {
+            log.info("Signing out blocked user: {}", principal.getUsername());
+            logoutHandler.logout(request, response, authentication);
+            response.sendRedirect(request.getContextPath() + "/login?blocked");
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+}
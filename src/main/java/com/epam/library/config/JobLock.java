@@ -0,0 +1,28 @@
+package com.epam.library.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a scheduled job which runs on one node of the cluster at a time.
+ * The job takes a database lease before it runs, a node which does not get the lease skips the run.
+ * Jobs with the same name exclude each other. The lease is handled by {@link JobLockAspect}
+ * around the transaction of the job, so it is held until the job commits.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface JobLock {
+
+    /**
+     * The name of the lease.
+     */
+    String value();
+
+    /**
+     * Whether the lease is kept for the minimum time from the start of the job after it ends.
+     * False for runs which are not scheduled, such as runs on startup, so the next scheduled run is not skipped.
+     */
+    boolean holdAtLeast() default true;
+}
@@ -0,0 +1,118 @@
+package com.epam.library.config;
+
+import com.epam.library.service.JobLeaseService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Array;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the methods annotated with {@link JobLock} only on the node which takes the lease of the job.
+ * While the job runs, heartbeats extend the lease every third of its duration, so a long job keeps it
+ * and the lease of a crashed node expires soon. When the job ends, the lease is kept for a minimum time
+ * from its start, so the same scheduled run started by a node with a slightly late clock is skipped too,
+ * unless the job is marked not to hold it.
+ * A skipped method returns null, or the default value of its primitive return type.
+ * The aspect is ordered before the retry aspect and the transaction interceptor.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 2)
+public class JobLockAspect {
+
+    private static final Logger log = LogManager.getLogger(JobLockAspect.class);
+
+    private final JobLeaseService leases;
+    private final MeterRegistry meterRegistry;
+    private final Duration lease;
+    private final Duration holdAtLeast;
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "job-lease-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public JobLockAspect(JobLeaseService leases, MeterRegistry meterRegistry,
+                         @Value("${library.job-lock.lease:10m}") Duration lease,
+                         @Value("${library.job-lock.hold-at-least:1m}") Duration holdAtLeast) {
+        this.leases = leases;
+        this.meterRegistry = meterRegistry;
+        this.lease = lease;
+        this.holdAtLeast = holdAtLeast;
+    }
+
+    @Around("@annotation(jobLock)")
+    public Object lock(ProceedingJoinPoint joinPoint, JobLock jobLock) throws Throwable {
+        String name = jobLock.value();
+        Instant start = Instant.now();
+
+        if (!leases.acquire(name, lease)) {
+            log.info("Job {} holds its lease on another node, skipping the run", name);
+            meterRegistry.counter("library.jobs.runs", "job", name, "outcome", "skipped").increment();
+            return skipped(joinPoint);
+        }
+
+        long period = Math.max(1, lease.toMillis() / 3);
+        ScheduledFuture<?> heartbeat = heartbeats.scheduleAtFixedRate(() -> heartbeat(name),
+                period, period, TimeUnit.MILLISECONDS);
+
+        try {
+            Object result = joinPoint.proceed();
+            meterRegistry.counter("library.jobs.runs", "job", name, "outcome", "success").increment();
+            return result;
+        } catch (Throwable e) {
+            meterRegistry.counter("library.jobs.runs", "job", name, "outcome", "failure").increment();
+            throw e;
+        } finally {
+            heartbeat.cancel(false);
+            release(name, jobLock.holdAtLeast() ? start.plus(holdAtLeast) : Instant.now());
+        }
+    }
+
+    private void heartbeat(String name) {
+        try {
+            if (!leases.extend(name, lease)) {
+                // A running job cannot be stopped safely, it goes on and may overlap with the run of the other node
+                log.error("Lease of job {} was taken over by another node while running", name);
+                meterRegistry.counter("library.jobs.leases.lost", "job", name).increment();
+            }
+        } catch (RuntimeException e) {
+            log.warn("Failed to extend the lease of job {}", name, e);
+        }
+    }
+
+    // A failed release is not thrown over the outcome of the job, the lease expires by itself
+    private void release(String name, Instant until) {
+        try {
+            leases.release(name, until);
+        } catch (RuntimeException e) {
+            log.error("Failed to release the lease of job {}", name, e);
+        }
+    }
+
+    private static Object skipped(ProceedingJoinPoint joinPoint) {
+        Class<?> type = ((MethodSignature) joinPoint.getSignature()).getReturnType();
+        return type.isPrimitive() && type != void.class ? Array.get(Array.newInstance(type, 1), 0) : null;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeats.shutdownNow();
+    }
+}
@@ -0,0 +1,75 @@
+package com.epam.library.config;
+
+import com.epam.library.service.LoginRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Limits the login and registration attempts by client IP and by account email with {@link LoginRateLimiter},
+ * before any user is looked up or any password is hashed. Rejected attempts get 429 Too Many Requests
+ * with the number of seconds to wait in the Retry-After header.
+ * Added to the security filter chain only, so it is not a bean registered for every request by Spring Boot.
+ */
+public class LoginRateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LogManager.getLogger(LoginRateLimitFilter.class);
+
+    // Limited paths and their request parameter holding the email
+    private static final Map<String, String> emailParameters = Map.of("/login", "username", "/register", "email");
+
+    private final UrlPathHelper pathHelper = new UrlPathHelper();
+    private final LoginRateLimiter limiter;
+    private final MeterRegistry meterRegistry;
+
+    public LoginRateLimitFilter(LoginRateLimiter limiter, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || !emailParameters.containsKey(pathHelper.getPathWithinApplication(request));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = pathHelper.getPathWithinApplication(request);
+
+        Duration wait = limiter.tryAcquire(LoginRateLimiter.Scope.IP, request.getRemoteAddr());
+        LoginRateLimiter.Scope scope = LoginRateLimiter.Scope.IP;
+
+        String email = request.getParameter(emailParameters.get(path));
+        if (wait.isZero() && email != null && !email.isBlank()) {
+            wait = limiter.tryAcquire(LoginRateLimiter.Scope.ACCOUNT, email.trim());
+            scope = LoginRateLimiter.Scope.ACCOUNT;
+        }
+
+        if (!wait.isZero()) {
+            log.warn("Too many attempts on {} from {} for {}", path, request.getRemoteAddr(), email);
+            // Tagged with login or register, never with a path chosen by the client
+            meterRegistry.counter("library.logins.limited", "path", path.substring(1),
+                    "scope", scope.name().toLowerCase(Locale.ROOT)).increment();
+
+            response.setHeader("Retry-After", String.valueOf(wait.toSeconds() + 1));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value());
+            return;
+        }
+
+        chain.doFilter(request, response);
+    }
+}
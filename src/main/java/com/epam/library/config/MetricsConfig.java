@@ -0,0 +1,83 @@
+package com.epam.library.config;
+
+import com.epam.library.entity.Subscription;
+import com.epam.library.repository.SubscriptionRepository;
+import com.epam.library.service.BlockedUsers;
+import com.epam.library.service.CatalogPageCache;
+import com.epam.library.service.UserDetailsCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the application metrics which are not recorded by the services themselves.
+ * The Hikari pool metrics are bound by Spring Boot, all metrics are scraped by admins from /actuator/prometheus.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Registers the gauge of subscriptions waiting for approval.
+     * The count is queried on every scrape.
+     *
+     * @param subscriptionRepo The subscription repository.
+     * @return The MeterBinder registering the gauge.
+     */
+    @Bean
+    public MeterBinder pendingSubscriptionsMetrics(SubscriptionRepository subscriptionRepo) {
+        return registry -> Gauge.builder("library.subscriptions.pending", subscriptionRepo,
+                        repo -> repo.countByApprovedFalseAndStatus(Subscription.Status.OPEN))
+                .description("Subscriptions waiting for approval")
+                .register(registry);
+    }
+
+    /**
+     * Registers the size and the hit, miss and eviction counters of the catalog page cache.
+     *
+     * @param pageCache The catalog page cache.
+     * @return The MeterBinder registering the metrics.
+     */
+    @Bean
+    public MeterBinder catalogPageCacheMetrics(CatalogPageCache pageCache) {
+        return registry -> {
+            Gauge.builder("library.catalog.cache.size", pageCache, CatalogPageCache::size)
+                    .register(registry);
+            FunctionCounter.builder("library.catalog.cache.requests", pageCache, CatalogPageCache::getHits)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("library.catalog.cache.requests", pageCache, CatalogPageCache::getMisses)
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("library.catalog.cache.evictions", pageCache, CatalogPageCache::getEvictions)
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Registers the size and the hit, miss and eviction counters of the authentication user cache,
+     * and the gauge of blocked users.
+     *
+     * @param userCache     The authentication user cache.
+     * @param blockedUsers  The blocked users set.
+     * @return The MeterBinder registering the metrics.
+     */
+    @Bean
+    public MeterBinder userCacheMetrics(UserDetailsCache userCache, BlockedUsers blockedUsers) {
+        return registry -> {
+            Gauge.builder("library.users.cache.size", userCache, UserDetailsCache::size)
+                    .register(registry);
+            FunctionCounter.builder("library.users.cache.requests", userCache, UserDetailsCache::getHits)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("library.users.cache.requests", userCache, UserDetailsCache::getMisses)
+                    .tag("result", "miss")
+                    .register(registry);
+            FunctionCounter.builder("library.users.cache.evictions", userCache, UserDetailsCache::getEvictions)
+                    .register(registry);
+            Gauge.builder("library.users.blocked", blockedUsers, BlockedUsers::size)
+                    .register(registry);
+        };
+    }
+}
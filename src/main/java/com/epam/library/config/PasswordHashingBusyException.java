@@ -0,0 +1,30 @@
+package com.epam.library.config;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Thrown when a password cannot be hashed because the hashing pool and its queue are full.
+ * Answered with 503 Service Unavailable, the client may try again shortly.
+ * An authentication exception, so a login rejected by it reaches the login failure handler.
+ */
+public class PasswordHashingBusyException extends AuthenticationServiceException {
+
+    public PasswordHashingBusyException(String message) {
+        super(message);
+    }
+
+    /**
+     * Checks if the exception or one of its causes is a PasswordHashingBusyException.
+     *
+     * @param e the exception
+     * @return true if hashing was rejected
+     */
+    public static boolean isCause(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PasswordHashingBusyException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
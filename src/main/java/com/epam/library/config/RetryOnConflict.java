@@ -0,0 +1,17 @@
+package com.epam.library.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a transactional service method which is run again when its transaction fails on an optimistic lock
+ * conflict, that is when another transaction changed the same versioned entity first.
+ * The method is retried by {@link RetryOnConflictAspect} around its transaction,
+ * so each attempt reads the current state of the entity.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RetryOnConflict {
+}
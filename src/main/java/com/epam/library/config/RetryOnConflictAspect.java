@@ -0,0 +1,94 @@
+package com.epam.library.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries the methods annotated with {@link RetryOnConflict} on optimistic lock conflicts.
+ * Attempts are bounded and separated by a random backoff, which doubles with every attempt,
+ * so conflicting requests do not retry in lockstep.
+ * The aspect is ordered before the transaction interceptor, so every attempt runs in a new transaction.
+ * A method called inside a running transaction is not retried, the conflict is left to the outer method.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class RetryOnConflictAspect {
+
+    private static final Logger log = LogManager.getLogger(RetryOnConflictAspect.class);
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final Duration backoff;
+
+    public RetryOnConflictAspect(MeterRegistry meterRegistry,
+                                 @Value("${library.retry.max-attempts:3}") int maxAttempts,
+                                 @Value("${library.retry.backoff:20ms}") Duration backoff) {
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+    }
+
+    @Around("@annotation(com.epam.library.config.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        String operation = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." +
+                joinPoint.getSignature().getName();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return joinPoint.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                // Hibernate does not always tell the conflicting entity, so the ids and titles passed to the method
+                // are logged to find the contended books. They are not tags, to keep the number of time series bounded
+                log.warn("Optimistic lock conflict in {} for {}, attempt {} of {}",
+                        operation, keys(joinPoint.getArgs()), attempt, maxAttempts);
+                meterRegistry.counter("library.lock.conflicts", "operation", operation).increment();
+
+                if (attempt >= maxAttempts) {
+                    log.error("{} failed after {} attempts on optimistic lock conflicts", operation, attempt);
+                    throw e;
+                }
+
+                meterRegistry.counter("library.lock.retries", "operation", operation).increment();
+                sleep(attempt, e);
+            }
+        }
+    }
+
+    // Waits a random time up to the backoff doubled for every previous attempt
+    private void sleep(int attempt, OptimisticLockingFailureException conflict) {
+        long bound = backoff.toMillis() << Math.min(attempt - 1, 10);
+
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw conflict;
+        }
+    }
+
+    private static List<Object> keys(Object[] args) {
+        return Arrays.stream(args)
+                .filter(arg -> arg instanceof Number || arg instanceof CharSequence)
+                .toList();
+    }
+}
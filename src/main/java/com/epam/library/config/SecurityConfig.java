@@ -1,41 +1,87 @@
 package com.epam.library.config;
 
+import com.epam.library.service.BlockedUsers;
+import com.epam.library.service.LoginRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.LogoutConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.authentication.ExceptionMappingAuthenticationFailureHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
     private final UserDetailsService userDetailsService;
+    private final BlockedUsers blockedUsers;
+    private final LoginRateLimiter loginRateLimiter;
+    private final MeterRegistry meterRegistry;
 
-    public SecurityConfig(UserDetailsService userDetailsService) {
+    public SecurityConfig(UserDetailsService userDetailsService, BlockedUsers blockedUsers,
+                          LoginRateLimiter loginRateLimiter, MeterRegistry meterRegistry) {
         this.userDetailsService = userDetailsService;
+        this.blockedUsers = blockedUsers;
+        this.loginRateLimiter = loginRateLimiter;
+        this.meterRegistry = meterRegistry;
     }
 
-    @Bean
-    public static PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Bean(destroyMethod = "shutdown")
+    public static PasswordEncoder passwordEncoder(@Value("${library.password.strength:10}") int strength,
+                                                  @Value("${library.password.threads:2}") int threads,
+                                                  @Value("${library.password.queue-capacity:50}") int queueCapacity,
+                                                  MeterRegistry meterRegistry) {
+        return new BoundedPasswordEncoder(strength, threads, queueCapacity, meterRegistry);
     }
 
     @Bean
-    public AuthenticationManager authenticationManager(HttpSecurity http) throws Exception {
+    public AuthenticationManager authenticationManager(HttpSecurity http, PasswordEncoder passwordEncoder)
+            throws Exception {
         return http.getSharedObject(AuthenticationManagerBuilder.class)
                 .userDetailsService(userDetailsService)
-                .passwordEncoder(passwordEncoder())
+                .passwordEncoder(passwordEncoder)
                 .and()
                 .build();
     }
 
+    // The actuator endpoints except health are for admins only, the metrics scraper authenticates
+    // with HTTP Basic credentials of an admin. No session is created for the scrapes, and only the failed
+    // Basic authentications are rate limited
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorFilterChain(HttpSecurity http) throws Exception {
+        BasicAuthRateLimitFilter basicRateLimitFilter = new BasicAuthRateLimitFilter(loginRateLimiter, meterRegistry);
+        http
+                .securityMatcher("/actuator/**")
+                .csrf().disable()
+                .authorizeHttpRequests((requests) -> requests
+                        .requestMatchers("/actuator/health").permitAll()
+                        .anyRequest().hasRole("ADMIN")
+                )
+                .httpBasic((basic) -> basic.authenticationEntryPoint(basicRateLimitFilter.entryPoint()))
+                .sessionManagement((session) -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .addFilterBefore(basicRateLimitFilter, BasicAuthenticationFilter.class);
+
+        return http.build();
+    }
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -43,17 +89,37 @@ public class SecurityConfig {
                 .authorizeHttpRequests((requests) -> requests
                         .requestMatchers("/css/**", "/img/**", "/", "/books", "/login/**",
                                 "/register/**", "/error").permitAll()
-                        .requestMatchers("/approve").hasAnyRole("ADMIN", "LIBRARIAN")
-                        .requestMatchers("/add-book", "/edit-book", "/users", "/block").hasRole("ADMIN")
+                        .requestMatchers("/approve", "/approve-batch", "/return").hasAnyRole("ADMIN", "LIBRARIAN")
+                        .requestMatchers("/add-book", "/import-books", "/export-books", "/edit-book", "/users", "/block").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
                 .formLogin((form) -> form
                         .loginPage("/login")
                         .defaultSuccessUrl("/books", true)
+                        .failureHandler(loginFailureHandler())
                         .permitAll()
                 )
-                .logout(LogoutConfigurer::permitAll);
+                .logout(LogoutConfigurer::permitAll)
+                .addFilterBefore(new LoginRateLimitFilter(loginRateLimiter, meterRegistry),
+                        UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(new BlockedUserFilter(blockedUsers), AuthorizationFilter.class);
 
         return http.build();
     }
+
+    // Blocked users are told so instead of getting the invalid credentials message,
+    // logins rejected because the password hashing pool is full get 503 at once
+    private static AuthenticationFailureHandler loginFailureHandler() {
+        ExceptionMappingAuthenticationFailureHandler handler = new ExceptionMappingAuthenticationFailureHandler();
+        handler.setDefaultFailureUrl("/login?error");
+        handler.setExceptionMappings(Map.of(LockedException.class.getName(), "/login?blocked"));
+
+        return (request, response, exception) -> {
+            if (PasswordHashingBusyException.isCause(exception)) {
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            } else {
+                handler.onAuthenticationFailure(request, response, exception);
+            }
+        };
+    }
 }
\ No newline at end of file
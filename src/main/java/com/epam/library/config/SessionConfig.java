@@ -0,0 +1,39 @@
+package com.epam.library.config;
+
+import com.epam.library.service.SessionStore;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration class for the sessions kept in a {@link SessionStore} instead of the servlet container.
+ * Enabled by setting the library.sessions.store property to jdbc, so several nodes behind a load balancer
+ * share the sessions and need no sticky sessions.
+ */
+@Configuration
+@ConditionalOnProperty(name = "library.sessions.store", havingValue = "jdbc")
+public class SessionConfig {
+
+    /**
+     * Registers the session filter before every other filter, including the Spring Security filter chain,
+     * so they all see the stored sessions.
+     *
+     * @param store   The session store.
+     * @param timeout The maximum time between two requests of a session.
+     * @return The FilterRegistrationBean of the session filter.
+     */
+    @Bean
+    public FilterRegistrationBean<StoredSessionFilter> storedSessionFilter(
+            SessionStore store, @Value("${server.servlet.session.timeout:30m}") Duration timeout) {
+        FilterRegistrationBean<StoredSessionFilter> registration =
+                new FilterRegistrationBean<>(new StoredSessionFilter(store, timeout));
+        registration.setOrder(Integer.MIN_VALUE + 50);
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ERROR, DispatcherType.ASYNC);
+        return registration;
+    }
+}
@@ -0,0 +1,323 @@
+package com.epam.library.config;
+
+import com.epam.library.service.SessionStore;
+import com.epam.library.service.StoredSession;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the sessions of the servlet container with the sessions of a {@link SessionStore},
+ * so the login and the locale of a user are seen by every node and survive a redeploy.
+ * The session ID is sent in the SESSION cookie. A session is loaded on its first use in a request,
+ * and written at the end of the request: whole when it is new or an attribute was set or removed,
+ * otherwise only its last access time, at most once a minute, so most requests only read their session.
+ * The session is written before the response is sent to the client, unless the response outgrows its buffer.
+ */
+public class StoredSessionFilter extends OncePerRequestFilter {
+
+    static final String COOKIE = "SESSION";
+    private static final long TOUCH_INTERVAL = Duration.ofMinutes(1).toMillis();
+
+    private final SecureRandom random = new SecureRandom();
+    private final SessionStore store;
+    private final int maxInactiveInterval;
+
+    public StoredSessionFilter(SessionStore store, Duration timeout) {
+        this.store = store;
+        this.maxInactiveInterval = (int) timeout.toSeconds();
+    }
+
+    @Override
+    protected boolean shouldNotFilterErrorDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SessionRequest sessionRequest = new SessionRequest(request, response);
+
+        try {
+            chain.doFilter(sessionRequest, response);
+        } finally {
+            sessionRequest.commit();
+        }
+    }
+
+    private String newId() {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Request whose sessions are those of the store.
+     * Cookies are written when a session is created, changes its ID or is invalidated,
+     * as the response may be committed by the end of the request.
+     */
+    private class SessionRequest extends HttpServletRequestWrapper {
+
+        private final HttpServletResponse response;
+        private final String requestedId;
+        private final List<String> deletedIds = new ArrayList<>();
+        private StoredHttpSession session;
+        private boolean requestedLoaded;
+
+        SessionRequest(HttpServletRequest request, HttpServletResponse response) {
+            super(request);
+            this.response = response;
+            this.requestedId = requestedId(request);
+        }
+
+        @Override
+        public HttpSession getSession(boolean create) {
+            if (session != null && !session.invalidated) {
+                return session;
+            }
+
+            long now = System.currentTimeMillis();
+
+            if (!requestedLoaded) {
+                requestedLoaded = true;
+                StoredSession stored = requestedId == null ? null : store.load(requestedId, now);
+                if (stored != null) {
+                    session = new StoredHttpSession(this, stored, false, now);
+                    return session;
+                }
+            }
+
+            if (!create) {
+                return null;
+            }
+
+            session = new StoredHttpSession(this, new StoredSession(newId(), now, now, maxInactiveInterval, Map.of()),
+                    true, now);
+            writeCookie(session.getId());
+            return session;
+        }
+
+        @Override
+        public HttpSession getSession() {
+            return getSession(true);
+        }
+
+        @Override
+        public String changeSessionId() {
+            StoredHttpSession current = (StoredHttpSession) getSession(false);
+            if (current == null) {
+                throw new IllegalStateException("The request has no session");
+            }
+
+            current.changeId(newId());
+            writeCookie(current.getId());
+            return current.getId();
+        }
+
+        @Override
+        public String getRequestedSessionId() {
+            return requestedId;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdValid() {
+            HttpSession current = getSession(false);
+            return current != null && !current.isNew() && current.getId().equals(requestedId);
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromCookie() {
+            return requestedId != null;
+        }
+
+        @Override
+        public boolean isRequestedSessionIdFromURL() {
+            return false;
+        }
+
+        void invalidated(StoredHttpSession invalidated) {
+            if (!invalidated.isNew) {
+                deletedIds.add(invalidated.persistedId());
+            }
+            writeCookie("");
+        }
+
+        void commit() {
+            deletedIds.forEach(store::delete);
+
+            if (session == null || session.invalidated) {
+                return;
+            }
+
+            StoredSession stored = session.stored;
+            if (session.isNew || session.changed || session.previousId != null) {
+                store.save(stored, session.isNew ? null : session.previousId);
+            } else if (stored.getLastAccessedTime() - session.storedLastAccessedTime >= touchInterval(stored)) {
+                store.touch(stored);
+            }
+        }
+
+        // Short sessions are touched more often, so they do not expire between two touches
+        private static long touchInterval(StoredSession stored) {
+            return stored.getMaxInactiveInterval() > 0
+                    ? Math.min(TOUCH_INTERVAL, stored.getMaxInactiveInterval() * 500L) : TOUCH_INTERVAL;
+        }
+
+        private void writeCookie(String id) {
+            ResponseCookie cookie = ResponseCookie.from(COOKIE, id)
+                    .path(getContextPath() + "/")
+                    .httpOnly(true)
+                    .secure(isSecure())
+                    .sameSite("Lax")
+                    .maxAge(id.isEmpty() ? 0 : -1)
+                    .build();
+            response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+        }
+
+        private static String requestedId(HttpServletRequest request) {
+            if (request.getCookies() == null) {
+                return null;
+            }
+            for (Cookie cookie : request.getCookies()) {
+                if (COOKIE.equals(cookie.getName()) && !cookie.getValue().isEmpty()) {
+                    return cookie.getValue();
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Session of the store seen by the servlet API. Used by a single request, so it is not thread-safe.
+     */
+    private static class StoredHttpSession implements HttpSession {
+
+        private final SessionRequest request;
+        private final StoredSession stored;
+        private final boolean isNew;
+        private final long storedLastAccessedTime;
+        private String previousId;
+        private boolean changed;
+        private boolean invalidated;
+
+        StoredHttpSession(SessionRequest request, StoredSession stored, boolean isNew, long now) {
+            this.request = request;
+            this.stored = stored;
+            this.isNew = isNew;
+            this.storedLastAccessedTime = stored.getLastAccessedTime();
+            stored.setLastAccessedTime(now);
+        }
+
+        void changeId(String id) {
+            if (previousId == null) {
+                previousId = stored.getId();
+            }
+            stored.setId(id);
+        }
+
+        String persistedId() {
+            return previousId != null ? previousId : stored.getId();
+        }
+
+        @Override
+        public long getCreationTime() {
+            checkValid();
+            return stored.getCreationTime();
+        }
+
+        @Override
+        public String getId() {
+            return stored.getId();
+        }
+
+        @Override
+        public long getLastAccessedTime() {
+            checkValid();
+            return storedLastAccessedTime;
+        }
+
+        @Override
+        public ServletContext getServletContext() {
+            return request.getServletContext();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(int interval) {
+            stored.setMaxInactiveInterval(interval);
+            changed = true;
+        }
+
+        @Override
+        public int getMaxInactiveInterval() {
+            return stored.getMaxInactiveInterval();
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            checkValid();
+            return stored.getAttributes().get(name);
+        }
+
+        @Override
+        public Enumeration<String> getAttributeNames() {
+            checkValid();
+            return Collections.enumeration(new ArrayList<>(stored.getAttributes().keySet()));
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            checkValid();
+            if (value == null) {
+                removeAttribute(name);
+                return;
+            }
+            stored.getAttributes().put(name, value);
+            changed = true;
+        }
+
+        @Override
+        public void removeAttribute(String name) {
+            checkValid();
+            if (stored.getAttributes().remove(name) != null) {
+                changed = true;
+            }
+        }
+
+        @Override
+        public void invalidate() {
+            checkValid();
+            invalidated = true;
+            request.invalidated(this);
+        }
+
+        @Override
+        public boolean isNew() {
+            checkValid();
+            return isNew;
+        }
+
+        private void checkValid() {
+            if (invalidated) {
+                throw new IllegalStateException("The session is invalidated");
+            }
+        }
+    }
+}
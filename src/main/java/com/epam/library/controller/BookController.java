@@ -1,17 +1,27 @@
 package com.epam.library.controller;
 
 import com.epam.library.entity.Book;
+import com.epam.library.service.BookExportService;
+import com.epam.library.service.BookImportService;
 import com.epam.library.service.BookService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
 /**
  * Controller class for managing book-related operations.
  */
@@ -21,9 +31,14 @@ public class BookController {
     private static final Logger log = LogManager.getLogger(BookController.class);
 
     private final BookService bookService;
+    private final BookImportService bookImportService;
+    private final BookExportService bookExportService;
 
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, BookImportService bookImportService,
+                          BookExportService bookExportService) {
         this.bookService = bookService;
+        this.bookImportService = bookImportService;
+        this.bookExportService = bookExportService;
     }
 
     /**
@@ -67,6 +82,49 @@ public class BookController {
         }
     }
 
+    /**
+     * Handles the GET request to the /books URL with the "after" cursor parameter.
+     * Retrieves the books following the cursor, without page numbers and a total count,
+     * and returns the "books" page with a link to the next slice.
+     *
+     * @param after         The cursor of the last shown book (empty for the first slice).
+     * @param sortField     The field to sort the books by (default: title).
+     * @param sortOrder     The sort order ("asc" for ascending, "desc" for descending) (default: asc).
+     * @param searchQuery   The search query to filter the books by (default: "").
+     * @param searchField   The field to search for the query in (default: "").
+     * @param attributes    RedirectAttributes for adding flash attributes.
+     * @param model         The Model object for passing data to the view.
+     * @return The view name for rendering the "books" page.
+     */
+    @GetMapping(value = "/books", params = "after")
+    public String booksAfter(@RequestParam(name = "after") String after,
+                             @RequestParam(name = "sortField", defaultValue = "title") String sortField,
+                             @RequestParam(name = "sortOrder", defaultValue = "asc") String sortOrder,
+                             @RequestParam(name = "searchQuery", defaultValue = "") String searchQuery,
+                             @RequestParam(name = "searchField", defaultValue = "") String searchField,
+                             RedirectAttributes attributes,
+                             Model model) {
+
+        try {
+            Slice<Book> slice = bookService.getBooksAfter(searchQuery, searchField, after, sortField, sortOrder);
+
+            model.addAttribute("books", slice.getContent());
+            model.addAttribute("after", after);
+            model.addAttribute("nextCursor", slice.hasNext() ? bookService.cursorAfter(
+                    slice.getContent().get(slice.getNumberOfElements() - 1), sortField, sortOrder) : null);
+            model.addAttribute("pageNo", 1);
+            model.addAttribute("sortField", sortField);
+            model.addAttribute("sortOrder", sortOrder);
+            model.addAttribute("searchQuery", searchQuery);
+            model.addAttribute("searchField", searchField);
+
+            return "books";
+        } catch (IllegalArgumentException e) {
+            attributes.addFlashAttribute("msg_code", "invalid_page");
+            return "redirect:error";
+        }
+    }
+
     /**
      * Handles the GET request to the /add-book URL.
      * Returns the "add-book" page.
@@ -105,6 +163,75 @@ public class BookController {
         }
     }
 
+    /**
+     * Handles the POST request to the /import-books URL.
+     * Imports the books from the uploaded CSV or JSON file, the format is detected by the file name.
+     * If the file is imported, redirects to the "add-book" page with a flash attribute holding the import result.
+     * Otherwise, redirects to the "error" page with a flash attribute indicating invalid input.
+     *
+     * @param file        The uploaded file.
+     * @param attributes  RedirectAttributes for adding flash attributes.
+     * @return The view name for redirection.
+     */
+    @PostMapping("/import-books")
+    public String importBooks(@RequestParam("file") MultipartFile file,
+                              RedirectAttributes attributes) {
+        log.info("Received request for import of {}", file.getOriginalFilename());
+
+        try (InputStream in = file.getInputStream()) {
+            BookImportService.ImportResult result = bookImportService.importBooks(in,
+                    BookImportService.Format.of(file.getOriginalFilename()));
+            attributes.addFlashAttribute("imported", result);
+            return "redirect:add-book";
+        } catch (Exception e) {
+            log.error("Import of {} failed", file.getOriginalFilename(), e);
+            attributes.addFlashAttribute("msg_code", "invalid_input");
+            return "redirect:error";
+        }
+    }
+
+    /**
+     * Handles the GET request to the /export-books URL.
+     * Writes the whole catalog as a CSV or NDJSON attachment directly to the response, optionally gzipped.
+     * If the format is not supported, redirects to the "error" page with a flash attribute indicating invalid input.
+     *
+     * @param format      The export format, "csv" or "ndjson" (default: csv).
+     * @param gzip        Whether to compress the file with gzip (default: false).
+     * @param response    The response to write the file to.
+     * @param attributes  RedirectAttributes for adding flash attributes.
+     * @return null once the file is written, or the view name for redirection.
+     */
+    @GetMapping("/export-books")
+    public String exportBooks(@RequestParam(name = "format", defaultValue = "csv") String format,
+                              @RequestParam(name = "gzip", defaultValue = "false") boolean gzip,
+                              HttpServletResponse response,
+                              RedirectAttributes attributes) throws IOException {
+        log.info("Received request for export as {}, gzip: {}", format, gzip);
+
+        BookExportService.Format exportFormat;
+        try {
+            exportFormat = BookExportService.Format.of(format);
+        } catch (IllegalArgumentException e) {
+            attributes.addFlashAttribute("msg_code", "invalid_input");
+            return "redirect:error";
+        }
+
+        String filename = "books." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : exportFormat.getContentType() + ";charset=UTF-8");
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + filename + "\"");
+
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            GZIPOutputStream gzipOut = new GZIPOutputStream(out, 64 * 1024);
+            bookExportService.export(gzipOut, exportFormat);
+            gzipOut.finish();
+        } else {
+            bookExportService.export(out, exportFormat);
+        }
+        out.flush();
+        return null;
+    }
+
     @GetMapping("/edit-book")
     public String editBookPage(@RequestParam("bookId") Integer bookId,
                                RedirectAttributes attributes,
@@ -1,8 +1,16 @@
 package com.epam.library.controller;
 
+import com.epam.library.dto.OrderResult;
+import com.epam.library.dto.SubscriptionView;
+import com.epam.library.entity.Subscription;
+import com.epam.library.service.FineService;
+import com.epam.library.service.HoldService;
+import com.epam.library.service.OrderKeyCache;
 import com.epam.library.service.SubscriptionService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
@@ -12,6 +20,9 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Controller class for managing subscription-related operations.
  */
@@ -20,39 +31,73 @@ public class SubscriptionController {
 
     private static final Logger log = LogManager.getLogger(SubscriptionController.class);
     private final SubscriptionService subscriptionService;
+    private final HoldService holdService;
+    private final OrderKeyCache orderKeyCache;
+    private final FineService fineService;
+
+    // Length of the order_key column
+    private static final int MAX_ORDER_KEY_LENGTH = 64;
 
-    public SubscriptionController(SubscriptionService subscriptionService) {
+    public SubscriptionController(SubscriptionService subscriptionService, HoldService holdService,
+                                  OrderKeyCache orderKeyCache, FineService fineService) {
         this.subscriptionService = subscriptionService;
+        this.holdService = holdService;
+        this.orderKeyCache = orderKeyCache;
+        this.fineService = fineService;
     }
 
     /**
      * Handles the GET request to the /subscriptions URL.
      * Retrieves the subscriptions for the logged-in user and returns the appropriate view.
-     * If the user is a librarian or admin, returns the "librarian_subscriptions" view with all subscriptions.
-     * If the user is a reader, returns the "reader_subscriptions" view with their subscriptions.
+     * If the user is a librarian or admin, returns the "librarian_subscriptions" view with a page of all
+     * subscriptions, pending first, filtered by the user email and book title prefixes.
+     * If the user is a reader, returns the "reader_subscriptions" view with their subscriptions and holds.
      *
      * @param userDetails The UserDetails of the logged-in user.
-     * @param model        The Model object for passing data to the view.
+     * @param pageNo      The page number to retrieve (default: 1).
+     * @param email       The prefix of the user email to filter by (default: "").
+     * @param title       The prefix of the book title to filter by (default: "").
+     * @param attributes  RedirectAttributes for adding flash attributes.
+     * @param model       The Model object for passing data to the view.
      * @return The view name for rendering the subscriptions page.
      */
     @GetMapping("/subscriptions")
-    public String subscriptions(@AuthenticationPrincipal UserDetails userDetails, Model model) {
+    public String subscriptions(@AuthenticationPrincipal UserDetails userDetails,
+                                @RequestParam(defaultValue = "1") int pageNo,
+                                @RequestParam(name = "email", defaultValue = "") String email,
+                                @RequestParam(name = "title", defaultValue = "") String title,
+                                RedirectAttributes attributes,
+                                Model model) {
         log.info("Handling subscriptions request for user: {}", userDetails.getUsername());
 
         if(userDetails.getAuthorities().stream().anyMatch(authority ->
                 authority.getAuthority().equals("ROLE_READER"))) {
-            model.addAttribute("subscriptions",
-                    subscriptionService.findByUserEmail(userDetails.getUsername()));
+            List<Subscription> subscriptions = subscriptionService.findByUserEmail(userDetails.getUsername());
+            model.addAttribute("subscriptions", subscriptions);
+            model.addAttribute("fines", fineService.finesOf(subscriptions));
+            model.addAttribute("holds", holdService.findViewsByUserEmail(userDetails.getUsername()));
             return "reader_subscriptions";
         }
 
-        model.addAttribute("subscriptions", subscriptionService.findAll());
-        return "librarian_subscriptions";
+        try {
+            Slice<SubscriptionView> page = subscriptionService.findViews(email, title, pageNo);
+
+            model.addAttribute("subscriptions", page.getContent());
+            model.addAttribute("pageNo", pageNo);
+            model.addAttribute("hasNext", page.hasNext());
+            model.addAttribute("email", email);
+            model.addAttribute("title", title);
+
+            return "librarian_subscriptions";
+        } catch (IllegalArgumentException e) {
+            attributes.addFlashAttribute("msg_code", "invalid_page");
+            return "redirect:error";
+        }
     }
 
     /**
      * Handles the GET request to the /order URL.
-     * Returns the "order" page for displaying a successful order.
+     * Returns the "order" page for displaying a successful order or the place in the hold queue.
      *
      * @return The view name for rendering the "order" page.
      */
@@ -66,26 +111,62 @@ public class SubscriptionController {
      * Handles the POST request to the /order URL.
      * Orders a book with the specified book ID for the logged-in user.
      * If the book is ordered successfully, redirects to the "order" page.
+     * If no copy is available, the user is queued and redirected to the "order" page
+     * with a flash attribute holding the position in the queue.
+     * A repeated order with the same idempotency key, such as a double click or a browser retry,
+     * gets the outcome of the first one without ordering the book again.
+     * If the order violates another constraint, redirects to the "error" page without ordering again.
      * Otherwise, redirects to the "error" page with a flash attribute indicating the failure reason.
      *
      * @param userDetails The UserDetails of the logged-in user.
      * @param bookId           The ID of the book to order.
+     * @param idempotencyKey   The key generated by the client for this order (default: none).
      * @param attributes   RedirectAttributes for adding flash attributes.
      * @return The view name for redirection.
      */
     @PostMapping("/order")
     public String orderBook(@AuthenticationPrincipal UserDetails userDetails,
                             @RequestParam("bookId") Integer bookId,
+                            @RequestParam(name = "idempotencyKey", defaultValue = "") String idempotencyKey,
                             RedirectAttributes attributes) {
+        if (idempotencyKey.length() > MAX_ORDER_KEY_LENGTH) {
+            attributes.addFlashAttribute("msg_code", "invalid_input");
+            return "redirect:error";
+        }
+
         try {
-            subscriptionService.orderBook(userDetails, bookId);
+            OrderResult result = idempotencyKey.isBlank() ?
+                    subscriptionService.orderBook(userDetails, bookId, null) :
+                    orderKeyCache.execute(new OrderKeyCache.Key(userDetails.getUsername(), idempotencyKey),
+                            () -> orderOnce(userDetails, bookId, idempotencyKey));
+            if (result.isQueued()) {
+                attributes.addFlashAttribute("queue_position", result.queuePosition());
+            }
             return "redirect:order";
+        } catch (DataIntegrityViolationException e) {
+            log.error("Failed to order book: {} for user: {}", bookId, userDetails.getUsername(), e);
+            attributes.addFlashAttribute("msg_code", "cant_order");
+            return "redirect:error";
         } catch (Exception e) {
             attributes.addFlashAttribute("msg_code", "no_such_book");
             return "redirect:error";
         }
     }
 
+    private OrderResult orderOnce(UserDetails userDetails, Integer bookId, String idempotencyKey) throws Exception {
+        try {
+            return subscriptionService.orderBook(userDetails, bookId, idempotencyKey);
+        } catch (DataIntegrityViolationException e) {
+            if (!SubscriptionService.isOrderKeyConflict(e)) {
+                throw e;
+            }
+
+            // The same key was ordered on another node at the same time, now its subscription or hold is found
+            log.info("Concurrent order with key: {} of user: {}", idempotencyKey, userDetails.getUsername());
+            return subscriptionService.orderBook(userDetails, bookId, idempotencyKey);
+        }
+    }
+
     /**
      * Handles the POST request to the /approve URL.
      * Approves a subscription with the specified subscription ID.
@@ -107,4 +188,61 @@ public class SubscriptionController {
             return "redirect:error";
         }
     }
+
+    /**
+     * Handles the POST request to the /approve-batch URL.
+     * Approves the subscriptions with the specified IDs, or all pending subscriptions of the user
+     * with the specified email, and redirects to the "subscriptions" page with a flash attribute
+     * holding the result for each subscription ID.
+     * If neither IDs nor an email are given, redirects to the "error" page.
+     *
+     * @param subscriptionIds  The IDs of the subscriptions to approve.
+     * @param email            The email of the user whose pending subscriptions are approved.
+     * @param attributes       RedirectAttributes for adding flash attributes.
+     * @return The view name for redirection.
+     */
+    @PostMapping("/approve-batch")
+    public String approveSubscriptions(@RequestParam(name = "subscriptionId", required = false)
+                                       List<Integer> subscriptionIds,
+                                       @RequestParam(name = "email", defaultValue = "") String email,
+                                       RedirectAttributes attributes) {
+        Map<Integer, SubscriptionService.ApprovalResult> results;
+
+        if (subscriptionIds != null && !subscriptionIds.isEmpty()) {
+            results = subscriptionService.approveSubscriptions(subscriptionIds);
+        } else if (!email.isBlank()) {
+            results = subscriptionService.approvePendingOf(email);
+        } else {
+            attributes.addFlashAttribute("msg_code", "invalid_input");
+            return "redirect:error";
+        }
+
+        attributes.addFlashAttribute("approval", results);
+        return "redirect:subscriptions";
+    }
+
+    /**
+     * Handles the POST request to the /return URL.
+     * Returns the books of the subscriptions with the specified IDs, closing the subscriptions.
+     * If at least one subscription is returned, redirects to the "subscriptions" page.
+     * Otherwise, redirects to the "error" page with a flash attribute indicating the failure reason.
+     *
+     * @param subscriptionIds  The IDs of the subscriptions to return.
+     * @param attributes       RedirectAttributes for adding flash attributes.
+     * @return The view name for redirection.
+     */
+    @PostMapping("/return")
+    public String returnBooks(@RequestParam("subscriptionId") List<Integer> subscriptionIds,
+                              RedirectAttributes attributes) {
+        try {
+            if (subscriptionService.returnBooks(subscriptionIds) > 0) {
+                return "redirect:subscriptions";
+            }
+        } catch (Exception e) {
+            log.error("Failed to return subscriptions: {}", subscriptionIds, e);
+        }
+
+        attributes.addFlashAttribute("msg_code", "cant_return");
+        return "redirect:error";
+    }
 }
\ No newline at end of file
@@ -1,8 +1,14 @@
 package com.epam.library.controller;
 
+import com.epam.library.config.PasswordHashingBusyException;
+import com.epam.library.dto.UserView;
+import com.epam.library.entity.User;
+import com.epam.library.service.FineService;
 import com.epam.library.service.UserService;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -11,6 +17,7 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 /**
@@ -21,9 +28,11 @@ public class UserController {
 
     private static final Logger log = LogManager.getLogger(UserController.class);
     private final UserService userService;
+    private final FineService fineService;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, FineService fineService) {
         this.userService = userService;
+        this.fineService = fineService;
     }
 
     /**
@@ -42,6 +51,7 @@ public class UserController {
      * Handles the POST request to the /register URL.
      * Registers a new user with the specified name, email, and password.
      * If the registration is successful, redirects to the "login" page with a signup success flash attribute.
+     * If the password hashing pool is full, answers with 503 Service Unavailable.
      * Otherwise, redirects to the "register" page with an error flash attribute.
      *
      * @param name       The name of the user.
@@ -61,6 +71,8 @@ public class UserController {
 
             attributes.addFlashAttribute("signup", true);
             return "redirect:login";
+        } catch (PasswordHashingBusyException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage());
         } catch(Exception e) {
             attributes.addFlashAttribute("error", true);
             return "redirect:register";
@@ -70,7 +82,7 @@ public class UserController {
     /**
      * Handles the GET request to the /account URL.
      * Retrieves the account information for the logged-in user and returns the "account" page.
-     * If the user is found, adds the user object to the model.
+     * If the user is found, adds the user object and their current fine to the model.
      * Otherwise, redirects to the "error" page with a flash attribute indicating the failure reason.
      *
      * @param userDetails The UserDetails of the logged-in user.
@@ -85,7 +97,9 @@ public class UserController {
         log.info("Handling account request for user: {}", userDetails.getUsername());
 
         try {
-            model.addAttribute("user", userService.findByEmail(userDetails.getUsername()));
+            User user = userService.findByEmail(userDetails.getUsername());
+            model.addAttribute("user", user);
+            model.addAttribute("fine", fineService.fineOf(user));
             return "account";
         } catch (UsernameNotFoundException e) {
             log.error("User {} not found", userDetails.getUsername());
@@ -96,16 +110,44 @@ public class UserController {
 
     /**
      * Handles the GET request to the /users URL.
-     * Retrieves a list of non-admin users and returns the "users" page.
+     * Retrieves a page of non-admin users and returns the "users" page.
+     * If the page number is invalid, redirects to the "error" page with a flash attribute.
      *
-     * @param model The Model object for passing data to the view.
+     * @param pageNo      The page number.
+     * @param name        The prefix of the user name to filter by.
+     * @param email       The prefix of the user email to filter by.
+     * @param blocked     Whether to show only the blocked users.
+     * @param fined       Whether to show only the users with fines.
+     * @param attributes  RedirectAttributes for adding flash attributes.
+     * @param model       The Model object for passing data to the view.
      * @return The view name for rendering the "users" page.
      */
     @GetMapping("/users")
-    public String users(Model model) {
+    public String users(@RequestParam(defaultValue = "1") int pageNo,
+                        @RequestParam(name = "name", defaultValue = "") String name,
+                        @RequestParam(name = "email", defaultValue = "") String email,
+                        @RequestParam(name = "blocked", defaultValue = "false") boolean blocked,
+                        @RequestParam(name = "fined", defaultValue = "false") boolean fined,
+                        RedirectAttributes attributes,
+                        Model model) {
         log.info("Handling users request");
-        model.addAttribute("users", userService.findAllNotAdmin());
-        return "users";
+
+        try {
+            Slice<UserView> page = userService.findViews(name, email, blocked, fined, pageNo);
+
+            model.addAttribute("users", page.getContent());
+            model.addAttribute("pageNo", pageNo);
+            model.addAttribute("hasNext", page.hasNext());
+            model.addAttribute("name", name);
+            model.addAttribute("email", email);
+            model.addAttribute("blocked", blocked);
+            model.addAttribute("fined", fined);
+
+            return "users";
+        } catch (IllegalArgumentException e) {
+            attributes.addFlashAttribute("msg_code", "invalid_page");
+            return "redirect:error";
+        }
     }
 
     /**
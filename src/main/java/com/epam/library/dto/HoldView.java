@@ -0,0 +1,43 @@
+package com.epam.library.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only row of the holds of a reader, with the current position in the hold queue of the book.
+ */
+public class HoldView {
+
+    private final String title;
+    private final String author;
+    private final int publicationYear;
+    private final long position;
+    private final LocalDateTime createdAt;
+
+    public HoldView(String title, String author, int publicationYear, long position, LocalDateTime createdAt) {
+        this.title = title;
+        this.author = author;
+        this.publicationYear = publicationYear;
+        this.position = position;
+        this.createdAt = createdAt;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public int getPublicationYear() {
+        return publicationYear;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,25 @@
+package com.epam.library.dto;
+
+import com.epam.library.entity.Subscription;
+
+/**
+ * Outcome of an order: either the created subscription, or the position in the hold queue of the book
+ * when no copy was available.
+ *
+ * @param subscription   the created subscription, or null if the reader was queued
+ * @param queuePosition  the position in the hold queue, starting with 1, or 0 if a subscription was created
+ */
+public record OrderResult(Subscription subscription, int queuePosition) {
+
+    public static OrderResult ordered(Subscription subscription) {
+        return new OrderResult(subscription, 0);
+    }
+
+    public static OrderResult queued(int queuePosition) {
+        return new OrderResult(null, queuePosition);
+    }
+
+    public boolean isQueued() {
+        return subscription == null;
+    }
+}
@@ -0,0 +1,87 @@
+package com.epam.library.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Read-only row of the librarian subscriptions page.
+ * Selected with a single join of subscriptions, books and users, without loading the entities.
+ */
+public class SubscriptionView {
+
+    private final Integer id;
+    private final String title;
+    private final String author;
+    private final int publicationYear;
+    private final String userName;
+    private final String email;
+    private final boolean approved;
+    private final LocalDate startDate;
+    private final int period;
+    private final LocalDate dueDate;
+    private final long fine;
+
+    public SubscriptionView(Integer id, String title, String author, int publicationYear, String userName,
+                            String email, boolean approved, LocalDate startDate, int period, LocalDate dueDate,
+                            long fine) {
+        this.id = id;
+        this.title = title;
+        this.author = author;
+        this.publicationYear = publicationYear;
+        this.userName = userName;
+        this.email = email;
+        this.approved = approved;
+        this.startDate = startDate;
+        this.period = period;
+        this.dueDate = dueDate;
+        this.fine = fine;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public int getPublicationYear() {
+        return publicationYear;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public boolean isApproved() {
+        return approved;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    public long getFine() {
+        return fine;
+    }
+
+    public SubscriptionView withFine(long fine) {
+        return new SubscriptionView(id, title, author, publicationYear, userName, email, approved,
+                startDate, period, dueDate, fine);
+    }
+}
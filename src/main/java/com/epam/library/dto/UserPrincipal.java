@@ -0,0 +1,25 @@
+package com.epam.library.dto;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+/**
+ * Authenticated user, the email is the username.
+ * Carries the user ID, so a request of a blocked user is recognized without a database lookup.
+ */
+public class UserPrincipal extends User {
+
+    private final Integer id;
+
+    public UserPrincipal(Integer id, String email, String password, boolean blocked,
+                         Collection<? extends GrantedAuthority> authorities) {
+        super(email, password, true, true, true, !blocked, authorities);
+        this.id = id;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+}
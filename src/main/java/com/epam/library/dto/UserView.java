@@ -0,0 +1,50 @@
+package com.epam.library.dto;
+
+import com.epam.library.entity.User;
+
+/**
+ * Read-only row of the users page.
+ * Selected without loading the entities, so the password hashes are never read.
+ */
+public class UserView {
+
+    private final Integer id;
+    private final String name;
+    private final String email;
+    private final User.Role role;
+    private final boolean blocked;
+    private final long fine;
+
+    public UserView(Integer id, String name, String email, User.Role role, boolean blocked, long fine) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.role = role;
+        this.blocked = blocked;
+        this.fine = fine;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public User.Role getRole() {
+        return role;
+    }
+
+    public boolean isBlocked() {
+        return blocked;
+    }
+
+    public long getFine() {
+        return fine;
+    }
+}
@@ -33,6 +33,10 @@ public class Book {
     @Column(nullable = false)
     private int availableCopies;
 
+    //Incremented on every update, so concurrent updates of the book fail instead of overwriting each other
+    @Version
+    private int version;
+
     public Book() {}
 
     public Book(String title, String author, Integer publicationYear) {
@@ -71,6 +75,10 @@ public class Book {
         return id;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
     public int getAvailableCopies() {
         return availableCopies;
     }
@@ -0,0 +1,50 @@
+package com.epam.library.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name="fine_job_chunks")
+public class FineJobChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    //The day of the run the chunk belongs to
+    @Column(nullable = false)
+    private LocalDate runDate;
+
+    //The first subscription id of the processed range
+    @Column(nullable = false)
+    private int firstId;
+
+    //The last subscription id of the processed range
+    @Column(nullable = false)
+    private int lastId;
+
+    public FineJobChunk() {}
+
+    public FineJobChunk(LocalDate runDate, int firstId, int lastId) {
+        this.runDate = runDate;
+        this.firstId = firstId;
+        this.lastId = lastId;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public LocalDate getRunDate() {
+        return runDate;
+    }
+
+    public int getFirstId() {
+        return firstId;
+    }
+
+    public int getLastId() {
+        return lastId;
+    }
+}
@@ -0,0 +1,54 @@
+package com.epam.library.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name="fine_job_runs")
+public class FineJobRun {
+
+    //The day the fines are calculated for, each day is charged by one run
+    @Id
+    private LocalDate runDate;
+
+    //The last subscription id when the run started, later subscriptions are not processed
+    @Column(nullable = false)
+    private int lastId;
+
+    //The size of the id ranges, kept so a resumed run splits subscriptions the same way
+    @Column(nullable = false)
+    private int chunkSize;
+
+    @Column(nullable = false)
+    private boolean finished;
+
+    public FineJobRun() {}
+
+    public FineJobRun(LocalDate runDate, int lastId, int chunkSize) {
+        this.runDate = runDate;
+        this.lastId = lastId;
+        this.chunkSize = chunkSize;
+        this.finished = false;
+    }
+
+    public LocalDate getRunDate() {
+        return runDate;
+    }
+
+    public int getLastId() {
+        return lastId;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public void setFinished(boolean finished) {
+        this.finished = finished;
+    }
+}
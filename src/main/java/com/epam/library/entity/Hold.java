@@ -0,0 +1,70 @@
+package com.epam.library.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name="holds")
+public class Hold {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @ManyToOne
+    @JoinColumn(name="book_id", nullable=false)
+    private Book book;
+
+    @ManyToOne
+    @JoinColumn(name="user_id", nullable=false)
+    private User user;
+
+    //The place in the hold queue of the book, holds are served in the order of their tickets
+    @Column(nullable = false)
+    private long ticket;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    //The idempotency key of the order which placed the hold, passed on to the allocated subscription
+    @Column(length = 64)
+    private String orderKey;
+
+    public Hold() {}
+
+    public Hold(User user, Book book, long ticket) {
+        this.user = user;
+        this.book = book;
+        this.ticket = ticket;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Book getBook() {
+        return book;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public long getTicket() {
+        return ticket;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getOrderKey() {
+        return orderKey;
+    }
+
+    public void setOrderKey(String orderKey) {
+        this.orderKey = orderKey;
+    }
+}
@@ -0,0 +1,55 @@
+package com.epam.library.entity;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(name="hold_queues")
+public class HoldQueue {
+
+    @Id
+    private Integer bookId;
+
+    //The ticket of the hold served next
+    @Column(nullable = false)
+    private long head;
+
+    //The last issued ticket, the queue is empty when the head is past it
+    @Column(nullable = false)
+    private long tail;
+
+    public HoldQueue() {}
+
+    public HoldQueue(Integer bookId) {
+        this.bookId = bookId;
+        this.head = 1;
+        this.tail = 0;
+    }
+
+    public Integer getBookId() {
+        return bookId;
+    }
+
+    public long getHead() {
+        return head;
+    }
+
+    public long getTail() {
+        return tail;
+    }
+
+    public boolean isEmpty() {
+        return head > tail;
+    }
+
+    public long issueTicket() {
+        return ++tail;
+    }
+
+    public void advance() {
+        head++;
+    }
+
+    public int positionOf(long ticket) {
+        return (int) (ticket - head + 1);
+    }
+}
@@ -0,0 +1,44 @@
+package com.epam.library.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+@Entity
+@Table(name="job_leases")
+public class JobLease {
+
+    //The name of the job
+    @Id
+    private String name;
+
+    //The node which took the lease last
+    @Column()
+    private String owner;
+
+    //The job may be started by another node after this time
+    @Column(nullable = false)
+    private Instant lockedUntil;
+
+    //The last time the owner extended the lease
+    @Column()
+    private Instant heartbeatAt;
+
+    public JobLease() {}
+
+    public String getName() {
+        return name;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public Instant getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public Instant getHeartbeatAt() {
+        return heartbeatAt;
+    }
+}
@@ -9,6 +9,11 @@ import java.util.Objects;
 @Table(name="subscriptions")
 public class Subscription {
 
+    public enum Status {
+        OPEN,
+        RETURNED
+    }
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
@@ -30,9 +35,28 @@ public class Subscription {
     @Column()
     private int period;
 
+    //The start date plus the period, set on approval
+    @Column()
+    private LocalDate dueDate;
+
     @Column(nullable = false)
     private long fine;
 
+    //Returned subscriptions are closed, they are not fined and not shown to the librarian
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Status status = Status.OPEN;
+
+    @Column()
+    private LocalDate returnedOn;
+
+    //The idempotency key of the order, if the client sent one
+    @Column(length = 64)
+    private String orderKey;
+
+    @Version
+    private int version;
+
     public Subscription() {}
     public Subscription(User user, Book book) {
         this.user = user;
@@ -64,6 +88,14 @@ public class Subscription {
         this.period = period;
     }
 
+    public LocalDate getDueDate() {
+        return dueDate;
+    }
+
+    public void setDueDate(LocalDate dueDate) {
+        this.dueDate = dueDate;
+    }
+
     public Book getBook() {
         return book;
     }
@@ -84,6 +116,10 @@ public class Subscription {
         return id;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
     public long getFine() {
         return fine;
     }
@@ -92,14 +128,29 @@ public class Subscription {
         this.fine = fine;
     }
 
-    public void updateFine(int dayFine) {
-        LocalDate currentDate = LocalDate.now();
-        LocalDate endDate = startDate.plusDays(period);
+    public String getOrderKey() {
+        return orderKey;
+    }
+
+    public void setOrderKey(String orderKey) {
+        this.orderKey = orderKey;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isReturned() {
+        return status == Status.RETURNED;
+    }
+
+    public LocalDate getReturnedOn() {
+        return returnedOn;
+    }
 
-        if (currentDate.isAfter(endDate)) {
-            fine += dayFine;
-            user.addFine(dayFine);
-        }
+    public void markReturned(LocalDate returnedOn) {
+        this.status = Status.RETURNED;
+        this.returnedOn = returnedOn;
     }
 
     @Override
@@ -1,11 +1,21 @@
 package com.epam.library.repository;
 
 import com.epam.library.entity.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 //Crud repository for the work with ´books´ table
 public interface BookRepository extends PagingAndSortingRepository<Book, Integer> {
@@ -15,10 +25,46 @@ public interface BookRepository extends PagingAndSortingRepository<Book, Integer
 
     Optional<Book> save(Book book);
 
+    List<Book> findByIdIn(Collection<Integer> ids);
+
     Page<Book> findByTitleContaining(String title, Pageable pageable);
 
     Page<Book> findByAuthorContaining(String author, Pageable pageable);
 
+    Slice<Book> findAllBy(Pageable pageable);
+
+    // Keyset pagination: books after the (title, id) or (author, id) of the last shown book
+    Slice<Book> findByTitleGreaterThanOrTitleAndIdGreaterThan(String title, String sameTitle, Integer id,
+                                                              Pageable pageable);
+
+    Slice<Book> findByTitleLessThanOrTitleAndIdLessThan(String title, String sameTitle, Integer id,
+                                                        Pageable pageable);
+
+    Slice<Book> findByAuthorGreaterThanOrAuthorAndIdGreaterThan(String author, String sameAuthor, Integer id,
+                                                                Pageable pageable);
+
+    Slice<Book> findByAuthorLessThanOrAuthorAndIdLessThan(String author, String sameAuthor, Integer id,
+                                                          Pageable pageable);
+
+    // Forward-only read of the whole catalog for exports, fetched from the database in batches of rows
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("select b from Book b order by b.id")
+    Stream<Book> streamAll();
+
+    // Takes one available copy in a single statement, returns 0 if there is none left.
+    // The version is incremented, so a concurrent edit of the loaded book does not restore the copy
+    @Modifying
+    @Query("update Book b set b.availableCopies = b.availableCopies - 1, b.version = b.version + 1 " +
+            "where b.id = :id and b.availableCopies > 0")
+    int reserveCopy(@Param("id") Integer id);
+
+    // Puts returned copies back, the version is incremented as by reserveCopy
+    @Modifying
+    @Query("update Book b set b.availableCopies = b.availableCopies + :copies, b.version = b.version + 1 " +
+            "where b.id = :id")
+    int releaseCopies(@Param("id") Integer id, @Param("copies") int copies);
+
     void delete(Book book);
 
     void deleteByTitle(String title);
@@ -0,0 +1,14 @@
+package com.epam.library.repository;
+
+import com.epam.library.entity.FineJobChunk;
+import org.springframework.data.repository.CrudRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+//Crud repository for the work with ´fine_job_chunks´ table
+public interface FineJobChunkRepository extends CrudRepository<FineJobChunk, Integer> {
+    List<FineJobChunk> findByRunDate(LocalDate runDate);
+
+    boolean existsByRunDateAndFirstId(LocalDate runDate, int firstId);
+}
@@ -0,0 +1,14 @@
+package com.epam.library.repository;
+
+import com.epam.library.entity.FineJobRun;
+import org.springframework.data.repository.CrudRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+//Crud repository for the work with ´fine_job_runs´ table
+public interface FineJobRunRepository extends CrudRepository<FineJobRun, LocalDate> {
+    List<FineJobRun> findByFinishedFalse();
+
+    boolean existsByFinishedFalse();
+}
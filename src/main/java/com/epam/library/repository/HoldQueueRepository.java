@@ -0,0 +1,31 @@
+package com.epam.library.repository;
+
+import com.epam.library.entity.HoldQueue;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+//Crud repository for the work with ´hold_queues´ table
+public interface HoldQueueRepository extends CrudRepository<HoldQueue, Integer> {
+
+    // Creates the empty queue of the book unless it exists, without failing when created concurrently
+    @Modifying
+    @Query(value = "insert into hold_queues (book_id, head, tail) values (:bookId, 1, 0) " +
+            "on duplicate key update head = head", nativeQuery = true)
+    void createIfAbsent(@Param("bookId") Integer bookId);
+
+    // Holds and allocations of a book are serialized by the row lock of its queue
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select q from HoldQueue q where q.bookId = :bookId")
+    Optional<HoldQueue> lockByBookId(@Param("bookId") Integer bookId);
+
+    @Query("select q.bookId from HoldQueue q where q.bookId in :bookIds and q.head <= q.tail")
+    List<Integer> findWaiting(@Param("bookIds") Collection<Integer> bookIds);
+}
@@ -0,0 +1,32 @@
+package com.epam.library.repository;
+
+import com.epam.library.dto.HoldView;
+import com.epam.library.entity.Hold;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+//Crud repository for the work with ´holds´ table
+public interface HoldRepository extends CrudRepository<Hold, Integer> {
+
+    // Locking reads, so a hold committed while waiting for the queue lock is seen
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Hold> findByBookIdAndTicket(Integer bookId, long ticket);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Hold> findByUserIdAndBookId(Integer userId, Integer bookId);
+
+    Optional<Hold> findByUserIdAndOrderKey(Integer userId, String orderKey);
+
+    // Reader page: holds of the user with their queue positions, each found by a unique key
+    @Query("select new com.epam.library.dto.HoldView(b.title, b.author, b.publicationYear, " +
+            "h.ticket - q.head + 1, h.createdAt) " +
+            "from Hold h join h.book b join h.user u join HoldQueue q on q.bookId = b.id " +
+            "where u.email = :email order by h.createdAt")
+    List<HoldView> findViewsByUserEmail(@Param("email") String email);
+}
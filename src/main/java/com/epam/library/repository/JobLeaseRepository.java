@@ -0,0 +1,33 @@
+package com.epam.library.repository;
+
+import com.epam.library.entity.JobLease;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+//Crud repository for the work with ´job_leases´ table
+public interface JobLeaseRepository extends CrudRepository<JobLease, String> {
+
+    // Creates the expired lease of the job unless it exists, without failing when created concurrently
+    @Modifying
+    @Query(value = "insert into job_leases (name, locked_until) values (:name, :lockedUntil) " +
+            "on duplicate key update name = name", nativeQuery = true)
+    void createIfAbsent(@Param("name") String name, @Param("lockedUntil") Instant lockedUntil);
+
+    // Takes the lease if it expired, also when its owner crashed. The update is atomic, so one node takes it
+    @Modifying
+    @Query("update JobLease l set l.owner = :owner, l.lockedUntil = :until, l.heartbeatAt = :now " +
+            "where l.name = :name and l.lockedUntil <= :now")
+    int acquire(@Param("name") String name, @Param("owner") String owner, @Param("now") Instant now,
+                @Param("until") Instant until);
+
+    // Extends the lease held by the owner, nothing is updated if another node took it over
+    @Modifying
+    @Query("update JobLease l set l.lockedUntil = :until, l.heartbeatAt = :now " +
+            "where l.name = :name and l.owner = :owner")
+    int extend(@Param("name") String name, @Param("owner") String owner, @Param("now") Instant now,
+               @Param("until") Instant until);
+}
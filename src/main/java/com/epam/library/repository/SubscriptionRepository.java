@@ -1,12 +1,91 @@
 package com.epam.library.repository;
 
+import com.epam.library.dto.SubscriptionView;
 import com.epam.library.entity.Subscription;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 //Crud repository for the work with ´subscription´ table
 public interface SubscriptionRepository extends CrudRepository<Subscription, Integer> {
     List<Subscription> findByUserEmail(String user_email);
+    Optional<Subscription> findByUserIdAndOrderKey(Integer userId, String orderKey);
+    long countByApprovedFalseAndStatus(Subscription.Status status);
+
+    List<Subscription> findByIdInAndStatus(Collection<Integer> ids, Subscription.Status status);
+
+    @Query("select s.id from Subscription s where s.id in :ids")
+    List<Integer> findIds(@Param("ids") Collection<Integer> ids);
+
+    // Pending subscriptions to approve, locked so the bulk approval updates exactly these rows
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s.id from Subscription s where s.id in :ids " +
+            "and s.status = com.epam.library.entity.Subscription$Status.OPEN and s.approved = false")
+    List<Integer> lockPending(@Param("ids") Collection<Integer> ids);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s.id from Subscription s where s.user.email = :email " +
+            "and s.status = com.epam.library.entity.Subscription$Status.OPEN and s.approved = false")
+    List<Integer> lockPendingByUserEmail(@Param("email") String email);
+
+    // Approves the subscriptions with one statement, the version is incremented as by an entity update
+    @Modifying
+    @Query("update Subscription s set s.approved = true, s.startDate = :today, s.period = :period, " +
+            "s.dueDate = :dueDate, s.fine = 0, s.version = s.version + 1 where s.id in :ids")
+    int approve(@Param("ids") Collection<Integer> ids, @Param("today") LocalDate today, @Param("period") int period,
+                @Param("dueDate") LocalDate dueDate);
+
+    // Librarian page: open subscriptions, pending first, filtered by user email and book title prefixes
+    @Query("select new com.epam.library.dto.SubscriptionView(s.id, b.title, b.author, b.publicationYear, " +
+            "u.name, u.email, s.approved, s.startDate, s.period, s.dueDate, s.fine) " +
+            "from Subscription s join s.book b join s.user u " +
+            "where s.status = com.epam.library.entity.Subscription$Status.OPEN " +
+            "and u.email like concat(:email, '%') escape '!' and b.title like concat(:title, '%') escape '!' " +
+            "order by s.approved asc, s.id desc")
+    Slice<SubscriptionView> findViews(@Param("email") String email, @Param("title") String title,
+                                      Pageable pageable);
+
+    // Adds the day fine to every open approved subscription whose period ended before today
+    @Modifying
+    @Query("update Subscription s set s.fine = s.fine + :dayFine, s.version = s.version + 1 " +
+            "where s.status = com.epam.library.entity.Subscription$Status.OPEN " +
+            "and s.approved = true and s.startDate + s.period day < :today")
+    int addOverdueFines(@Param("dayFine") long dayFine, @Param("today") LocalDate today);
+
+    // Same as addOverdueFines, limited to the subscriptions with ids from firstId to lastId
+    @Modifying
+    @Query("update Subscription s set s.fine = s.fine + :dayFine, s.version = s.version + 1 " +
+            "where s.id between :firstId and :lastId " +
+            "and s.status = com.epam.library.entity.Subscription$Status.OPEN " +
+            "and s.approved = true and s.startDate + s.period day < :today")
+    int addOverdueFines(@Param("dayFine") long dayFine, @Param("today") LocalDate today,
+                        @Param("firstId") int firstId, @Param("lastId") int lastId);
+
+    // Fines accrued since the due dates of the open subscriptions of the user and not yet added to the user
+    @Query("select coalesce(sum(((:today - s.dueDate) by day) * :dayFine - s.fine), 0) from Subscription s " +
+            "where s.user.id = :userId and s.status = com.epam.library.entity.Subscription$Status.OPEN " +
+            "and s.dueDate < :today")
+    long sumAccruedFines(@Param("userId") Integer userId, @Param("today") LocalDate today,
+                         @Param("dayFine") long dayFine);
+
+    // Sets the fine of every open overdue subscription computed from its due date
+    @Modifying
+    @Query("update Subscription s set s.fine = ((:today - s.dueDate) by day) * :dayFine, " +
+            "s.version = s.version + 1 " +
+            "where s.status = com.epam.library.entity.Subscription$Status.OPEN and s.dueDate < :today " +
+            "and s.fine <> ((:today - s.dueDate) by day) * :dayFine")
+    int materializeFines(@Param("dayFine") long dayFine, @Param("today") LocalDate today);
+
+    @Query("select coalesce(max(s.id), 0) from Subscription s")
+    int findMaxId();
 }
@@ -1,8 +1,15 @@
 package com.epam.library.repository;
 
+import com.epam.library.dto.UserView;
 import com.epam.library.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,7 +17,65 @@ import java.util.Optional;
 public interface UserRepository extends CrudRepository<User, Integer> {
     Optional<User> findByEmail(String email);
 
-    List<User> findByRoleNot(User.Role admin);
+    // Users page: every user but the admins, filtered by name and email prefixes, blocked users
+    // and users with a fine or an open overdue subscription. With accrued, the fines accrued by the open
+    // overdue subscriptions since they were last stored are added, with one indexed subquery per row
+    @Query("select new com.epam.library.dto.UserView(u.id, u.name, u.email, u.role, u.blocked, u.fine + " +
+            "case when :accrued = true then (select coalesce(sum(((:today - s.dueDate) by day) * :dayFine " +
+            "- s.fine), 0) from Subscription s where s.user = u " +
+            "and s.status = com.epam.library.entity.Subscription$Status.OPEN and s.dueDate < :today) else 0 end) " +
+            "from User u where u.role <> com.epam.library.entity.User$Role.ADMIN " +
+            "and u.name like concat(:name, '%') escape '!' and u.email like concat(:email, '%') escape '!' " +
+            "and (:blocked = false or u.blocked = true) " +
+            "and (:fined = false or u.fine > 0 or exists (select s.id from Subscription s where s.user = u " +
+            "and s.status = com.epam.library.entity.Subscription$Status.OPEN and s.dueDate < :today)) " +
+            "order by u.id")
+    Slice<UserView> findViews(@Param("name") String name, @Param("email") String email,
+                              @Param("blocked") boolean blocked, @Param("fined") boolean fined,
+                              @Param("accrued") boolean accrued, @Param("dayFine") long dayFine,
+                              @Param("today") LocalDate today, Pageable pageable);
 
     void deleteByEmail(String email);
+
+    @Query("select u.id from User u where u.blocked = true")
+    List<Integer> findBlockedIds();
+
+    // Adds the day fine once for every open overdue subscription of the user
+    @Modifying
+    @Query("update User u set u.fine = u.fine + :dayFine * " +
+            "(select count(s) from Subscription s where s.user = u " +
+            "and s.status = com.epam.library.entity.Subscription$Status.OPEN " +
+            "and s.approved = true and s.startDate + s.period day < :today) " +
+            "where exists (select s from Subscription s where s.user = u " +
+            "and s.status = com.epam.library.entity.Subscription$Status.OPEN " +
+            "and s.approved = true and s.startDate + s.period day < :today)")
+    int addOverdueFines(@Param("dayFine") long dayFine, @Param("today") LocalDate today);
+
+    // Same as addOverdueFines, counting only the subscriptions with ids from firstId to lastId.
+    // The overdue subscriptions of the range are counted first, so only their users are read and locked
+    @Modifying
+    @Query(value = "update users u join (select user_id, count(*) as overdue from subscriptions " +
+            "where id between :firstId and :lastId and status = 'OPEN' and approved = true " +
+            "and timestampadd(day, period, start_date) < :today group by user_id) s on s.user_id = u.id " +
+            "set u.fine = u.fine + :dayFine * s.overdue", nativeQuery = true)
+    int addOverdueFines(@Param("dayFine") long dayFine, @Param("today") LocalDate today,
+                        @Param("firstId") int firstId, @Param("lastId") int lastId);
+
+    // Adds the fines accrued by the open overdue subscriptions of the users since they were last materialized
+    @Modifying
+    @Query("update User u set u.fine = u.fine + " +
+            "(select coalesce(sum(((:today - s.dueDate) by day) * :dayFine - s.fine), 0) from Subscription s " +
+            "where s.user = u and s.status = com.epam.library.entity.Subscription$Status.OPEN " +
+            "and s.dueDate < :today) " +
+            "where exists (select s from Subscription s where s.user = u " +
+            "and s.status = com.epam.library.entity.Subscription$Status.OPEN and s.dueDate < :today)")
+    int materializeFines(@Param("dayFine") long dayFine, @Param("today") LocalDate today);
+
+    @Modifying
+    @Query("update User u set u.password = :password where u.email = :email")
+    int updatePassword(@Param("email") String email, @Param("password") String password);
+
+    @Modifying
+    @Query("update User u set u.fine = u.fine + :fine where u.id = :id")
+    int addFine(@Param("id") Integer id, @Param("fine") long fine);
 }
@@ -0,0 +1,116 @@
+package com.epam.library.service;
+
+import com.epam.library.repository.UserRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+
+/**
+ * In-memory set of the IDs of blocked users, checked on every request of an authenticated user.
+ * The IDs are kept in a sorted array, which is replaced on every change and searched without locking.
+ * A block on this node is applied once committed, blocks made on other nodes are picked up
+ * when the set is reloaded from the database, every 30 seconds by default.
+ */
+@Component
+public class BlockedUsers {
+
+    private static final Logger log = LogManager.getLogger(BlockedUsers.class);
+
+    private final UserRepository repo;
+    private volatile int[] ids = new int[0];
+    // Incremented on every change, so a reload started before a change does not undo it
+    private long changes;
+
+    public BlockedUsers(UserRepository repo) {
+        this.repo = repo;
+    }
+
+    /**
+     * Checks if the user is blocked.
+     *
+     * @param id the ID of the user
+     * @return true if the user is blocked
+     */
+    public boolean contains(int id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * Blocks or unblocks the user once the current transaction is committed,
+     * or immediately if there is no transaction.
+     *
+     * @param id      the ID of the user
+     * @param blocked true to block the user, false to unblock
+     */
+    public void update(int id, boolean blocked) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(id, blocked);
+                }
+            });
+        } else {
+            apply(id, blocked);
+        }
+    }
+
+    /**
+     * Loads the IDs of the blocked users from the database.
+     * Runs once the application is started, and then periodically.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${library.blocked-users.refresh:PT30S}",
+            initialDelayString = "${library.blocked-users.refresh:PT30S}")
+    public void reload() {
+        long changesBefore;
+        synchronized (this) {
+            changesBefore = changes;
+        }
+
+        int[] loaded = repo.findBlockedIds().stream().mapToInt(Integer::intValue).sorted().toArray();
+
+        synchronized (this) {
+            if (changes != changesBefore) {
+                log.debug("Blocked users changed while reloading, keeping the current set");
+                return;
+            }
+            if (!Arrays.equals(ids, loaded)) {
+                log.info("Blocked users reloaded: {}", loaded.length);
+            }
+            ids = loaded;
+        }
+    }
+
+    private synchronized void apply(int id, boolean blocked) {
+        int index = Arrays.binarySearch(ids, id);
+
+        if (blocked && index < 0) {
+            int insertion = -index - 1;
+            int[] updated = new int[ids.length + 1];
+            System.arraycopy(ids, 0, updated, 0, insertion);
+            updated[insertion] = id;
+            System.arraycopy(ids, insertion, updated, insertion + 1, ids.length - insertion);
+            ids = updated;
+        } else if (!blocked && index >= 0) {
+            int[] updated = new int[ids.length - 1];
+            System.arraycopy(ids, 0, updated, 0, index);
+            System.arraycopy(ids, index + 1, updated, index, ids.length - index - 1);
+            ids = updated;
+        }
+
+        changes++;
+        log.info("User {} {}", id, blocked ? "blocked" : "unblocked");
+    }
+}
@@ -0,0 +1,59 @@
+package com.epam.library.service;
+
+import com.epam.library.entity.Book;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque position in the catalog for keyset pagination.
+ * Holds the sort key and the id of the last book of a slice; the next slice starts right after them.
+ *
+ * @param sortField the field the catalog is sorted on (title or author)
+ * @param sortOrder the sort order (asc or desc)
+ * @param id        the id of the last book of the previous slice
+ * @param value     the sort field value of the last book of the previous slice
+ */
+public record BookCursor(String sortField, String sortOrder, Integer id, String value) {
+
+    private static final String SEPARATOR = "\n";
+
+    /**
+     * Creates the cursor pointing right after the given book.
+     *
+     * @param sortField the field the catalog is sorted on (title or author)
+     * @param sortOrder the sort order (asc or desc)
+     * @param book      the last book of the slice
+     * @return the cursor
+     */
+    public static BookCursor after(String sortField, String sortOrder, Book book) {
+        return new BookCursor(sortField, sortOrder, book.getId(),
+                sortField.equals("author") ? book.getAuthor() : book.getTitle());
+    }
+
+    /**
+     * Decodes the cursor received from a client.
+     *
+     * @param cursor the encoded cursor
+     * @return the decoded cursor or throws exception if the cursor is malformed
+     */
+    public static BookCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split(SEPARATOR, 4);
+            return new BookCursor(parts[0], parts[1], Integer.valueOf(parts[2]), parts[3]);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Encodes the cursor to be passed as a request parameter.
+     *
+     * @return the encoded cursor
+     */
+    public String encode() {
+        String raw = sortField + SEPARATOR + sortOrder + SEPARATOR + id + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
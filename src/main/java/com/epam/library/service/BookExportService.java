@@ -0,0 +1,190 @@
+package com.epam.library.service;
+
+import com.epam.library.entity.Book;
+import com.epam.library.repository.BookRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * Service class for exporting the whole catalog as CSV or NDJSON.
+ * Books are read with a forward-only stream and written to the output as they arrive,
+ * and the persistence context is cleared as it goes, so memory use does not depend on the size of the catalog.
+ */
+@Service
+public class BookExportService {
+
+    private static final Logger log = LogManager.getLogger(BookExportService.class);
+
+    // Books kept in the persistence context before it is cleared, matches the fetch size of the stream
+    private static final int CLEAR_EVERY = 1000;
+
+    /**
+     * Supported export formats.
+     * CSV starts with the columns of the import format, so an export can be imported into another library.
+     */
+    public enum Format {
+        CSV("text/csv", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * Parses the format name, ignoring the case.
+         *
+         * @param name the format name
+         * @return the format, or throws IllegalArgumentException if the format is not supported
+         */
+        public static Format of(String name) {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final BookRepository repo;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    public BookExportService(BookRepository repo, EntityManager entityManager, ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Writes all books, ordered by id, to the output stream.
+     * The stream is flushed but not closed.
+     *
+     * @param out     the output stream
+     * @param format  the export format
+     * @return the number of exported books
+     */
+    @Transactional(readOnly = true)
+    public int export(OutputStream out, Format format) throws IOException {
+        log.info("Exporting books as {}", format);
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        int count = 0;
+
+        try (Stream<Book> books = repo.streamAll()) {
+            BookWriter bookWriter = format == Format.NDJSON ? ndjsonWriter(writer) : csvWriter(writer);
+            Iterator<Book> iterator = books.iterator();
+
+            while (iterator.hasNext()) {
+                bookWriter.write(iterator.next());
+
+                if (++count % CLEAR_EVERY == 0) {
+                    entityManager.clear();
+                }
+            }
+
+            bookWriter.flush();
+        } finally {
+            sample.stop(meterRegistry.timer("library.books.export", "format", format.name().toLowerCase(Locale.ROOT)));
+        }
+
+        log.info("{} books exported as {}", count, format);
+        return count;
+    }
+
+    private interface BookWriter {
+        void write(Book book) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    private static BookWriter csvWriter(Writer writer) throws IOException {
+        writer.write("title,author,publicationYear,copies,availableCopies,id\n");
+
+        return new BookWriter() {
+            @Override
+            public void write(Book book) throws IOException {
+                writer.write(csvField(book.getTitle()));
+                writer.write(',');
+                writer.write(csvField(book.getAuthor()));
+                writer.write(',');
+                writer.write(Integer.toString(book.getPublicationYear()));
+                writer.write(',');
+                writer.write(Integer.toString(book.getNumOfCopies()));
+                writer.write(',');
+                writer.write(Integer.toString(book.getAvailableCopies()));
+                writer.write(',');
+                writer.write(Integer.toString(book.getId()));
+                writer.write('\n');
+            }
+
+            @Override
+            public void flush() throws IOException {
+                writer.flush();
+            }
+        };
+    }
+
+    // Quotes the field if it contains a comma, a quote or a line break, doubling the quotes as in RFC 4180
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private BookWriter ndjsonWriter(Writer writer) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // Lines are separated by the newline written after each book
+        generator.setRootValueSeparator(null);
+
+        return new BookWriter() {
+            @Override
+            public void write(Book book) throws IOException {
+                generator.writeStartObject();
+                generator.writeNumberField("id", book.getId());
+                generator.writeStringField("title", book.getTitle());
+                generator.writeStringField("author", book.getAuthor());
+                generator.writeNumberField("publicationYear", book.getPublicationYear());
+                generator.writeNumberField("copies", book.getNumOfCopies());
+                generator.writeNumberField("availableCopies", book.getAvailableCopies());
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+            }
+
+            @Override
+            public void flush() throws IOException {
+                generator.flush();
+            }
+        };
+    }
+}
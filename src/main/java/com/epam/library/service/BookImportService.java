@@ -0,0 +1,417 @@
+package com.epam.library.service;
+
+import com.epam.library.entity.Book;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Service class for importing books in bulk from CSV or JSON files.
+ * The file is read as a stream and processed in chunks, each chunk in its own transaction:
+ * the books of a chunk are looked up with one query, then copies of existing books and new books
+ * are written with JDBC batches, bypassing the per-book path of {@link BookService#add}.
+ */
+@Service
+public class BookImportService {
+
+    private static final Logger log = LogManager.getLogger(BookImportService.class);
+
+    private static final int MAX_LENGTH = 64;
+
+    /**
+     * Supported file formats.
+     * CSV has the columns title, author, publicationYear and an optional copies column, with an optional header.
+     * JSON is an array of objects with the same fields.
+     */
+    public enum Format {
+        CSV, JSON;
+
+        /**
+         * Detects the format by the file name extension.
+         *
+         * @param filename the name of the uploaded file
+         * @return JSON for .json files, CSV otherwise
+         */
+        public static Format of(String filename) {
+            return filename != null && filename.toLowerCase(Locale.ROOT).endsWith(".json") ? JSON : CSV;
+        }
+    }
+
+    /**
+     * Outcome of an import.
+     *
+     * @param rows     the number of rows read
+     * @param added    the number of new books
+     * @param copies   the number of copies added to books which already existed
+     * @param rejected the number of invalid rows which were skipped
+     */
+    public record ImportResult(int rows, int added, int copies, int rejected) {}
+
+    // A row as read from the file, before validation
+    private record Row(String title, String author, String publicationYear, String copies) {}
+
+    private record Key(String title, String author, int publicationYear) {
+
+        // The key of the book as the columns compare it: their collation ignores case, accents and trailing spaces
+        Key match() {
+            return new Key(normalize(title), normalize(author), publicationYear);
+        }
+
+        private static String normalize(String value) {
+            return Normalizer.normalize(value, Normalizer.Form.NFD).replaceAll("\\p{M}", "")
+                    .toLowerCase(Locale.ROOT).stripTrailing();
+        }
+    }
+
+    // The books of a chunk by the keys they match, with the spelling of their first row
+    private record Entry(Key book, int copies) {
+
+        Entry plus(Entry other) {
+            return new Entry(book, copies + other.copies);
+        }
+    }
+
+    private interface RowReader extends Closeable {
+        Row next() throws IOException;
+    }
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BookSearchIndex searchIndex;
+    private final CatalogPageCache pageCache;
+    private final HoldService holdService;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+
+    public BookImportService(NamedParameterJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                             BookSearchIndex searchIndex, CatalogPageCache pageCache, HoldService holdService,
+                             MeterRegistry meterRegistry, ObjectMapper objectMapper,
+                             @Value("${library.import.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.searchIndex = searchIndex;
+        this.pageCache = pageCache;
+        this.holdService = holdService;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Imports the books from the stream.
+     * Rows with an existing title, author and publication year add copies to that book, other rows add new books.
+     * Added copies go to the readers in the hold queues of the books first.
+     * Invalid rows are skipped. Chunks imported before a failure stay imported.
+     *
+     * @param in      the file contents
+     * @param format  the file format
+     * @return the import result, or throws exception if the file is malformed
+     */
+    public ImportResult importBooks(InputStream in, Format format) throws IOException {
+        log.info("Importing books from {}", format);
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        int rows = 0;
+        int rejected = 0;
+        int[] written = new int[2];
+
+        try (RowReader reader = format == Format.JSON ? jsonReader(in) : csvReader(in)) {
+            Map<Key, Entry> chunk = new LinkedHashMap<>();
+            Row row;
+
+            while ((row = reader.next()) != null) {
+                rows++;
+                Key key = toKey(row);
+                Integer copies = toCopies(row);
+
+                if (key == null || copies == null) {
+                    log.warn("Invalid row {} skipped: {}", rows, row);
+                    rejected++;
+                    continue;
+                }
+
+                chunk.merge(key.match(), new Entry(key, copies), Entry::plus);
+
+                if (chunk.size() == batchSize) {
+                    writeChunk(chunk, written);
+                    chunk.clear();
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                writeChunk(chunk, written);
+            }
+        } finally {
+            sample.stop(meterRegistry.timer("library.books.import", "format", format.name().toLowerCase(Locale.ROOT)));
+        }
+
+        ImportResult result = new ImportResult(rows, written[0], written[1], rejected);
+        log.info("Books imported: {}", result);
+        return result;
+    }
+
+    // Writes the chunk in one transaction, written[0] counts new books and written[1] added copies
+    private void writeChunk(Map<Key, Entry> chunk, int[] written) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<Key, Integer> existing = findIds(chunk);
+
+            List<Map<String, Object>> updates = new ArrayList<>();
+            Map<Integer, Integer> addedCopies = new HashMap<>();
+            List<Map<String, Object>> inserts = new ArrayList<>();
+            Map<Key, Entry> newBooks = new HashMap<>();
+
+            chunk.forEach((match, entry) -> {
+                Integer id = existing.get(match);
+                if (id != null) {
+                    updates.add(Map.of("id", id, "copies", entry.copies()));
+                    addedCopies.put(id, entry.copies());
+                    written[1] += entry.copies();
+                } else {
+                    Key key = entry.book();
+                    inserts.add(Map.of("title", key.title(), "author", key.author(),
+                            "publicationYear", key.publicationYear(), "copies", entry.copies()));
+                    newBooks.put(match, entry);
+                    written[0]++;
+                }
+            });
+
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate("update books set num_of_copies = num_of_copies + :copies, " +
+                        "available_copies = available_copies + :copies, version = version + 1 where id = :id",
+                        toArray(updates));
+                holdService.allocateCopies(addedCopies);
+            }
+
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate("insert into books (title, author, publication_year, num_of_copies, " +
+                        "available_copies) values (:title, :author, :publicationYear, :copies, :copies)",
+                        toArray(inserts));
+                // Identity ids are not returned by batches, so the new books are looked up again for the index
+                index(findIds(newBooks), newBooks);
+            }
+
+            pageCache.invalidate();
+        });
+    }
+
+    // Looks up the ids of the books by the keys they match with one query by title
+    private Map<Key, Integer> findIds(Map<Key, Entry> books) {
+        Map<Key, Integer> ids = new HashMap<>();
+        Set<String> titles = books.values().stream().map(entry -> entry.book().title()).collect(Collectors.toSet());
+
+        jdbcTemplate.query("select id, title, author, publication_year from books where title in (:titles)",
+                Map.of("titles", titles), rs -> {
+                    Key match = new Key(rs.getString("title"), rs.getString("author"),
+                            rs.getInt("publication_year")).match();
+                    if (books.containsKey(match)) {
+                        ids.putIfAbsent(match, rs.getInt("id"));
+                    }
+                });
+        return ids;
+    }
+
+    // Adds the new books to the search index once the chunk is committed
+    private void index(Map<Key, Integer> ids, Map<Key, Entry> newBooks) {
+        List<Book> books = new ArrayList<>(ids.size());
+        ids.forEach((match, id) -> {
+            Entry entry = newBooks.get(match);
+            Book book = new Book(entry.book().title(), entry.book().author(), entry.book().publicationYear());
+            book.setId(id);
+            book.setNumOfCopies(entry.copies());
+            book.setAvailableCopies(entry.copies());
+            books.add(book);
+        });
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                books.forEach(searchIndex::put);
+            }
+        });
+    }
+
+    private static Key toKey(Row row) {
+        if (row.title() == null || row.author() == null || row.publicationYear() == null) {
+            return null;
+        }
+
+        String title = row.title().trim();
+        String author = row.author().trim();
+
+        if (title.isEmpty() || author.isEmpty() || title.length() > MAX_LENGTH || author.length() > MAX_LENGTH) {
+            return null;
+        }
+
+        try {
+            return new Key(title, author, Integer.parseInt(row.publicationYear().trim()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Integer toCopies(Row row) {
+        if (row.copies() == null || row.copies().isBlank()) {
+            return 1;
+        }
+
+        try {
+            int copies = Integer.parseInt(row.copies().trim());
+            return copies > 0 ? copies : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object>[] toArray(List<Map<String, Object>> batch) {
+        return batch.toArray(new Map[0]);
+    }
+
+    private RowReader jsonReader(InputStream in) throws IOException {
+        JsonParser parser = objectMapper.getFactory().createParser(in);
+
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IOException("A JSON array of books is expected");
+        }
+
+        return new RowReader() {
+            @Override
+            public Row next() throws IOException {
+                JsonToken token = parser.nextToken();
+                if (token == null || token == JsonToken.END_ARRAY) {
+                    return null;
+                }
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("A JSON object is expected at " + parser.getCurrentLocation());
+                }
+
+                Map<String, String> fields = new HashMap<>();
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = parser.getCurrentName();
+                    parser.nextToken();
+                    if (parser.currentToken().isScalarValue()) {
+                        fields.put(name, parser.getValueAsString());
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                return new Row(fields.get("title"), fields.get("author"), fields.get("publicationYear"),
+                        fields.get("copies"));
+            }
+
+            @Override
+            public void close() throws IOException {
+                parser.close();
+            }
+        };
+    }
+
+    private static RowReader csvReader(InputStream in) {
+        Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        return new RowReader() {
+            private boolean first = true;
+
+            @Override
+            public Row next() throws IOException {
+                List<String> fields;
+
+                do {
+                    fields = readRecord(reader);
+                    if (fields == null) {
+                        return null;
+                    }
+                } while (fields.size() == 1 && fields.get(0).isBlank());
+
+                // The header is optional
+                if (first) {
+                    first = false;
+                    if (fields.get(0).trim().equalsIgnoreCase("title")) {
+                        return next();
+                    }
+                }
+
+                return new Row(field(fields, 0), field(fields, 1), field(fields, 2), field(fields, 3));
+            }
+
+            @Override
+            public void close() throws IOException {
+                reader.close();
+            }
+        };
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index) : null;
+    }
+
+    // Reads one RFC 4180 record: fields in double quotes may contain commas, line breaks and doubled quotes
+    private static List<String> readRecord(Reader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int c = reader.read();
+
+        if (c == -1) {
+            return null;
+        }
+
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,225 @@
+package com.epam.library.service;
+
+import com.epam.library.entity.Book;
+import com.epam.library.repository.BookRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted trigram index over book titles and authors.
+ * Replaces LIKE '%query%' scans for the catalog search: a query is split into trigrams,
+ * candidates are intersected from the posting lists and verified with a substring match,
+ * so the result is the same as the database "containing" search.
+ */
+@Component
+public class BookSearchIndex {
+
+    private static final Logger log = LogManager.getLogger(BookSearchIndex.class);
+
+    private static final int GRAM = 3;
+    private static final int BUILD_BATCH_SIZE = 1000;
+
+    private final BookRepository repo;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Map<Integer, Entry> entries = new HashMap<>();
+    private Map<String, Set<Integer>> titleGrams = new HashMap<>();
+    private Map<String, Set<Integer>> authorGrams = new HashMap<>();
+    private volatile boolean ready = false;
+
+    public BookSearchIndex(BookRepository repo) {
+        this.repo = repo;
+    }
+
+    /**
+     * Loads every book from the repository and builds the index.
+     * Runs once the application is started.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        log.info("Building book search index");
+
+        Map<Integer, Entry> newEntries = new HashMap<>();
+        Map<String, Set<Integer>> newTitleGrams = new HashMap<>();
+        Map<String, Set<Integer>> newAuthorGrams = new HashMap<>();
+
+        Page<Book> page = repo.findAll(PageRequest.of(0, BUILD_BATCH_SIZE, Sort.by("id")));
+        while (true) {
+            for (Book book : page.getContent()) {
+                Entry entry = new Entry(book);
+                newEntries.put(entry.id, entry);
+                addGrams(newTitleGrams, entry.titleKey, entry.id);
+                addGrams(newAuthorGrams, entry.authorKey, entry.id);
+            }
+            if (!page.hasNext()) {
+                break;
+            }
+            page = repo.findAll(page.nextPageable());
+        }
+
+        lock.writeLock().lock();
+        try {
+            entries = newEntries;
+            titleGrams = newTitleGrams;
+            authorGrams = newAuthorGrams;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Book search index built, {} books indexed", newEntries.size());
+    }
+
+    /**
+     * Returns whether the index has been built and can serve searches.
+     *
+     * @return true if the index is ready
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Adds the book to the index or replaces its previous title and author.
+     *
+     * @param book the book to index
+     */
+    public void put(Book book) {
+        if (book.getId() == null) {
+            return;
+        }
+
+        Entry entry = new Entry(book);
+
+        lock.writeLock().lock();
+        try {
+            Entry old = entries.put(entry.id, entry);
+            if (old != null) {
+                removeGrams(titleGrams, old.titleKey, old.id);
+                removeGrams(authorGrams, old.authorKey, old.id);
+            }
+            addGrams(titleGrams, entry.titleKey, entry.id);
+            addGrams(authorGrams, entry.authorKey, entry.id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Searches books whose title or author contains the query, ignoring case.
+     *
+     * @param query       the search query
+     * @param searchField the field to search on (title or author)
+     * @param sortField   the field to sort on (title or author)
+     * @param descending  whether the result is sorted in descending order
+     * @return ids of the matching books in sort order
+     */
+    public List<Integer> search(String query, String searchField, String sortField, boolean descending) {
+        String key = normalize(query);
+        boolean byAuthor = searchField.equals("author");
+
+        lock.readLock().lock();
+        try {
+            Collection<Integer> candidates = key.length() < GRAM ? entries.keySet() :
+                    candidates(byAuthor ? authorGrams : titleGrams, key);
+
+            List<Entry> matches = new ArrayList<>();
+            for (Integer id : candidates) {
+                Entry entry = entries.get(id);
+                if ((byAuthor ? entry.authorKey : entry.titleKey).contains(key)) {
+                    matches.add(entry);
+                }
+            }
+
+            Comparator<Entry> comparator = sortField.equals("author") ?
+                    Comparator.comparing((Entry e) -> e.author, String.CASE_INSENSITIVE_ORDER) :
+                    Comparator.comparing((Entry e) -> e.title, String.CASE_INSENSITIVE_ORDER);
+            comparator = comparator.thenComparing(e -> e.id);
+            matches.sort(descending ? comparator.reversed() : comparator);
+
+            List<Integer> ids = new ArrayList<>(matches.size());
+            for (Entry entry : matches) {
+                ids.add(entry.id);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Intersects the posting lists of all query trigrams, starting from the shortest one
+    private static Collection<Integer> candidates(Map<String, Set<Integer>> grams, String key) {
+        List<Set<Integer>> postings = new ArrayList<>();
+        for (String gram : grams(key)) {
+            Set<Integer> posting = grams.get(gram);
+            if (posting == null) {
+                return Collections.emptyList();
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        Set<Integer> result = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !result.isEmpty(); i++) {
+            result.retainAll(postings.get(i));
+        }
+        return result;
+    }
+
+    private static void addGrams(Map<String, Set<Integer>> grams, String key, Integer id) {
+        for (String gram : grams(key)) {
+            grams.computeIfAbsent(gram, g -> new HashSet<>()).add(id);
+        }
+    }
+
+    private static void removeGrams(Map<String, Set<Integer>> grams, String key, Integer id) {
+        for (String gram : grams(key)) {
+            Set<Integer> posting = grams.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static Set<String> grams(String key) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM <= key.length(); i++) {
+            result.add(key.substring(i, i + GRAM));
+        }
+        return result;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    // Indexed fields of a single book
+    private static final class Entry {
+        private final Integer id;
+        private final String title;
+        private final String author;
+        private final String titleKey;
+        private final String authorKey;
+
+        private Entry(Book book) {
+            this.id = book.getId();
+            this.title = book.getTitle() == null ? "" : book.getTitle();
+            this.author = book.getAuthor() == null ? "" : book.getAuthor();
+            this.titleKey = normalize(title);
+            this.authorKey = normalize(author);
+        }
+    }
+}
@@ -1,17 +1,30 @@
 package com.epam.library.service;
 
+import com.epam.library.config.RetryOnConflict;
 import com.epam.library.entity.Book;
 import com.epam.library.repository.BookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.transaction.annotation.Transactional;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Service class responsible for handling book-related operations.
@@ -24,9 +37,18 @@ public class BookService {
     private final int pageSize = 5;
 
     private final BookRepository repo;
+    private final BookSearchIndex searchIndex;
+    private final CatalogPageCache pageCache;
+    private final HoldService holdService;
+    private final MeterRegistry meterRegistry;
 
-    public BookService(BookRepository repo) {
+    public BookService(BookRepository repo, BookSearchIndex searchIndex, CatalogPageCache pageCache,
+                       HoldService holdService, MeterRegistry meterRegistry) {
         this.repo = repo;
+        this.searchIndex = searchIndex;
+        this.pageCache = pageCache;
+        this.holdService = holdService;
+        this.meterRegistry = meterRegistry;
     }
 
     /**
@@ -38,6 +60,7 @@ public class BookService {
     public Book save(Book book) {
         log.info("Saving book: {}", book);
         repo.save(book);
+        pageCache.invalidate();
         return book;
     }
 
@@ -52,14 +75,51 @@ public class BookService {
         return repo.findById(bookId).orElseThrow(() -> new Exception("Book " + bookId + " not found"));
     }
 
+    /**
+     * Takes one available copy of the book with a conditional decrement,
+     * so concurrent orders can never take more copies than available.
+     *
+     * @param bookId the ID of the book
+     * @return true if a copy was taken, false if there is no available copy or no such book
+     */
+    @Transactional
+    public boolean reserveCopy(Integer bookId) {
+        log.info("Reserving a copy of the book: {}", bookId);
+
+        if (repo.reserveCopy(bookId) == 0) {
+            log.warn("No available copies of the book: {}", bookId);
+            return false;
+        }
+
+        pageCache.invalidate();
+        return true;
+    }
+
+    /**
+     * Makes returned copies available again. The copies go to the readers in the hold queues first,
+     * in the same transaction.
+     *
+     * @param copies the number of returned copies by book ID
+     */
+    @Transactional
+    public void releaseCopies(Map<Integer, Integer> copies) {
+        log.info("Releasing copies: {}", copies);
+
+        copies.forEach(repo::releaseCopies);
+        pageCache.invalidate();
+        holdService.allocateCopies(copies);
+    }
+
     /**
      * Adds a copy of the book or adds a new book if no copy exists.
+     * An added copy goes to the first reader in the hold queue of the book, if there is one.
      *
      * @param bookTitle        the title of the book
      * @param bookAuthor       the author of the book
      * @param publicationYear  the publication year of the book
      * @return the added book or throws exception if there was an error
      */
+    @RetryOnConflict
     @Transactional
     public Book add(String bookTitle, String bookAuthor, String publicationYear) throws Exception {
         log.info("Adding a book. Title: {}, Author: {}, PublicationYear: {}",
@@ -84,6 +144,8 @@ public class BookService {
             Book book = optionalBook.get();
             book.addCopy();
             repo.save(book);
+            pageCache.invalidate();
+            holdService.allocate(book.getId());
 
             return book;
         }
@@ -92,10 +154,13 @@ public class BookService {
 
         Book newBook = new Book(bookTitle, bookAuthor, publicationYearInt);
         repo.save(newBook);
+        index(newBook);
+        pageCache.invalidate();
 
         return newBook;
     }
 
+    @RetryOnConflict
     @Transactional
     public Book edit(Integer bookId, String bookTitle, String bookAuthor, String publicationYear) throws Exception {
         log.info("Editing a book. Title: {}, Author: {}, PublicationYear: {}",
@@ -130,6 +195,8 @@ public class BookService {
         book.setPublicationYear(publicationYearInt);
 
         repo.save(book);
+        index(book);
+        pageCache.invalidate();
         log.info("The book is saved");
         return book;
     }
@@ -145,6 +212,20 @@ public class BookService {
      * @return the paginated list of books or throws exception if there was an error
      */
     public Page<Book> getBooks(String searchQuery, String searchField, int pageNo, String sortField, String sortOrder) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        try {
+            return findBooks(searchQuery, searchField, pageNo, sortField, sortOrder);
+        } finally {
+            // The field is a request parameter, so it is normalized to keep the number of tags bounded
+            String field = searchField.isBlank() || searchQuery.isBlank() ? "all" :
+                    searchField.equals("author") ? "author" : "title";
+            sample.stop(meterRegistry.timer("library.books.search", "field", field));
+        }
+    }
+
+    private Page<Book> findBooks(String searchQuery, String searchField, int pageNo,
+                                 String sortField, String sortOrder) {
         log.info("Searching books. Query: {}, Field: {}, Page: {}, SortField: {}, SortOrder: {}",
                 searchQuery, searchField, pageNo, sortField, sortOrder);
 
@@ -156,12 +237,23 @@ public class BookService {
             throw new IllegalArgumentException("Invalid page number: " + pageNo);
         }
 
+        CatalogPageCache.Key key = new CatalogPageCache.Key(searchQuery, searchField, pageNo, sortField, sortOrder);
+        Page<Book> page = pageCache.get(key);
+
+        if (page != null) {
+            log.info("Found books in the page cache");
+            return page;
+        }
+
+        long version = pageCache.version();
         Pageable pageable = PageRequest.of(pageNo - 1, pageSize, sort);
-        Page<Book> page;
 
         // If search fields are empty, get all books
         if (!searchField.isBlank() && !searchQuery.isBlank()) {
-            if(searchField.equals("author")) {
+            if (searchIndex.isReady()) {
+                log.info("Searching books in the search index");
+                page = searchIndexed(searchQuery, searchField, sortField, sortOrder, pageable);
+            } else if(searchField.equals("author")) {
                 log.info("Searching books by author");
                 page = repo.findByAuthorContaining(searchQuery, pageable);
             } else {
@@ -178,9 +270,178 @@ public class BookService {
             throw new IllegalArgumentException("Invalid page number: " + pageNo);
         }
 
+        pageCache.put(key, page, version);
         return page;
     }
 
+    /**
+     * Retrieves the slice of books following the cursor, without counting the total number of books.
+     * Unlike page numbers, the cost of a slice does not grow with its depth in the catalog.
+     *
+     * @param searchQuery  the search query
+     * @param searchField  the field to search on (title or author)
+     * @param after        the cursor of the last shown book, or blank for the first slice
+     * @param sortField    the field to sort on (title or author)
+     * @param sortOrder    the sort order (asc or desc)
+     * @return the slice of books or throws exception if the cursor is invalid
+     */
+    public Slice<Book> getBooksAfter(String searchQuery, String searchField, String after,
+                                     String sortField, String sortOrder) {
+        log.info("Searching books. Query: {}, Field: {}, After: {}, SortField: {}, SortOrder: {}",
+                searchQuery, searchField, after, sortField, sortOrder);
+
+        String field = sortField.equals("author") ? "author" : "title";
+        String order = sortOrder.equals("desc") ? "desc" : "asc";
+        BookCursor cursor = null;
+
+        if (!after.isBlank()) {
+            cursor = BookCursor.decode(after);
+
+            if (!cursor.sortField().equals(field) || !cursor.sortOrder().equals(order)) {
+                log.warn("Cursor does not match the sort: {}", after);
+                throw new IllegalArgumentException("Cursor does not match the sort: " + after);
+            }
+        }
+
+        if (!searchField.isBlank() && !searchQuery.isBlank()) {
+            if (!searchIndex.isReady()) {
+                log.warn("Search index is not ready for cursor paging");
+                throw new IllegalArgumentException("Search index is not ready");
+            }
+
+            log.info("Searching books in the search index");
+            return searchIndexedAfter(searchQuery, searchField, cursor, field, order);
+        }
+
+        Sort.Direction direction = order.equals("desc") ? Sort.Direction.DESC : Sort.Direction.ASC;
+        Pageable pageable = PageRequest.of(0, pageSize, Sort.by(direction, field, "id"));
+
+        if (cursor == null) {
+            log.info("Getting first books");
+            return repo.findAllBy(pageable);
+        }
+
+        log.info("Getting books after: {}, {}", cursor.value(), cursor.id());
+
+        if (field.equals("author")) {
+            return direction.isDescending() ?
+                    repo.findByAuthorLessThanOrAuthorAndIdLessThan(
+                            cursor.value(), cursor.value(), cursor.id(), pageable) :
+                    repo.findByAuthorGreaterThanOrAuthorAndIdGreaterThan(
+                            cursor.value(), cursor.value(), cursor.id(), pageable);
+        }
+
+        return direction.isDescending() ?
+                repo.findByTitleLessThanOrTitleAndIdLessThan(
+                        cursor.value(), cursor.value(), cursor.id(), pageable) :
+                repo.findByTitleGreaterThanOrTitleAndIdGreaterThan(
+                        cursor.value(), cursor.value(), cursor.id(), pageable);
+    }
+
+    /**
+     * Creates the cursor pointing right after the book, for the given sort.
+     *
+     * @param book       the last shown book
+     * @param sortField  the field to sort on (title or author)
+     * @param sortOrder  the sort order (asc or desc)
+     * @return the encoded cursor
+     */
+    public String cursorAfter(Book book, String sortField, String sortOrder) {
+        return BookCursor.after(sortField.equals("author") ? "author" : "title",
+                sortOrder.equals("desc") ? "desc" : "asc", book).encode();
+    }
+
+    /**
+     * Continues the search index result list right after the book of the cursor.
+     *
+     * @param searchQuery  the search query
+     * @param searchField  the field to search on (title or author)
+     * @param cursor       the cursor of the last shown book, or null for the first slice
+     * @param sortField    the field to sort on (title or author)
+     * @param sortOrder    the sort order (asc or desc)
+     * @return the slice of found books
+     */
+    private Slice<Book> searchIndexedAfter(String searchQuery, String searchField, BookCursor cursor,
+                                           String sortField, String sortOrder) {
+        List<Integer> ids = searchIndex.search(searchQuery, searchField, sortField, sortOrder.equals("desc"));
+
+        int from = 0;
+        if (cursor != null) {
+            from = ids.indexOf(cursor.id()) + 1;
+            if (from == 0) {
+                log.warn("Cursor book is not in the search result: {}", cursor.id());
+                throw new IllegalArgumentException("Cursor book is not in the search result: " + cursor.id());
+            }
+        }
+
+        int to = Math.min(from + pageSize, ids.size());
+        List<Integer> sliceIds = ids.subList(from, to);
+        Pageable pageable = PageRequest.of(0, pageSize);
+
+        if (sliceIds.isEmpty()) {
+            return new SliceImpl<>(List.of(), pageable, false);
+        }
+
+        return new SliceImpl<>(findOrdered(sliceIds), pageable, to < ids.size());
+    }
+
+    /**
+     * Pages over the ids found by the search index and loads only the books of the requested page.
+     *
+     * @param searchQuery  the search query
+     * @param searchField  the field to search on (title or author)
+     * @param sortField    the field to sort on (title or author)
+     * @param sortOrder    the sort order (asc or desc)
+     * @param pageable     the requested page
+     * @return the page of found books
+     */
+    private Page<Book> searchIndexed(String searchQuery, String searchField, String sortField,
+                                     String sortOrder, Pageable pageable) {
+        List<Integer> ids = searchIndex.search(searchQuery, searchField, sortField, sortOrder.equals("desc"));
+
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        int to = Math.min(from + pageable.getPageSize(), ids.size());
+        List<Integer> pageIds = ids.subList(from, to);
+
+        if (pageIds.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, ids.size());
+        }
+
+        return new PageImpl<>(findOrdered(pageIds), pageable, ids.size());
+    }
+
+    /**
+     * Loads the books by their ids, keeping the order of the ids.
+     *
+     * @param ids the ids of the books
+     * @return the found books in the order of the ids
+     */
+    private List<Book> findOrdered(List<Integer> ids) {
+        // The database returns rows in arbitrary order
+        Map<Integer, Book> books = repo.findByIdIn(ids).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return ids.stream().map(books::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Updates the search index with the book once the current transaction is committed,
+     * so that rolled back changes never become searchable.
+     *
+     * @param book the added or edited book
+     */
+    private void index(Book book) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    searchIndex.put(book);
+                }
+            });
+        } else {
+            searchIndex.put(book);
+        }
+    }
+
     /**
      * Retrieves the page size used for pagination.
      *
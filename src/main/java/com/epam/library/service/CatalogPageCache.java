@@ -0,0 +1,152 @@
+package com.epam.library.service;
+
+import com.epam.library.entity.Book;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of catalog pages.
+ * Entries are evicted in least recently used order when the cache is full, and when they are older than the TTL.
+ * Every change of the catalog increments the catalog version, which invalidates all cached pages at once.
+ */
+@Component
+public class CatalogPageCache {
+
+    private static final Logger log = LogManager.getLogger(CatalogPageCache.class);
+
+    /**
+     * Identifies a catalog page.
+     */
+    public record Key(String searchQuery, String searchField, int pageNo, String sortField, String sortOrder) {}
+
+    private record Entry(Page<Book> page, long version, long createdAt) {}
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final LinkedHashMap<Key, Entry> entries;
+
+    public CatalogPageCache(@Value("${library.catalog-cache.max-size:1000}") int maxSize,
+                            @Value("${library.catalog-cache.ttl:60s}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > CatalogPageCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the current catalog version.
+     * Must be read before loading a page, and passed to {@link #put} together with the loaded page.
+     *
+     * @return the catalog version
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Returns the cached page if it is present, not expired and loaded for the current catalog version.
+     *
+     * @param key the page key
+     * @return the cached page, or null if there is none
+     */
+    public synchronized Page<Book> get(Key key) {
+        Entry entry = entries.get(key);
+
+        if (entry != null && (entry.version() != version.get() || isExpired(entry, System.nanoTime()))) {
+            entries.remove(key);
+            evictions.incrementAndGet();
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return entry.page();
+    }
+
+    /**
+     * Caches the page, unless the catalog has changed since it was loaded.
+     *
+     * @param key     the page key
+     * @param page    the loaded page
+     * @param version the catalog version read before loading the page
+     */
+    public synchronized void put(Key key, Page<Book> page, long version) {
+        if (version != this.version.get()) {
+            return;
+        }
+        entries.put(key, new Entry(page, version, System.nanoTime()));
+    }
+
+    /**
+     * Increments the catalog version once the current transaction is committed,
+     * or immediately if there is no transaction.
+     * Bumping after the commit keeps pages loaded before the commit from being cached as current.
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpVersion();
+                }
+            });
+        } else {
+            bumpVersion();
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of entries removed because the cache was full, they expired or the catalog changed.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private void bumpVersion() {
+        log.debug("Catalog version changed to {}", version.incrementAndGet());
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.createdAt() > ttlNanos;
+    }
+}
@@ -0,0 +1,286 @@
+package com.epam.library.service;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Generator of synthetic users, books and subscriptions for load tests and benchmarks.
+ * Rows are generated while they are inserted, in batches of plain JDBC inserts with one transaction per batch,
+ * so the size of the data set is not limited by memory.
+ * Generated rows are appended to the existing ones, and subscriptions refer to all users and books in the database.
+ * Most subscriptions are returned history, as in a library running for years. Open subscriptions hold a copy
+ * of their book, a book without an available copy gets a returned subscription instead,
+ * and the available copies of the books are decreased by their open subscriptions.
+ */
+@Component
+public class DatasetGenerator {
+
+    private static final Logger log = LogManager.getLogger(DatasetGenerator.class);
+
+    private static final int BATCH_SIZE = 5000;
+    private static final int PERIOD = 60;
+    private static final int MAX_OVERDUE_DAYS = 365;
+    private static final int MAX_LATE_RETURN_DAYS = 30;
+    private static final int HISTORY_DAYS = 3 * 365;
+
+    /**
+     * Describes the data set to generate.
+     *
+     * @param users           the number of users to add
+     * @param books           the number of books to add
+     * @param subscriptions   the number of subscriptions to add
+     * @param returnedRatio   the minimum share of subscriptions which are returned, more are returned
+     *                        when the ordered books have no copy left
+     * @param pendingRatio    the share of open subscriptions waiting for approval
+     * @param overdueRatio    the share of approved subscriptions which are overdue, or were returned late
+     * @param popularitySkew  the exponent of the power law of book popularity, 0 for uniform popularity
+     * @param seed            the seed of the random generator, the same seed gives the same data set
+     */
+    public record Spec(int users, int books, int subscriptions, double returnedRatio, double pendingRatio,
+                       double overdueRatio, double popularitySkew, long seed) {
+
+        /**
+         * Describes a data set of books only.
+         *
+         * @param books the number of books to add
+         * @return the data set
+         */
+        public static Spec books(int books) {
+            return new Spec(0, books, 0, 0, 0, 0, 0, 42);
+        }
+    }
+
+    // Title pattern, two word lists for the title, first names and last names of one language
+    private record Language(String pattern, String[] first, String[] second, String[] firstNames, String[] lastNames) {}
+
+    private static final Language[] LANGUAGES = {
+            new Language("The %s %s",
+                    new String[] {"Silent", "Last", "White", "Long", "Winter", "Lost", "Hidden", "Broken"},
+                    new String[] {"Garden", "Letter", "Evening", "Road", "River", "Dream", "Kingdom", "Shore"},
+                    new String[] {"John", "Emma", "Oliver", "Grace", "Henry", "Alice"},
+                    new String[] {"Smith", "Taylor", "Brown", "Walker", "Hughes", "Carter"}),
+            new Language("%s %s",
+                    new String[] {"Тихий", "Останній", "Білий", "Довгий", "Зимовий", "Загублений"},
+                    new String[] {"сад", "лист", "вечір", "шлях", "берег", "сон", "край"},
+                    new String[] {"Олена", "Тарас", "Ірина", "Богдан", "Марія", "Андрій"},
+                    new String[] {"Шевченко", "Коваленко", "Бондаренко", "Мельник", "Ткаченко", "Кравчук"}),
+            new Language("Der %s %s",
+                    new String[] {"stille", "letzte", "weiße", "lange", "verlorene", "dunkle"},
+                    new String[] {"Garten", "Brief", "Abend", "Weg", "Fluss", "Traum"},
+                    new String[] {"Lukas", "Anna", "Felix", "Lena", "Jonas", "Marie"},
+                    new String[] {"Müller", "Schmidt", "Schneider", "Fischer", "Weber", "Becker"}),
+            new Language("Le %s %s",
+                    new String[] {"jardin", "chemin", "soir", "fleuve", "rêve", "silence"},
+                    new String[] {"silencieux", "dernier", "blanc", "lointain", "perdu", "secret"},
+                    new String[] {"Louis", "Chloé", "Hugo", "Camille", "Jules", "Léa"},
+                    new String[] {"Martin", "Bernard", "Dubois", "Moreau", "Laurent", "Lefèvre"}),
+            new Language("El %s %s",
+                    new String[] {"jardín", "camino", "río", "sueño", "invierno", "silencio"},
+                    new String[] {"silencioso", "último", "blanco", "lejano", "perdido", "oscuro"},
+                    new String[] {"Mateo", "Lucía", "Diego", "Sofía", "Pablo", "Elena"},
+                    new String[] {"García", "Fernández", "López", "Martínez", "Sánchez", "Romero"}),
+            new Language("%s %s",
+                    new String[] {"Cichy", "Ostatni", "Biały", "Długi", "Zimowy", "Zagubiony"},
+                    new String[] {"ogród", "list", "wieczór", "brzeg", "sen", "las"},
+                    new String[] {"Jakub", "Zofia", "Kacper", "Maja", "Szymon", "Hanna"},
+                    new String[] {"Nowak", "Kowalski", "Wiśniewski", "Wójcik", "Kamiński", "Lewandowski"})
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+
+    public DatasetGenerator(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                            PasswordEncoder passwordEncoder) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordEncoder = passwordEncoder;
+    }
+
+    /**
+     * Generates the data set: users first, then books, then subscriptions to all users and books.
+     *
+     * @param spec the data set to generate
+     */
+    public void generate(Spec spec) {
+        log.info("Generating data set: {}", spec);
+        long start = System.currentTimeMillis();
+        Random random = new Random(spec.seed());
+
+        generateUsers(spec.users(), random);
+        generateBooks(spec.books(), random);
+        generateSubscriptions(spec, random);
+
+        log.info("Data set generated in {} ms", System.currentTimeMillis() - start);
+    }
+
+    private void generateUsers(int count, Random random) {
+        if (count == 0) {
+            return;
+        }
+
+        int firstId = maxId("users") + 1;
+        // Hashing is deliberately slow, so all generated users share one password
+        String password = passwordEncoder.encode("password");
+
+        write("users", "insert into users (id, name, email, password, role, fine, blocked) " +
+                "values (?, ?, ?, ?, 'READER', 0, ?)", count, i -> {
+            int id = firstId + i;
+            Language language = pick(LANGUAGES, random);
+            return new Object[] {id, pick(language.firstNames(), random) + " " + pick(language.lastNames(), random),
+                    "user" + id + "@example.com", password, random.nextInt(100) == 0};
+        });
+    }
+
+    private void generateBooks(int count, Random random) {
+        int firstId = maxId("books") + 1;
+
+        write("books", "insert into books (id, title, author, publication_year, num_of_copies, available_copies) " +
+                "values (?, ?, ?, ?, ?, ?)", count, i -> {
+            int id = firstId + i;
+            Language language = pick(LANGUAGES, random);
+            // The id keeps the titles unique
+            String title = String.format(language.pattern(), pick(language.first(), random),
+                    pick(language.second(), random)) + " " + id;
+            String author = pick(language.firstNames(), random) + " " + pick(language.lastNames(), random);
+            // Recent books are more common
+            int year = Math.max(1800, LocalDate.now().getYear() - (int) Math.abs(random.nextGaussian() * 40));
+            int copies = 1 + random.nextInt(5);
+            return new Object[] {id, title, author, year, copies, copies};
+        });
+    }
+
+    private void generateSubscriptions(Spec spec, Random random) {
+        if (spec.subscriptions() == 0) {
+            return;
+        }
+
+        int firstId = maxId("subscriptions") + 1;
+        int[] users = ids("users");
+        List<int[]> bookRows = jdbcTemplate.query("select id, available_copies from books order by id",
+                (rs, rowNum) -> new int[] {rs.getInt("id"), rs.getInt("available_copies")});
+        int[] books = bookRows.stream().mapToInt(row -> row[0]).toArray();
+        int[] available = bookRows.stream().mapToInt(row -> row[1]).toArray();
+        int[] taken = new int[books.length];
+        LocalDate today = LocalDate.now();
+
+        write("subscriptions", "insert into subscriptions " +
+                "(id, book_id, user_id, approved, start_date, period, fine, due_date, status, returned_on) " +
+                "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", spec.subscriptions(), i -> {
+            int book = bookByPopularity(books.length, spec.popularitySkew(), random);
+            int userId = users[random.nextInt(users.length)];
+
+            if (random.nextDouble() < spec.returnedRatio() || available[book] == 0) {
+                int kept = random.nextDouble() < spec.overdueRatio() ?
+                        PERIOD + 1 + random.nextInt(MAX_LATE_RETURN_DAYS) : 1 + random.nextInt(PERIOD);
+                LocalDate returnedOn = today.minusDays(1 + random.nextInt(HISTORY_DAYS));
+                LocalDate startDate = returnedOn.minusDays(kept);
+                long fine = Math.max(0, kept - PERIOD) * (long) SubscriptionService.dayFine;
+                return new Object[] {firstId + i, books[book], userId, true, startDate, PERIOD, fine,
+                        startDate.plusDays(PERIOD), "RETURNED", returnedOn};
+            }
+
+            available[book]--;
+            taken[book]++;
+
+            if (random.nextDouble() < spec.pendingRatio()) {
+                return new Object[] {firstId + i, books[book], userId, false, null, 0, 0L, null, "OPEN", null};
+            }
+
+            int days = random.nextDouble() < spec.overdueRatio() ?
+                    PERIOD + 1 + random.nextInt(MAX_OVERDUE_DAYS) : random.nextInt(PERIOD + 1);
+            long fine = Math.max(0, days - PERIOD) * (long) SubscriptionService.dayFine;
+            LocalDate startDate = today.minusDays(days);
+            return new Object[] {firstId + i, books[book], userId, true, startDate, PERIOD, fine,
+                    startDate.plusDays(PERIOD), "OPEN", null};
+        });
+
+        // Open subscriptions hold their copies
+        int[] takenBooks = IntStream.range(0, books.length).filter(book -> taken[book] > 0).toArray();
+        write("books", "update books set available_copies = available_copies - ? where id = ?",
+                takenBooks.length, i -> new Object[] {taken[takenBooks[i]], books[takenBooks[i]]});
+
+        // Users owe the sum of the fines of their subscriptions
+        int fined = jdbcTemplate.update("update users u set fine = fine + " +
+                "(select sum(s.fine) from subscriptions s where s.user_id = u.id and s.id >= ?) " +
+                "where exists (select 1 from subscriptions s where s.user_id = u.id and s.id >= ? and s.fine > 0)",
+                firstId, firstId);
+        log.info("Fines added to {} users", fined);
+    }
+
+    /**
+     * Picks the index of a book so that book popularity follows a power law: the most popular book is ordered
+     * far more often than the median one. Ranks are spread over the indexes, so popular books are not
+     * all at the start of the catalog.
+     */
+    private static int bookByPopularity(int books, double skew, Random random) {
+        double u = random.nextDouble();
+        long rank;
+
+        if (skew <= 0) {
+            rank = (long) (u * books);
+        } else if (Math.abs(skew - 1) < 1e-9) {
+            rank = (long) Math.pow(books, u) - 1;
+        } else {
+            // Inverse of the continuous power law distribution on [1, books]
+            rank = (long) Math.pow((Math.pow(books, 1 - skew) - 1) * u + 1, 1 / (1 - skew)) - 1;
+        }
+
+        rank = Math.min(Math.max(rank, 0), books - 1);
+        long step = books % 1_000_003 == 0 ? 1 : 1_000_003;
+        return (int) (rank * step % books);
+    }
+
+    private interface RowSource {
+        Object[] row(int i);
+    }
+
+    private void write(String table, String sql, int count, RowSource rows) {
+        if (count == 0) {
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+
+        for (int i = 0; i < count; i++) {
+            batch.add(rows.row(i));
+
+            if (batch.size() == BATCH_SIZE || i == count - 1) {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, batch));
+                batch.clear();
+
+                if ((i + 1) % (BATCH_SIZE * 100) == 0) {
+                    log.info("{} rows written to {}", i + 1, table);
+                }
+            }
+        }
+
+        log.info("{} rows written to {} in {} ms", count, table, System.currentTimeMillis() - start);
+    }
+
+    private int[] ids(String table) {
+        return jdbcTemplate.queryForList("select id from " + table + " order by id", Integer.class).stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private int maxId(String table) {
+        Integer max = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + table, Integer.class);
+        return max == null ? 0 : max;
+    }
+
+    private static <T> T pick(T[] values, Random random) {
+        return values[random.nextInt(values.length)];
+    }
+}
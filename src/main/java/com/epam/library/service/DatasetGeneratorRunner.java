@@ -0,0 +1,44 @@
+package com.epam.library.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the database with a synthetic data set and stops the application.
+ * Runs with the "generate" profile, the size of the data set is set by the library.generator properties, e.g.
+ * java -jar library.jar --spring.profiles.active=generate --library.generator.subscriptions=10000000
+ */
+@Component
+@Profile("generate")
+public class DatasetGeneratorRunner implements ApplicationRunner {
+
+    private final DatasetGenerator generator;
+    private final ApplicationContext context;
+    private final DatasetGenerator.Spec spec;
+
+    public DatasetGeneratorRunner(DatasetGenerator generator, ApplicationContext context,
+                                  @Value("${library.generator.users:100000}") int users,
+                                  @Value("${library.generator.books:1000000}") int books,
+                                  @Value("${library.generator.subscriptions:1000000}") int subscriptions,
+                                  @Value("${library.generator.returned-ratio:0.8}") double returnedRatio,
+                                  @Value("${library.generator.pending-ratio:0.1}") double pendingRatio,
+                                  @Value("${library.generator.overdue-ratio:0.15}") double overdueRatio,
+                                  @Value("${library.generator.popularity-skew:1.1}") double popularitySkew,
+                                  @Value("${library.generator.seed:42}") long seed) {
+        this.generator = generator;
+        this.context = context;
+        this.spec = new DatasetGenerator.Spec(users, books, subscriptions, returnedRatio, pendingRatio,
+                overdueRatio, popularitySkew, seed);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        generator.generate(spec);
+        System.exit(SpringApplication.exit(context));
+    }
+}
@@ -0,0 +1,214 @@
+package com.epam.library.service;
+
+import com.epam.library.config.JobLock;
+import com.epam.library.entity.FineJobChunk;
+import com.epam.library.entity.FineJobRun;
+import com.epam.library.repository.FineJobChunkRepository;
+import com.epam.library.repository.FineJobRunRepository;
+import com.epam.library.repository.SubscriptionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Chunked engine for the nightly fine calculation.
+ * Splits subscriptions into id ranges which are processed in parallel, each in its own transaction.
+ * A processed range is recorded in the same transaction as its fines, so a run interrupted by a crash
+ * or a redeploy is resumed on startup without charging any range twice for the same day.
+ */
+@Service
+public class FineJobService {
+
+    private static final Logger log = LogManager.getLogger(FineJobService.class);
+
+    private final SubscriptionRepository subscriptionRepo;
+    private final FineJobRunRepository runRepo;
+    private final FineJobChunkRepository chunkRepo;
+    private final UserService userService;
+    private final FineService fineService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int chunkSize;
+    private final int workers;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public FineJobService(SubscriptionRepository subscriptionRepo, FineJobRunRepository runRepo,
+                          FineJobChunkRepository chunkRepo, UserService userService, FineService fineService,
+                          TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                          @Value("${library.fine-job.chunk-size:10000}") int chunkSize,
+                          @Value("${library.fine-job.workers:4}") int workers) {
+        this.subscriptionRepo = subscriptionRepo;
+        this.runRepo = runRepo;
+        this.chunkRepo = chunkRepo;
+        this.userService = userService;
+        this.fineService = fineService;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.chunkSize = chunkSize;
+        this.workers = workers;
+    }
+
+    /**
+     * Runs the fine calculation for today.
+     * Disabled by default, enabled by setting the library.fine-job.cron property.
+     * Runs on one node of the cluster, the others skip it.
+     */
+    @Scheduled(cron = "${library.fine-job.cron:-}")
+    @JobLock("fines")
+    public void calculateAndAddFines() {
+        run(LocalDate.now());
+    }
+
+    /**
+     * Resumes the runs which were not finished before the application was stopped.
+     * The lease is taken only if there is a run to resume, and given up as soon as the runs finish,
+     * so a node starting shortly before the nightly run does not make the other nodes skip it.
+     * Skipped if another node runs the fine job.
+     */
+    @EventListener(value = ApplicationReadyEvent.class, condition = "@fineJobService.hasUnfinishedRuns()")
+    @JobLock(value = "fines", holdAtLeast = false)
+    public void resumeUnfinished() {
+        for (FineJobRun run : runRepo.findByFinishedFalse()) {
+            log.info("Resuming fine job run for {}", run.getRunDate());
+            run(run.getRunDate());
+        }
+    }
+
+    /**
+     * Checks if there are runs to resume.
+     *
+     * @return true if fines are added by the fine jobs and a run is not finished
+     */
+    public boolean hasUnfinishedRuns() {
+        return !fineService.isLazy() && runRepo.existsByFinishedFalse();
+    }
+
+    /**
+     * Adds the fines of the given day, skipping the ranges already processed for this day.
+     *
+     * @param runDate the day to calculate fines for
+     * @return true if all ranges are processed, false if some failed or another run is in progress
+     */
+    public boolean run(LocalDate runDate) {
+        if (fineService.isLazy()) {
+            log.info("Fines are computed on read, skipping fine job run for {}", runDate);
+            return true;
+        }
+
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Fine job is already running, skipping run for {}", runDate);
+            return false;
+        }
+
+        try {
+            Timer.Sample sample = Timer.start(meterRegistry);
+
+            FineJobRun run = runRepo.findById(runDate).orElseGet(() ->
+                    runRepo.save(new FineJobRun(runDate, subscriptionRepo.findMaxId(), chunkSize)));
+
+            if (run.isFinished()) {
+                log.info("Fine job run for {} is already finished", runDate);
+                return true;
+            }
+
+            Set<Integer> processed = chunkRepo.findByRunDate(runDate).stream()
+                    .map(FineJobChunk::getFirstId)
+                    .collect(Collectors.toSet());
+
+            List<Callable<Integer>> chunks = new ArrayList<>();
+            for (long firstId = 1; firstId <= run.getLastId(); firstId += run.getChunkSize()) {
+                int first = (int) firstId;
+                int last = (int) Math.min(firstId + run.getChunkSize() - 1, run.getLastId());
+
+                if (!processed.contains(first)) {
+                    chunks.add(() -> processChunk(runDate, first, last));
+                }
+            }
+
+            log.info("Fine job run for {}: {} ranges to process, {} already processed",
+                    runDate, chunks.size(), processed.size());
+
+            int failed = 0;
+            int subscriptions = 0;
+            ExecutorService executor = Executors.newFixedThreadPool(workers);
+
+            try {
+                for (Future<Integer> future : executor.invokeAll(chunks)) {
+                    try {
+                        subscriptions += future.get();
+                    } catch (ExecutionException e) {
+                        log.error("Fine job range failed", e.getCause());
+                        failed++;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Fine job run for {} interrupted", runDate);
+                return false;
+            } finally {
+                executor.shutdown();
+            }
+
+            meterRegistry.counter("library.fines.subscriptions", "engine", "chunked").increment(subscriptions);
+            meterRegistry.counter("library.fines.chunks.failed").increment(failed);
+
+            if (failed > 0) {
+                log.error("Fine job run for {}: {} ranges failed, they are retried on the next resume",
+                        runDate, failed);
+                return false;
+            }
+
+            run.setFinished(true);
+            runRepo.save(run);
+
+            long elapsed = sample.stop(meterRegistry.timer("library.fines.run", "engine", "chunked"));
+
+            log.info("Fine job run for {} finished: {} subscriptions fined in {} ms",
+                    runDate, subscriptions, elapsed / 1_000_000);
+            return true;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Adds the fines of the subscriptions and their users in the id range and records the range as processed,
+     * all in one transaction.
+     *
+     * @param runDate the day to calculate fines for
+     * @param firstId the first subscription id of the range
+     * @param lastId  the last subscription id of the range
+     * @return the number of fined subscriptions
+     */
+    private Integer processChunk(LocalDate runDate, int firstId, int lastId) {
+        return transactionTemplate.execute(status -> {
+            // Another node or an earlier attempt may have processed the range meanwhile
+            if (chunkRepo.existsByRunDateAndFirstId(runDate, firstId)) {
+                return 0;
+            }
+
+            userService.addOverdueFines(SubscriptionService.dayFine, runDate, firstId, lastId);
+            int subscriptions = subscriptionRepo.addOverdueFines(SubscriptionService.dayFine, runDate,
+                    firstId, lastId);
+
+            // The unique (run_date, first_id) key rolls the range back if it was recorded concurrently
+            chunkRepo.save(new FineJobChunk(runDate, firstId, lastId));
+            return subscriptions;
+        });
+    }
+}
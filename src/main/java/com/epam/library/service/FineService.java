@@ -0,0 +1,195 @@
+package com.epam.library.service;
+
+import com.epam.library.config.JobLock;
+import com.epam.library.dto.SubscriptionView;
+import com.epam.library.entity.Subscription;
+import com.epam.library.entity.User;
+import com.epam.library.repository.SubscriptionRepository;
+import com.epam.library.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Service class for the fines of overdue subscriptions.
+ * In the nightly mode the fine jobs add the day fine to every overdue subscription and its user each night,
+ * and the stored fines are shown. In the lazy mode nothing is written at night: the fine of an open subscription
+ * is computed on read from its due date, and the fine of a user is their stored fine plus the fines accrued
+ * by their open overdue subscriptions, summed with one indexed query.
+ * The stored fine of a user always includes the stored fines of their subscriptions,
+ * so switching from the nightly to the lazy mode neither loses nor repeats a fine.
+ * Switching back loses the fines accrued since the last materialization, as the nightly jobs only add
+ * the fine of each next day: run {@link #materializeFines()} in the lazy mode on the day of the switch,
+ * then restart in the nightly mode before the next nightly run.
+ */
+@Service
+public class FineService {
+
+    private static final Logger log = LogManager.getLogger(FineService.class);
+
+    public enum Mode {
+        NIGHTLY,
+        LAZY;
+
+        public static Mode of(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final SubscriptionRepository subscriptionRepo;
+    private final UserRepository userRepo;
+    private final MeterRegistry meterRegistry;
+    private final Mode mode;
+
+    public FineService(SubscriptionRepository subscriptionRepo, UserRepository userRepo, MeterRegistry meterRegistry,
+                       @Value("${library.fines.mode:nightly}") String mode) {
+        this.subscriptionRepo = subscriptionRepo;
+        this.userRepo = userRepo;
+        this.meterRegistry = meterRegistry;
+        this.mode = Mode.of(mode);
+    }
+
+    public boolean isLazy() {
+        return mode == Mode.LAZY;
+    }
+
+    /**
+     * Finds the current fine of the subscription.
+     *
+     * @param subscription the subscription
+     * @return the fine computed from the due date for open subscriptions in the lazy mode, the stored fine otherwise
+     */
+    public long fineOf(Subscription subscription) {
+        if (!isLazy() || subscription.isReturned()) {
+            return subscription.getFine();
+        }
+        return fineOn(subscription.getDueDate(), LocalDate.now());
+    }
+
+    /**
+     * Computes the fine from the due date, one day fine for every day after it.
+     *
+     * @param dueDate the due date, null if the subscription is not approved
+     * @param today   the day to compute the fine for
+     * @return the fine, 0 if the subscription is not approved or not overdue
+     */
+    public static long fineOn(LocalDate dueDate, LocalDate today) {
+        if (dueDate == null) {
+            return 0;
+        }
+        return Math.max(0, ChronoUnit.DAYS.between(dueDate, today)) * SubscriptionService.dayFine;
+    }
+
+    /**
+     * Finds the current fines of the subscriptions.
+     *
+     * @param subscriptions the subscriptions
+     * @return the fines by subscription ID
+     */
+    public Map<Integer, Long> finesOf(Collection<Subscription> subscriptions) {
+        Map<Integer, Long> fines = new LinkedHashMap<>();
+        subscriptions.forEach(subscription -> fines.put(subscription.getId(), fineOf(subscription)));
+        return fines;
+    }
+
+    /**
+     * Replaces the stored fine of the open subscription with the fine computed from its due date in the lazy mode.
+     *
+     * @param view the subscription of the librarian page
+     * @return the subscription with its current fine
+     */
+    public SubscriptionView withCurrentFine(SubscriptionView view) {
+        if (!isLazy() || view.getDueDate() == null) {
+            return view;
+        }
+
+        return view.withFine(fineOn(view.getDueDate(), LocalDate.now()));
+    }
+
+    /**
+     * Finds the current fine of the user.
+     *
+     * @param user the user
+     * @return the stored fine plus the fines accrued by the open subscriptions in the lazy mode,
+     * the stored fine otherwise
+     */
+    public long fineOf(User user) {
+        if (!isLazy() || user.getId() == null) {
+            return user.getFine();
+        }
+        return user.getFine() + subscriptionRepo.sumAccruedFines(user.getId(), LocalDate.now(),
+                SubscriptionService.dayFine);
+    }
+
+    /**
+     * Stores the fines accrued by the subscriptions being returned and adds them to their users in the lazy mode,
+     * as a returned subscription no longer accrues fines.
+     * Must be called in the transaction which returns the subscriptions.
+     *
+     * @param subscriptions the returned subscriptions
+     * @param today         the day of the return
+     */
+    public void settle(Collection<Subscription> subscriptions, LocalDate today) {
+        if (!isLazy()) {
+            return;
+        }
+
+        for (Subscription subscription : subscriptions) {
+            long accrued = fineOn(subscription.getDueDate(), today) - subscription.getFine();
+
+            if (accrued > 0) {
+                subscription.setFine(subscription.getFine() + accrued);
+                // Added by one statement, so concurrent returns of the same user are not lost
+                userRepo.addFine(subscription.getUser().getId(), accrued);
+                log.info("Fine {} of subscription: {} added to user: {}", accrued, subscription.getId(),
+                        subscription.getUser().getEmail());
+            }
+        }
+    }
+
+    /**
+     * Stores the fines computed from the due dates in the open overdue subscriptions and their users,
+     * so reports on the tables see current fines. Only used in the lazy mode,
+     * disabled by default, enabled by setting the library.fines.materialize-cron property.
+     * The fines are set rather than added, so running it again the same day changes nothing.
+     *
+     * @return the number of updated subscriptions
+     */
+    @Scheduled(cron = "${library.fines.materialize-cron:-}")
+    @JobLock("fines")
+    @Transactional
+    public int materializeFines() {
+        if (!isLazy()) {
+            log.warn("Fines are stored by the nightly jobs, skipping materialization");
+            return 0;
+        }
+
+        log.info("Materializing subscriptions fines");
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        LocalDate today = LocalDate.now();
+
+        // Users first, their increments are the differences with the fines stored in the subscriptions
+        int users = userRepo.materializeFines(SubscriptionService.dayFine, today);
+        int subscriptions = subscriptionRepo.materializeFines(SubscriptionService.dayFine, today);
+
+        long elapsed = sample.stop(meterRegistry.timer("library.fines.run", "engine", "materialize"));
+        meterRegistry.counter("library.fines.subscriptions", "engine", "materialize").increment(subscriptions);
+
+        log.info("Fines materialized for {} subscriptions and {} users in {} ms",
+                subscriptions, users, elapsed / 1_000_000);
+        return subscriptions;
+    }
+}
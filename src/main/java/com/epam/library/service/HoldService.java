@@ -0,0 +1,188 @@
+package com.epam.library.service;
+
+import com.epam.library.dto.HoldView;
+import com.epam.library.dto.OrderResult;
+import com.epam.library.entity.Book;
+import com.epam.library.entity.Hold;
+import com.epam.library.entity.HoldQueue;
+import com.epam.library.entity.Subscription;
+import com.epam.library.entity.User;
+import com.epam.library.repository.BookRepository;
+import com.epam.library.repository.HoldQueueRepository;
+import com.epam.library.repository.HoldRepository;
+import com.epam.library.repository.SubscriptionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Service class for the hold queues of unavailable books.
+ * Each book has a queue of numbered tickets: a hold takes the next ticket at the tail,
+ * and a freed copy is allocated to the hold at the head, so readers are served first come, first served.
+ * The position of a hold is the difference of its ticket and the head, so it is found without counting holds.
+ */
+@Service
+public class HoldService {
+
+    private static final Logger log = LogManager.getLogger(HoldService.class);
+
+    private final HoldRepository repo;
+    private final HoldQueueRepository queueRepo;
+    private final BookRepository bookRepo;
+    private final SubscriptionRepository subscriptionRepo;
+    private final CatalogPageCache pageCache;
+    private final MeterRegistry meterRegistry;
+
+    public HoldService(HoldRepository repo, HoldQueueRepository queueRepo, BookRepository bookRepo,
+                       SubscriptionRepository subscriptionRepo, CatalogPageCache pageCache,
+                       MeterRegistry meterRegistry) {
+        this.repo = repo;
+        this.queueRepo = queueRepo;
+        this.bookRepo = bookRepo;
+        this.subscriptionRepo = subscriptionRepo;
+        this.pageCache = pageCache;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Puts the user in the hold queue of the book. A user already in the queue keeps their place.
+     * If a copy was freed before the queue was locked, it is allocated right away,
+     * so a hold is never left waiting next to an available copy.
+     * A new hold keeps the order key, so a repeated order finds it with {@link #findQueued}.
+     *
+     * @param user      the user placing the hold
+     * @param book      the unavailable book
+     * @param orderKey  the idempotency key of the order, or null
+     * @return the position in the queue, or the subscription if a copy was allocated to the user
+     */
+    @Transactional
+    public OrderResult enqueue(User user, Book book, String orderKey) {
+        log.info("Putting user: {} in the hold queue of the book: {}", user.getEmail(), book.getId());
+
+        queueRepo.createIfAbsent(book.getId());
+        HoldQueue queue = queueRepo.lockByBookId(book.getId()).orElseThrow();
+
+        Optional<Hold> existing = repo.findByUserIdAndBookId(user.getId(), book.getId());
+        if (existing.isPresent()) {
+            log.info("User: {} already holds the book: {}", user.getEmail(), book.getId());
+            return OrderResult.queued(queue.positionOf(existing.get().getTicket()));
+        }
+
+        Hold hold = new Hold(user, book, queue.issueTicket());
+        hold.setOrderKey(orderKey);
+        repo.save(hold);
+        meterRegistry.counter("library.holds.enqueued").increment();
+
+        Optional<Subscription> allocated;
+        while ((allocated = allocate(queue)).isPresent()) {
+            if (allocated.get().getUser().getId().equals(user.getId())) {
+                return OrderResult.ordered(allocated.get());
+            }
+        }
+
+        int position = queue.positionOf(hold.getTicket());
+        log.info("User: {} is number {} in the hold queue of the book: {}", user.getEmail(), position, book.getId());
+        return OrderResult.queued(position);
+    }
+
+    /**
+     * Allocates a freed copy of the book to the first hold in its queue.
+     * The copy is taken, the subscription created and the hold removed in one transaction.
+     *
+     * @param bookId the ID of the book
+     * @return the subscription of the first hold, or empty if nobody waits or no copy is available
+     */
+    @Transactional
+    public Optional<Subscription> allocate(Integer bookId) {
+        return queueRepo.lockByBookId(bookId).flatMap(this::allocate);
+    }
+
+    /**
+     * Allocates freed copies of several books, each copy to the next hold of its book.
+     * Only the queues of books with waiting holds are locked.
+     *
+     * @param copies the number of freed copies by book ID
+     * @return the number of allocated copies
+     */
+    @Transactional
+    public int allocateCopies(Map<Integer, Integer> copies) {
+        if (copies.isEmpty()) {
+            return 0;
+        }
+
+        List<Integer> waiting = queueRepo.findWaiting(copies.keySet());
+        int allocated = 0;
+
+        for (Integer bookId : waiting) {
+            for (int i = 0; i < copies.get(bookId) && allocate(bookId).isPresent(); i++) {
+                allocated++;
+            }
+        }
+
+        return allocated;
+    }
+
+    // Serves the head of the locked queue if a copy can be taken
+    private Optional<Subscription> allocate(HoldQueue queue) {
+        Integer bookId = queue.getBookId();
+
+        while (!queue.isEmpty()) {
+            Optional<Hold> head = repo.findByBookIdAndTicket(bookId, queue.getHead());
+
+            if (head.isEmpty()) {
+                log.warn("Skipping missing hold {} of the book: {}", queue.getHead(), bookId);
+                queue.advance();
+                continue;
+            }
+
+            if (bookRepo.reserveCopy(bookId) == 0) {
+                return Optional.empty();
+            }
+
+            Hold hold = head.get();
+            Subscription subscription = new Subscription(hold.getUser(), hold.getBook());
+            subscription.setOrderKey(hold.getOrderKey());
+            subscriptionRepo.save(subscription);
+            repo.delete(hold);
+            queue.advance();
+            pageCache.invalidate();
+            meterRegistry.counter("library.holds.allocated").increment();
+
+            log.info("Copy of the book: {} allocated to user: {}", bookId, hold.getUser().getEmail());
+            return Optional.of(subscription);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Finds the hold placed by the order with the key, so a repeated order gets the same place in the queue.
+     * Once the hold is served, the key is found on its subscription instead.
+     *
+     * @param user      the user who placed the order
+     * @param orderKey  the idempotency key of the order
+     * @return the position in the queue, or empty if no waiting hold was placed with the key
+     */
+    public Optional<OrderResult> findQueued(User user, String orderKey) {
+        return repo.findByUserIdAndOrderKey(user.getId(), orderKey)
+                .flatMap(hold -> queueRepo.findById(hold.getBook().getId())
+                        .map(queue -> OrderResult.queued(queue.positionOf(hold.getTicket()))));
+    }
+
+    /**
+     * Finds the holds of the user with their positions in the queues.
+     *
+     * @param email the email of the user
+     * @return the holds, oldest first
+     */
+    public List<HoldView> findViewsByUserEmail(String email) {
+        log.info("Finding holds by user email: {}", email);
+        return repo.findViewsByUserEmail(email);
+    }
+}
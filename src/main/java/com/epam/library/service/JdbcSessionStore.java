@@ -0,0 +1,123 @@
+package com.epam.library.service;
+
+import com.epam.library.config.JobLock;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Session store keeping the sessions in the sessions table, used when library.sessions.store=jdbc.
+ * A session is one row read by its primary key, its attributes are one column encoded by
+ * {@link SessionAttributeCodec}. Expired sessions are not loaded, and are deleted in batches
+ * by a scheduled job running on one node.
+ */
+@Service
+@ConditionalOnProperty(name = "library.sessions.store", havingValue = "jdbc")
+public class JdbcSessionStore implements SessionStore {
+
+    private static final Logger log = LogManager.getLogger(JdbcSessionStore.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int cleanupBatchSize;
+
+    public JdbcSessionStore(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                            @Value("${library.sessions.cleanup-batch-size:1000}") int cleanupBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.cleanupBatchSize = cleanupBatchSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * A session which cannot be decoded, such as one holding an attribute of a class changed by an upgrade,
+     * is deleted and not loaded, so the request gets a new session.
+     */
+    @Override
+    public StoredSession load(String id, long now) {
+        List<StoredSession> sessions;
+
+        try {
+            sessions = jdbcTemplate.query("select id, created_at, last_accessed_at, " +
+                            "max_inactive_seconds, attributes from sessions where id = ? and expires_at > ?",
+                    (rs, rowNum) -> new StoredSession(rs.getString("id"), rs.getLong("created_at"),
+                            rs.getLong("last_accessed_at"), rs.getInt("max_inactive_seconds"),
+                            SessionAttributeCodec.decode(rs.getBytes("attributes"))),
+                    id, now);
+        } catch (UncheckedIOException | IllegalArgumentException e) {
+            log.warn("Session cannot be decoded, deleting it", e);
+            meterRegistry.counter("library.sessions.undecodable").increment();
+            delete(id);
+            return null;
+        }
+
+        return sessions.isEmpty() ? null : sessions.get(0);
+    }
+
+    @Override
+    @Transactional
+    public void save(StoredSession session, String previousId) {
+        if (previousId != null) {
+            delete(previousId);
+        }
+
+        byte[] attributes = SessionAttributeCodec.encode(session.getAttributes());
+
+        // Session IDs are random, so a new session is never inserted concurrently
+        int updated = jdbcTemplate.update("update sessions set last_accessed_at = ?, max_inactive_seconds = ?, " +
+                        "expires_at = ?, attributes = ? where id = ?",
+                session.getLastAccessedTime(), session.getMaxInactiveInterval(), session.getExpiresAt(),
+                attributes, session.getId());
+        if (updated == 0) {
+            jdbcTemplate.update("insert into sessions (id, created_at, last_accessed_at, max_inactive_seconds, " +
+                            "expires_at, attributes) values (?, ?, ?, ?, ?, ?)",
+                    session.getId(), session.getCreationTime(), session.getLastAccessedTime(),
+                    session.getMaxInactiveInterval(), session.getExpiresAt(), attributes);
+        }
+        meterRegistry.counter("library.sessions.writes", "type", "save").increment();
+    }
+
+    @Override
+    public void touch(StoredSession session) {
+        jdbcTemplate.update("update sessions set last_accessed_at = ?, expires_at = ? where id = ?",
+                session.getLastAccessedTime(), session.getExpiresAt(), session.getId());
+        meterRegistry.counter("library.sessions.writes", "type", "touch").increment();
+    }
+
+    @Override
+    public void delete(String id) {
+        jdbcTemplate.update("delete from sessions where id = ?", id);
+    }
+
+    /**
+     * Deletes the expired sessions, in batches committed one by one, so the table is never locked for long.
+     * Runs every five minutes by default, on the node holding the lease of the job.
+     *
+     * @return the number of deleted sessions
+     */
+    @Scheduled(cron = "${library.sessions.cleanup-cron:0 */5 * * * *}")
+    @JobLock("sessions")
+    public int deleteExpired() {
+        long now = System.currentTimeMillis();
+        int total = 0;
+        int deleted;
+
+        do {
+            deleted = jdbcTemplate.update("delete from sessions where expires_at <= ? limit ?", now, cleanupBatchSize);
+            total += deleted;
+        } while (deleted == cleanupBatchSize);
+
+        meterRegistry.counter("library.sessions.expired").increment(total);
+        log.info("Expired sessions deleted: {}", total);
+        return total;
+    }
+}
@@ -0,0 +1,89 @@
+package com.epam.library.service;
+
+import com.epam.library.repository.JobLeaseRepository;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Service class for the leases of the scheduled jobs, which keep a job from running on several nodes at once.
+ * Each application instance is a distinct owner. A lease is taken only after it expired,
+ * so a node which crashed while running a job blocks it at most until its last lease ends.
+ * Lease times come from the clocks of the nodes, leases are much longer than the usual clock skew.
+ */
+@Service
+public class JobLeaseService {
+
+    private static final Logger log = LogManager.getLogger(JobLeaseService.class);
+
+    private final JobLeaseRepository repo;
+    private final String owner;
+
+    public JobLeaseService(JobLeaseRepository repo, @Value("${library.job-lock.owner:}") String owner) {
+        this.repo = repo;
+        this.owner = owner.isBlank() ? hostName() + "-" + UUID.randomUUID() : owner;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Takes the lease of the job if no other node holds it.
+     *
+     * @param name  the name of the job
+     * @param lease how long the lease is held unless extended
+     * @return true if the lease is taken, false if it is held by another node
+     */
+    @Transactional
+    public boolean acquire(String name, Duration lease) {
+        repo.createIfAbsent(name, Instant.EPOCH);
+
+        Instant now = Instant.now();
+        boolean acquired = repo.acquire(name, owner, now, now.plus(lease)) == 1;
+        log.info("Lease of job: {} {} by {}", name, acquired ? "taken" : "held by another node, not taken", owner);
+        return acquired;
+    }
+
+    /**
+     * Extends the lease of the job held by this node.
+     *
+     * @param name  the name of the job
+     * @param lease how long the lease is held from now
+     * @return true if the lease is extended, false if another node took it over
+     */
+    @Transactional
+    public boolean extend(String name, Duration lease) {
+        Instant now = Instant.now();
+        return repo.extend(name, owner, now, now.plus(lease)) == 1;
+    }
+
+    /**
+     * Gives up the lease of the job held by this node.
+     *
+     * @param name  the name of the job
+     * @param until the time the lease ends, now to let other nodes run the job right away
+     */
+    @Transactional
+    public void release(String name, Instant until) {
+        Instant now = Instant.now();
+        repo.extend(name, owner, now, until.isAfter(now) ? until : now);
+        log.info("Lease of job: {} released by {} until {}", name, owner, until);
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.epam.library.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Token bucket rate limiter of the login and registration attempts, by client IP and by account email.
+ * A bucket holds up to its capacity of attempts and is refilled at the given rate per minute.
+ * Each bucket is a single long updated with compare-and-set, so attempts are limited without locking.
+ * Buckets are kept in fixed-size tables, which bound the memory whatever the number of clients:
+ * keys are hashed to a slot with a keyed hash, and keys falling into the same slot share its bucket.
+ * The hash key is random per instance, so the clients cannot choose keys sharing the bucket of a given account.
+ * The accounts of a table share about accounts / table size buckets each, the account table is sized
+ * for the users so most accounts have their own bucket.
+ * A bucket which is not used refills and is then the same as a new one, so idle keys need no eviction.
+ */
+@Component
+public class LoginRateLimiter {
+
+    public enum Scope {
+        IP,
+        ACCOUNT
+    }
+
+    private final Buckets ipBuckets;
+    private final Buckets accountBuckets;
+
+    public LoginRateLimiter(@Value("${library.login-limit.ip.capacity:50}") int ipCapacity,
+                            @Value("${library.login-limit.ip.per-minute:30}") int ipPerMinute,
+                            @Value("${library.login-limit.account.capacity:10}") int accountCapacity,
+                            @Value("${library.login-limit.account.per-minute:5}") int accountPerMinute,
+                            @Value("${library.login-limit.ip.table-size:65536}") int ipTableSize,
+                            @Value("${library.login-limit.account.table-size:1048576}") int accountTableSize) {
+        this.ipBuckets = new Buckets(ipCapacity, ipPerMinute, ipTableSize);
+        this.accountBuckets = new Buckets(accountCapacity, accountPerMinute, accountTableSize);
+    }
+
+    /**
+     * Takes one attempt from the bucket of the key.
+     *
+     * @param scope whether the key is a client IP or an account email
+     * @param key   the client IP or the email, emails are compared case-insensitively
+     * @return zero if the attempt is allowed, otherwise the time until the next attempt is allowed
+     */
+    public Duration tryAcquire(Scope scope, String key) {
+        return scope == Scope.IP ? ipBuckets.tryAcquire(key) : accountBuckets.tryAcquire(key.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Checks the bucket of the key without taking an attempt from it.
+     *
+     * @param scope whether the key is a client IP or an account email
+     * @param key   the client IP or the email, emails are compared case-insensitively
+     * @return zero if an attempt would be allowed, otherwise the time until the next attempt is allowed
+     */
+    public Duration waitTime(Scope scope, String key) {
+        return scope == Scope.IP ? ipBuckets.waitTime(key) : accountBuckets.waitTime(key.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Table of token buckets in the generic cell rate algorithm form: instead of the number of tokens,
+     * a bucket stores the time it will be full again, so one long holds the whole state.
+     * An attempt is allowed if the bucket gets full again within the burst tolerance, and moves that time
+     * by the interval of one token.
+     */
+    private static final class Buckets {
+
+        private static final String HASH = "HmacSHA256";
+
+        private final long interval;
+        private final long tolerance;
+        private final int mask;
+        private final SecretKeySpec hashKey = new SecretKeySpec(randomBytes(), HASH);
+        // Macs are not thread-safe, each thread hashes with its own
+        private final ThreadLocal<Mac> macs = ThreadLocal.withInitial(this::newMac);
+        private final long origin = System.nanoTime();
+        private final AtomicLongArray fullAt;
+
+        Buckets(int capacity, int perMinute, int tableSize) {
+            if (capacity < 1 || perMinute < 1 || tableSize < 1 || Integer.bitCount(tableSize) != 1) {
+                throw new IllegalArgumentException("Invalid login limit: capacity " + capacity + ", per minute "
+                        + perMinute + ", table size " + tableSize + " (must be a power of two)");
+            }
+            this.interval = Duration.ofMinutes(1).toNanos() / perMinute;
+            this.tolerance = interval * (capacity - 1);
+            this.mask = tableSize - 1;
+            this.fullAt = new AtomicLongArray(tableSize);
+        }
+
+        Duration tryAcquire(String key) {
+            int slot = slot(key);
+            long now = System.nanoTime() - origin;
+
+            while (true) {
+                long current = fullAt.get(slot);
+                long wait = current - tolerance - now;
+
+                if (wait > 0) {
+                    return Duration.ofNanos(wait);
+                }
+                if (fullAt.compareAndSet(slot, current, Math.max(current, now) + interval)) {
+                    return Duration.ZERO;
+                }
+            }
+        }
+
+        Duration waitTime(String key) {
+            long wait = fullAt.get(slot(key)) - tolerance - (System.nanoTime() - origin);
+            return wait > 0 ? Duration.ofNanos(wait) : Duration.ZERO;
+        }
+
+        // The first bytes of the keyed hash of the key, which cannot be predicted without the hash key
+        private int slot(String key) {
+            byte[] hash = macs.get().doFinal(key.getBytes(StandardCharsets.UTF_8));
+            return ((hash[0] & 0xff) << 24 | (hash[1] & 0xff) << 16 | (hash[2] & 0xff) << 8 | hash[3] & 0xff) & mask;
+        }
+
+        private Mac newMac() {
+            try {
+                Mac mac = Mac.getInstance(HASH);
+                mac.init(hashKey);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(HASH + " is not available", e);
+            }
+        }
+
+        private static byte[] randomBytes() {
+            byte[] bytes = new byte[32];
+            new SecureRandom().nextBytes(bytes);
+            return bytes;
+        }
+    }
+}
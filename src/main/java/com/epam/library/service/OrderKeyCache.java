@@ -0,0 +1,122 @@
+package com.epam.library.service;
+
+import com.epam.library.dto.OrderResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of recent order idempotency keys and the outcomes of their orders.
+ * The first order with a key is placed, repeats with the same key get the outcome of the first one
+ * without ordering again, and repeats arriving while the first order runs wait for it.
+ * Keys are evicted in insertion order, when they are older than the TTL or the cache is full.
+ * Failed orders are not kept, so they can be repeated. Repeats wait for a running order up to a time limit,
+ * so a stuck order does not hold the request threads of its repeats.
+ */
+@Component
+public class OrderKeyCache {
+
+    private static final Logger log = LogManager.getLogger(OrderKeyCache.class);
+
+    /**
+     * Identifies an order: keys are generated by clients, so they are scoped to the user.
+     */
+    public record Key(String username, String orderKey) {}
+
+    private record Entry(Key key, CompletableFuture<OrderResult> result, long createdAt) {}
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long waitNanos;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    // Entries in insertion order, which is also the order of their expiry
+    private final Queue<Entry> order = new ConcurrentLinkedQueue<>();
+
+    public OrderKeyCache(@Value("${library.order-keys.max-size:10000}") int maxSize,
+                         @Value("${library.order-keys.ttl:10m}") Duration ttl,
+                         @Value("${library.order-keys.wait:30s}") Duration wait,
+                         MeterRegistry meterRegistry) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.waitNanos = wait.toNanos();
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Places the order unless an order with the same key was placed recently.
+     *
+     * @param key    the user and the idempotency key
+     * @param placer places the order
+     * @return the outcome of the first order with the key, or throws its exception,
+     * or TimeoutException if the first order is still running after the wait time
+     */
+    public OrderResult execute(Key key, Callable<OrderResult> placer) throws Exception {
+        long now = System.nanoTime();
+        Entry entry = new Entry(key, new CompletableFuture<>(), now);
+        Entry existing = entries.putIfAbsent(key, entry);
+
+        while (existing != null && isExpired(existing, now)) {
+            entries.remove(key, existing);
+            existing = entries.putIfAbsent(key, entry);
+        }
+
+        if (existing != null) {
+            log.info("Repeated order key: {} of user: {}", key.orderKey(), key.username());
+            meterRegistry.counter("library.orders.repeated").increment();
+            return await(existing.result());
+        }
+
+        order.add(entry);
+        evict(now);
+
+        try {
+            OrderResult result = placer.call();
+            entry.result().complete(result);
+            return result;
+        } catch (Throwable e) {
+            // Errors complete the entry too, or the repeats would wait for it until they time out
+            entries.remove(key, entry);
+            order.remove(entry);
+            entry.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    // Removes expired entries and the oldest ones above the maximum size
+    private void evict(long now) {
+        Entry eldest;
+        while ((eldest = order.peek()) != null && (isExpired(eldest, now) || entries.size() > maxSize)) {
+            if (order.remove(eldest)) {
+                entries.remove(eldest.key(), eldest);
+            }
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.createdAt() > ttlNanos;
+    }
+
+    private OrderResult await(CompletableFuture<OrderResult> result) throws Exception {
+        try {
+            return result.get(waitNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+}
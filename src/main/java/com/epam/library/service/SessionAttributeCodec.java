@@ -0,0 +1,173 @@
+package com.epam.library.service;
+
+import com.epam.library.dto.UserPrincipal;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Encodes the attributes of a session to bytes for a {@link SessionStore}.
+ * The attributes present in every session are written compactly: the security context of a logged-in user
+ * as the user ID, email, lock and roles, which is a tenth of its Java serialization, the locale as
+ * its language tag, and strings as they are. Other attributes are written with Java serialization,
+ * attributes which are not serializable are skipped.
+ */
+public final class SessionAttributeCodec {
+
+    private static final Logger log = LogManager.getLogger(SessionAttributeCodec.class);
+
+    private static final byte VERSION = 1;
+    private static final byte SERIALIZED = 0;
+    private static final byte SECURITY_CONTEXT = 1;
+    private static final byte LOCALE = 2;
+    private static final byte STRING = 3;
+    // Strings are written with writeUTF, which takes up to 65535 bytes
+    private static final int MAX_STRING_LENGTH = 16 * 1024;
+
+    private SessionAttributeCodec() {}
+
+    /**
+     * Encodes the attributes of a session.
+     *
+     * @param attributes the attributes by name
+     * @return the encoded attributes
+     */
+    public static byte[] encode(Map<String, Object> attributes) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            Map<String, Object> encodable = new HashMap<>();
+            attributes.forEach((name, value) -> {
+                if (value instanceof Serializable) {
+                    encodable.put(name, value);
+                } else {
+                    log.warn("Session attribute {} of {} is not serializable, not stored", name, value.getClass());
+                }
+            });
+
+            out.writeByte(VERSION);
+            out.writeInt(encodable.size());
+            for (Map.Entry<String, Object> attribute : encodable.entrySet()) {
+                out.writeUTF(attribute.getKey());
+                write(out, attribute.getValue());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes the attributes of a session.
+     *
+     * @param encoded the attributes encoded by {@link #encode(Map)}
+     * @return the attributes by name
+     * @throws IllegalArgumentException if the attributes were encoded by an unknown version
+     */
+    public static Map<String, Object> decode(byte[] encoded) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown session encoding version: " + version);
+            }
+
+            int size = in.readInt();
+            Map<String, Object> attributes = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                attributes.put(in.readUTF(), read(in));
+            }
+            return attributes;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void write(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof SecurityContext context
+                && context.getAuthentication() instanceof UsernamePasswordAuthenticationToken authentication
+                && authentication.isAuthenticated()
+                && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            out.writeByte(SECURITY_CONTEXT);
+            out.writeInt(principal.getId());
+            out.writeUTF(principal.getUsername());
+            out.writeBoolean(principal.isAccountNonLocked());
+            out.writeByte(principal.getAuthorities().size());
+            for (GrantedAuthority authority : principal.getAuthorities()) {
+                out.writeUTF(authority.getAuthority());
+            }
+        } else if (value instanceof Locale locale) {
+            out.writeByte(LOCALE);
+            out.writeUTF(locale.toLanguageTag());
+        } else if (value instanceof String string && string.length() <= MAX_STRING_LENGTH) {
+            out.writeByte(STRING);
+            out.writeUTF(string);
+        } else {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+                objects.writeObject(value);
+            }
+            out.writeByte(SERIALIZED);
+            out.writeInt(bytes.size());
+            bytes.writeTo(out);
+        }
+    }
+
+    private static Object read(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+
+        switch (type) {
+            case SECURITY_CONTEXT -> {
+                int id = in.readInt();
+                String email = in.readUTF();
+                boolean nonLocked = in.readBoolean();
+                int count = in.readByte();
+                List<GrantedAuthority> authorities = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    authorities.add(new SimpleGrantedAuthority(in.readUTF()));
+                }
+
+                // The password is erased after the login, so it is not stored
+                UserPrincipal principal = new UserPrincipal(id, email, "", !nonLocked, authorities);
+                return new SecurityContextImpl(
+                        UsernamePasswordAuthenticationToken.authenticated(principal, null, authorities));
+            }
+            case LOCALE -> {
+                return Locale.forLanguageTag(in.readUTF());
+            }
+            case STRING -> {
+                return in.readUTF();
+            }
+            case SERIALIZED -> {
+                byte[] bytes = in.readNBytes(in.readInt());
+                try (ObjectInputStream objects = new ConfigurableObjectInputStream(new ByteArrayInputStream(bytes),
+                        SessionAttributeCodec.class.getClassLoader())) {
+                    return objects.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Session attribute of an unknown class", e);
+                }
+            }
+            default -> throw new IOException("Unknown session attribute type: " + type);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.epam.library.service;
+
+/**
+ * Storage of the HTTP sessions outside the servlet container, so any node can serve any request of a session.
+ * The sessions are read and written by the {@link com.epam.library.config.StoredSessionFilter}.
+ */
+public interface SessionStore {
+
+    /**
+     * Loads the session unless it expired.
+     *
+     * @param id  the session ID
+     * @param now the current time in epoch milliseconds
+     * @return the session, or null if there is no such unexpired session
+     */
+    StoredSession load(String id, long now);
+
+    /**
+     * Saves the session with its attributes, replacing the stored one.
+     *
+     * @param session    the session
+     * @param previousId the ID the session was stored with before its ID was changed, or null
+     */
+    void save(StoredSession session, String previousId);
+
+    /**
+     * Stores the last access time of the session, without its attributes.
+     *
+     * @param session the session
+     */
+    void touch(StoredSession session);
+
+    /**
+     * Deletes the session.
+     *
+     * @param id the session ID
+     */
+    void delete(String id);
+}
@@ -0,0 +1,67 @@
+package com.epam.library.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * State of an HTTP session kept in a {@link SessionStore}.
+ * Times are epoch milliseconds, a session without a positive maximum inactive interval never expires.
+ */
+public class StoredSession {
+
+    private String id;
+    private final long creationTime;
+    private long lastAccessedTime;
+    private int maxInactiveInterval;
+    private final Map<String, Object> attributes;
+
+    public StoredSession(String id, long creationTime, long lastAccessedTime, int maxInactiveInterval,
+                         Map<String, Object> attributes) {
+        this.id = id;
+        this.creationTime = creationTime;
+        this.lastAccessedTime = lastAccessedTime;
+        this.maxInactiveInterval = maxInactiveInterval;
+        this.attributes = new ConcurrentHashMap<>(attributes);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getCreationTime() {
+        return creationTime;
+    }
+
+    public long getLastAccessedTime() {
+        return lastAccessedTime;
+    }
+
+    public void setLastAccessedTime(long lastAccessedTime) {
+        this.lastAccessedTime = lastAccessedTime;
+    }
+
+    /**
+     * Returns the maximum time between two requests before the session expires.
+     *
+     * @return the interval in seconds
+     */
+    public int getMaxInactiveInterval() {
+        return maxInactiveInterval;
+    }
+
+    public void setMaxInactiveInterval(int maxInactiveInterval) {
+        this.maxInactiveInterval = maxInactiveInterval;
+    }
+
+    public Map<String, Object> getAttributes() {
+        return attributes;
+    }
+
+    public long getExpiresAt() {
+        return maxInactiveInterval > 0 ? lastAccessedTime + maxInactiveInterval * 1000L : Long.MAX_VALUE;
+    }
+}
@@ -1,18 +1,35 @@
 package com.epam.library.service;
 
+import com.epam.library.config.JobLock;
+import com.epam.library.config.RetryOnConflict;
+import com.epam.library.dto.OrderResult;
+import com.epam.library.dto.SubscriptionView;
 import com.epam.library.entity.Book;
 import com.epam.library.entity.Subscription;
 import com.epam.library.entity.User;
 import com.epam.library.repository.SubscriptionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * Service class for managing subscriptions.
@@ -20,17 +37,39 @@ import java.util.List;
 @Service
 public class SubscriptionService {
 
+    /**
+     * Result of the approval of one subscription in a batch.
+     */
+    public enum ApprovalResult {
+        APPROVED,
+        // Already approved or returned
+        NOT_PENDING,
+        NOT_FOUND
+    }
+
     private static final Logger log = LogManager.getLogger(SubscriptionService.class);
     private final SubscriptionRepository repo;
     private final UserService userService;
     private final BookService bookService;
-    private static final int dayFine = 10;
+    private final HoldService holdService;
+    private final FineService fineService;
+    private final MeterRegistry meterRegistry;
+    static final int dayFine = 10;
+    static final int period = 60;
+    private final int pageSize = 20;
+    // Unique indexes of the order keys of subscriptions and holds
+    private static final List<String> orderKeyIndexes =
+            List.of("subscriptions_user_id_order_key_idx", "holds_user_id_order_key_idx");
 
     public SubscriptionService(SubscriptionRepository repo, UserService userService,
-                               BookService bookService) {
+                               BookService bookService, HoldService holdService, FineService fineService,
+                               MeterRegistry meterRegistry) {
         this.repo = repo;
         this.userService = userService;
         this.bookService = bookService;
+        this.holdService = holdService;
+        this.fineService = fineService;
+        this.meterRegistry = meterRegistry;
     }
 
     /**
@@ -75,45 +114,130 @@ public class SubscriptionService {
         return (List<Subscription>) repo.findAll();
     }
 
+    /**
+     * Retrieves a page of subscriptions for the librarian, pending subscriptions first.
+     * Books and users are joined in the same query, so a page is loaded with one SQL statement.
+     * The fines are the current ones, see {@link FineService}.
+     *
+     * @param email   The prefix of the user email to filter by, or empty for all users.
+     * @param title   The prefix of the book title to filter by, or empty for all books.
+     * @param pageNo  The page number.
+     * @return The page of subscriptions, or throws exception if the page number is invalid.
+     */
+    public Slice<SubscriptionView> findViews(String email, String title, int pageNo) {
+        log.info("Finding subscriptions. Email: {}, Title: {}, Page: {}", email, title, pageNo);
+
+        if (pageNo < 1) {
+            log.warn("Invalid page number: {}", pageNo);
+            throw new IllegalArgumentException("Invalid page number: " + pageNo);
+        }
+
+        Slice<SubscriptionView> page = repo.findViews(escapeLike(email), escapeLike(title),
+                PageRequest.of(pageNo - 1, pageSize));
+        return fineService.isLazy() ? page.map(fineService::withCurrentFine) : page;
+    }
+
     /**
      * Places an order for a book by a user.
+     * If no copy is available, the user is put in the hold queue of the book instead
+     * and gets a subscription once a copy is freed.
+     *
+     * If the order has a key and the user already has a subscription or a hold placed with that key,
+     * the subscription or the position in the queue is returned without ordering again.
      *
      * @param userDetails The details of the authenticated user.
      * @param id           The ID of the book to order.
-     * @return The created subscription if the order is successful, or throws exception otherwise.
+     * @param orderKey     The idempotency key of the order, or null.
+     * @return The created subscription or the position in the hold queue, or throws exception otherwise.
      */
+    @RetryOnConflict
     @Transactional
-    public Subscription orderBook(UserDetails userDetails, Integer id) throws Exception {
+    public OrderResult orderBook(UserDetails userDetails, Integer id, String orderKey) throws Exception {
         log.info("Order book id: {} for user: {}", id, userDetails.getUsername());
 
-        User user;
-        Book book;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
 
         try {
-            user = userService.findByEmail(userDetails.getUsername());
-            book = bookService.findById(id);
-        } catch (Exception e) {
-            log.error("Failed to place order for user: {} and book: {}. No such book.",
-                    userDetails.getUsername(), id);
-            throw e;
-        }
+            User user;
 
-        if (book.getAvailableCopies() < 0) {
-            log.error("Failed to place order for user: {} and book: {}. No available copies.",
+            try {
+                user = userService.findByEmail(userDetails.getUsername());
+            } catch (Exception e) {
+                log.error("Failed to place order for user: {} and book: {}. No such user.",
                         userDetails.getUsername(), id);
-            throw new Exception("Failed to place order for user: " + userDetails.getUsername() +
-                        " and book: " + id + ". No available copies.");
-        }
+                outcome = "not_found";
+                throw e;
+            }
+
+            if (orderKey != null) {
+                Optional<Subscription> ordered = repo.findByUserIdAndOrderKey(user.getId(), orderKey);
+                if (ordered.isPresent()) {
+                    log.info("Order with key: {} already placed for user: {}", orderKey, userDetails.getUsername());
+                    outcome = "repeated";
+                    return OrderResult.ordered(ordered.get());
+                }
 
-        book.setAvailableCopies(book.getAvailableCopies() - 1);
+                Optional<OrderResult> queued = holdService.findQueued(user, orderKey);
+                if (queued.isPresent()) {
+                    log.info("Order with key: {} already queued for user: {}", orderKey, userDetails.getUsername());
+                    outcome = "repeated";
+                    return queued.get();
+                }
+            }
 
-        Subscription subscription = new Subscription(user, book);
+            // The decrement itself decides whether a copy is available, reading the count first would race
+            if (!bookService.reserveCopy(id)) {
+                Book book;
 
-        save(subscription);
-        bookService.save(book);
+                try {
+                    book = bookService.findById(id); // Should throw exception if the book doesn't exist
+                } catch (Exception e) {
+                    log.error("Failed to place order for user: {} and book: {}. No such book.",
+                            userDetails.getUsername(), id);
+                    outcome = "not_found";
+                    throw e;
+                }
 
-        log.info("Order placed successfully for user: {} and book: {}", user.getName(), book.getTitle());
-        return subscription;
+                log.info("No available copies of the book: {}, putting user: {} in the hold queue",
+                        id, userDetails.getUsername());
+                OrderResult result = holdService.enqueue(user, book, orderKey);
+                outcome = result.isQueued() ? "queued" : "success";
+                return result;
+            }
+
+            // Loaded after the reservation, so it already has the decremented number of copies
+            Book book = bookService.findById(id);
+
+            Subscription subscription = new Subscription(user, book);
+            subscription.setOrderKey(orderKey);
+            save(subscription);
+
+            log.info("Order placed successfully for user: {} and book: {}", user.getName(), book.getTitle());
+            outcome = "success";
+            return OrderResult.ordered(subscription);
+        } finally {
+            sample.stop(meterRegistry.timer("library.subscriptions.order", "outcome", outcome));
+        }
+    }
+
+    /**
+     * Checks if the violation is on the unique order key of a subscription or a hold,
+     * which means the order with the same key was placed at the same time on another node.
+     *
+     * @param e the violation
+     * @return true if the violated constraint is an order key index
+     */
+    public static boolean isOrderKeyConflict(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String constraint = cause instanceof ConstraintViolationException violation ? violation.getConstraintName()
+                    : cause instanceof SQLException ? cause.getMessage() : null;
+            if (constraint != null && orderKeyIndexes.stream()
+                    .anyMatch(index -> constraint.toLowerCase(Locale.ROOT).contains(index))) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -122,46 +246,200 @@ public class SubscriptionService {
      * @param id The ID of the subscription to approve.
      * @return The approved subscription if successful, or throws exception otherwise.
      */
+    @RetryOnConflict
     @Transactional
     public Subscription approveSubscription(Integer id) throws Exception {
         log.info("Approve subscription with id: {}", id);
 
-        Subscription subscription;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
 
         try {
-            subscription = findById(id);
-        } catch (Exception e) {
-            log.error("Failed to approve subscription with id:  {}", id);
-            throw new Exception("Failed to approve subscription with id: " + id);
+            Subscription subscription;
+
+            try {
+                subscription = findById(id);
+            } catch (Exception e) {
+                log.error("Failed to approve subscription with id:  {}", id);
+                throw new Exception("Failed to approve subscription with id: " + id);
+            }
+
+            if(subscription.isApproved() || subscription.isReturned()) {
+                log.warn("Failed to approve subscription with id:  {}", id);
+                throw new Exception("Failed to approve subscription with id: " + id);
+            }
+
+            LocalDate today = LocalDate.now();
+            subscription.setApproved(true);
+            subscription.setStartDate(today);
+            subscription.setPeriod(period);
+            subscription.setDueDate(today.plusDays(period));
+            subscription.setFine(0);
+            save(subscription);
+
+            log.info("Subscription with id: {} successfully approved", id);
+            outcome = "success";
+            return subscription;
+        } finally {
+            sample.stop(meterRegistry.timer("library.subscriptions.approve", "outcome", outcome));
+        }
+    }
+
+    /**
+     * Approves several subscriptions with one bulk update.
+     * The pending subscriptions are locked first, so each of them is approved exactly once
+     * even with concurrent approvals.
+     *
+     * @param ids The IDs of the subscriptions to approve.
+     * @return The result for each ID, in the order of the IDs.
+     */
+    @Transactional
+    public Map<Integer, ApprovalResult> approveSubscriptions(Collection<Integer> ids) {
+        log.info("Approve subscriptions with ids: {}", ids);
+
+        Map<Integer, ApprovalResult> results = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return results;
         }
 
-        if(subscription.isApproved()) {
-            log.warn("Failed to approve subscription with id:  {}", id);
-            throw new Exception("Failed to approve subscription with id: " + id);
+        ids.forEach(id -> results.put(id, ApprovalResult.NOT_FOUND));
+        repo.findIds(ids).forEach(id -> results.put(id, ApprovalResult.NOT_PENDING));
+
+        List<Integer> pending = repo.lockPending(ids);
+        approve(pending);
+        pending.forEach(id -> results.put(id, ApprovalResult.APPROVED));
+
+        return results;
+    }
+
+    /**
+     * Approves all pending subscriptions of a user with one bulk update.
+     *
+     * @param email The email of the user.
+     * @return The result for each approved subscription.
+     */
+    @Transactional
+    public Map<Integer, ApprovalResult> approvePendingOf(String email) {
+        log.info("Approve pending subscriptions of user: {}", email);
+
+        List<Integer> pending = repo.lockPendingByUserEmail(email);
+        approve(pending);
+
+        Map<Integer, ApprovalResult> results = new LinkedHashMap<>();
+        pending.forEach(id -> results.put(id, ApprovalResult.APPROVED));
+        return results;
+    }
+
+    private void approve(List<Integer> ids) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        LocalDate today = LocalDate.now();
+        int approved = ids.isEmpty() ? 0 : repo.approve(ids, today, period, today.plusDays(period));
+
+        sample.stop(meterRegistry.timer("library.subscriptions.approve.batch"));
+        meterRegistry.counter("library.subscriptions.approved").increment(approved);
+        log.info("{} subscriptions approved", approved);
+    }
+
+    /**
+     * Returns the book of a subscription.
+     *
+     * @param id The ID of the subscription to close.
+     * @return The returned subscription, or throws exception if it is not found or already returned.
+     */
+    @RetryOnConflict
+    @Transactional
+    public Subscription returnBook(Integer id) throws Exception {
+        List<Subscription> returned = closeSubscriptions(List.of(id));
+
+        if (returned.isEmpty()) {
+            log.warn("Failed to return subscription with id: {}", id);
+            throw new Exception("Failed to return subscription with id: " + id);
         }
 
-        subscription.setApproved(true);
-        subscription.setStartDate(LocalDate.now());
-        subscription.setPeriod(60);
-        subscription.setFine(0);
-        save(subscription);
+        return returned.get(0);
+    }
 
-        log.info("Subscription with id: {} successfully approved", id);
-        return subscription;
+    /**
+     * Returns the books of several subscriptions at once.
+     * Subscriptions which are not found or already returned are skipped.
+     *
+     * @param ids The IDs of the subscriptions to close.
+     * @return The number of returned subscriptions.
+     */
+    @RetryOnConflict
+    @Transactional
+    public int returnBooks(Collection<Integer> ids) {
+        return closeSubscriptions(ids).size();
+    }
+
+    // Closes the open subscriptions and puts their copies back in one transaction.
+    // The subscriptions are updated with their versions, so a concurrent return of the same one conflicts
+    private List<Subscription> closeSubscriptions(Collection<Integer> ids) {
+        log.info("Return subscriptions with ids: {}", ids);
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+
+        try {
+            List<Subscription> subscriptions = repo.findByIdInAndStatus(ids, Subscription.Status.OPEN);
+
+            if (subscriptions.isEmpty()) {
+                outcome = "not_found";
+                return subscriptions;
+            }
+
+            LocalDate today = LocalDate.now();
+            fineService.settle(subscriptions, today);
+            subscriptions.forEach(subscription -> subscription.markReturned(today));
+            repo.saveAll(subscriptions);
+
+            Map<Integer, Integer> copies = subscriptions.stream().collect(Collectors.groupingBy(
+                    subscription -> subscription.getBook().getId(), Collectors.summingInt(subscription -> 1)));
+            bookService.releaseCopies(copies);
+
+            log.info("{} subscriptions returned", subscriptions.size());
+            meterRegistry.counter("library.subscriptions.returned").increment(subscriptions.size());
+            outcome = "success";
+            return subscriptions;
+        } finally {
+            sample.stop(meterRegistry.timer("library.subscriptions.return", "outcome", outcome));
+        }
+    }
+
+    // Makes LIKE wildcards in user input match literally
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
     }
 
     /**
-     * Calculates and adds fines to subscriptions.
-     * This method is scheduled to run at midnight every day.
+     * Calculates and adds fines to open subscriptions.
+     * This method is scheduled to run at midnight every day, unless the chunked {@link FineJobService} is used.
+     * Fines are added with bulk updates, without loading the subscriptions.
+     * Nothing is updated in the lazy mode of {@link FineService}, where fines are computed on read.
+     * Runs on one node of the cluster, the others skip it.
      */
-    @Scheduled(cron = "0 0 0 * * *")
+    @Scheduled(cron = "${library.fines.cron:0 0 0 * * *}")
+    @JobLock("fines")
+    @Transactional
     public void calculateAndAddFines() {
+        if (fineService.isLazy()) {
+            log.info("Fines are computed on read, skipping the nightly update");
+            return;
+        }
+
         log.info("Updating subscriptions fines");
 
-        List<Subscription> subscriptions = (List<Subscription>) repo.findAll();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        LocalDate today = LocalDate.now();
 
-        for (Subscription subscription : subscriptions) {
-            subscription.updateFine(dayFine);
-        }
+        int users = userService.addOverdueFines(dayFine, today);
+        int subscriptions = repo.addOverdueFines(dayFine, today);
+
+        long elapsed = sample.stop(meterRegistry.timer("library.fines.run", "engine", "bulk"));
+        meterRegistry.counter("library.fines.subscriptions", "engine", "bulk").increment(subscriptions);
+
+        log.info("Fines updated for {} subscriptions and {} users in {} ms",
+                subscriptions, users, elapsed / 1_000_000);
     }
 }
@@ -0,0 +1,165 @@
+package com.epam.library.service;
+
+import com.epam.library.entity.User;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded cache of the users looked up by email for authentication.
+ * Entries are evicted in least recently used order when the cache is full, and when they are older than the TTL.
+ * A user is evicted once a change of the user is committed. Every eviction increments the cache version,
+ * so a user loaded before the change is not cached afterwards.
+ * Only the values needed for authentication are kept, a new UserDetails is built from them on every lookup,
+ * as Spring Security erases the password of the UserDetails it authenticated.
+ */
+@Component
+public class UserDetailsCache {
+
+    private static final Logger log = LogManager.getLogger(UserDetailsCache.class);
+
+    /**
+     * The values of a user needed for authentication.
+     */
+    public record CachedUser(Integer id, String email, String password, User.Role role, boolean blocked) {
+
+        public static CachedUser of(User user) {
+            return new CachedUser(user.getId(), user.getEmail(), user.getPassword(), user.getRole(), user.isBlocked());
+        }
+    }
+
+    private record Entry(CachedUser user, long createdAt) {}
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final LinkedHashMap<String, Entry> entries;
+
+    public UserDetailsCache(@Value("${library.user-cache.max-size:10000}") int maxSize,
+                            @Value("${library.user-cache.ttl:5m}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > UserDetailsCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the current cache version.
+     * Must be read before loading a user, and passed to {@link #put} together with the loaded user.
+     *
+     * @return the cache version
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Returns the cached user if it is present and not expired.
+     *
+     * @param email the email of the user, in any case
+     * @return the cached user, or null if there is none
+     */
+    public synchronized CachedUser get(String email) {
+        String key = key(email);
+        Entry entry = entries.get(key);
+
+        if (entry != null && System.nanoTime() - entry.createdAt() > ttlNanos) {
+            entries.remove(key);
+            evictions.incrementAndGet();
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return entry.user();
+    }
+
+    /**
+     * Caches the user, unless a user was evicted since it was loaded.
+     *
+     * @param user    the loaded user
+     * @param version the cache version read before loading the user
+     */
+    public synchronized void put(CachedUser user, long version) {
+        if (version != this.version.get()) {
+            return;
+        }
+        entries.put(key(user.email()), new Entry(user, System.nanoTime()));
+    }
+
+    /**
+     * Evicts the user once the current transaction is committed, or immediately if there is no transaction.
+     *
+     * @param email the email of the user
+     */
+    public void invalidate(String email) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(email);
+                }
+            });
+        } else {
+            evict(email);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of entries removed because the cache was full, they expired or the user changed.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private synchronized void evict(String email) {
+        version.incrementAndGet();
+        if (entries.remove(key(email)) != null) {
+            evictions.incrementAndGet();
+            log.debug("User {} evicted from the cache", email);
+        }
+    }
+
+    // Emails are compared case-insensitively by the database
+    private static String key(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+}
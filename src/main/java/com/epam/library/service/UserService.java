@@ -1,35 +1,64 @@
 package com.epam.library.service;
 
+import com.epam.library.dto.UserPrincipal;
+import com.epam.library.dto.UserView;
 import com.epam.library.entity.User;
 import com.epam.library.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collections;
+import java.time.LocalDate;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 /**
  * Service class for managing user-related operations.
+ * The users looked up for authentication are cached and evicted when they are saved,
+ * blocked users are signed out by the {@link com.epam.library.config.BlockedUserFilter}.
  */
 @Service
-public class UserService implements UserDetailsService {
+public class UserService implements UserDetailsService, UserDetailsPasswordService {
 
     private static final Logger log = LogManager.getLogger(UserService.class);
+    private static final Map<User.Role, List<GrantedAuthority>> authorities = new EnumMap<>(User.Role.class);
+
+    static {
+        for (User.Role role : User.Role.values()) {
+            authorities.put(role, List.of(new SimpleGrantedAuthority("ROLE_" + role)));
+        }
+    }
+
     private final UserRepository repo;
     private final PasswordEncoder passwordEncoder;
+    private final FineService fineService;
+    private final UserDetailsCache userCache;
+    private final BlockedUsers blockedUsers;
+    private final MeterRegistry meterRegistry;
+    private final int pageSize = 20;
 
-    public UserService(UserRepository repo, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository repo, PasswordEncoder passwordEncoder, FineService fineService,
+                       UserDetailsCache userCache, BlockedUsers blockedUsers, MeterRegistry meterRegistry) {
         this.repo = repo;
         this.passwordEncoder = passwordEncoder;
+        this.fineService = fineService;
+        this.userCache = userCache;
+        this.blockedUsers = blockedUsers;
+        this.meterRegistry = meterRegistry;
     }
 
     /**
@@ -55,13 +84,14 @@ public class UserService implements UserDetailsService {
     }
 
     /**
-     * Saves a user.
+     * Saves a user and evicts them from the authentication cache once committed.
      *
      * @param user  The user to save.
      */
     public void save(User user) {
         log.info("Saving user: {}", user);
         repo.save(user);
+        userCache.invalidate(user.getEmail());
     }
 
     /**
@@ -76,6 +106,9 @@ public class UserService implements UserDetailsService {
     public User register(String name, String email, String password) throws Exception {
         log.info("Registering user with email: {}", email);
 
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "failure";
+
         try {
             findByEmail(email); // Should throw UsernameNotFoundException if user doesn't exist
             log.warn("Email {} already registered", email);
@@ -92,18 +125,65 @@ public class UserService implements UserDetailsService {
             save(user);
 
             log.info("User registered successfully: {}", user);
+            outcome = "success";
             return user;
+        } finally {
+            sample.stop(meterRegistry.timer("library.users.register", "outcome", outcome));
+        }
+    }
+
+    /**
+     * Retrieves a page of the users who are not administrators, in the order of registration.
+     * The users are selected without their passwords. The fines are the current ones, see {@link FineService}.
+     *
+     * @param name     The prefix of the user name to filter by, or empty for all users.
+     * @param email    The prefix of the user email to filter by, or empty for all users.
+     * @param blocked  Whether to find only the blocked users.
+     * @param fined    Whether to find only the users with a fine or an overdue subscription.
+     * @param pageNo   The page number.
+     * @return The page of users, or throws exception if the page number is invalid.
+     */
+    public Slice<UserView> findViews(String name, String email, boolean blocked, boolean fined, int pageNo) {
+        log.info("Finding users. Name: {}, Email: {}, Blocked: {}, Fined: {}, Page: {}",
+                name, email, blocked, fined, pageNo);
+
+        if (pageNo < 1) {
+            log.warn("Invalid page number: {}", pageNo);
+            throw new IllegalArgumentException("Invalid page number: " + pageNo);
         }
+
+        // In the lazy mode the accrued fines are added by the same query
+        return repo.findViews(escapeLike(name), escapeLike(email), blocked, fined, fineService.isLazy(),
+                SubscriptionService.dayFine, LocalDate.now(), PageRequest.of(pageNo - 1, pageSize));
     }
 
     /**
-     * Retrieves a list of all users who are not administrators.
+     * Adds the day fine to the users once for each of their overdue subscriptions.
      *
-     * @return A list of all non-administrator users.
+     * @param dayFine  The fine for one day of overdue.
+     * @param today    The date of the fine calculation.
+     * @return The number of fined users.
      */
-    public List<User> findAllNotAdmin() {
-        log.info("Finding all users who are not administrators");
-        return repo.findByRoleNot(User.Role.ADMIN);
+    @Transactional
+    public int addOverdueFines(long dayFine, LocalDate today) {
+        log.info("Adding overdue fines to users");
+        return repo.addOverdueFines(dayFine, today);
+    }
+
+    /**
+     * Adds the day fine to the users once for each of their overdue subscriptions
+     * with ids from firstId to lastId.
+     *
+     * @param dayFine  The fine for one day of overdue.
+     * @param today    The date of the fine calculation.
+     * @param firstId  The first subscription id.
+     * @param lastId   The last subscription id.
+     * @return The number of fined users.
+     */
+    @Transactional
+    public int addOverdueFines(long dayFine, LocalDate today, int firstId, int lastId) {
+        log.info("Adding overdue fines to users for subscriptions {} - {}", firstId, lastId);
+        return repo.addOverdueFines(dayFine, today, firstId, lastId);
     }
 
     /**
@@ -120,6 +200,7 @@ public class UserService implements UserDetailsService {
             User user = findById(id);
             user.setBlocked(!user.isBlocked());
             save(user);
+            blockedUsers.update(user.getId(), user.isBlocked());
 
             log.info("User {} blocked", user);
             return user;
@@ -129,9 +210,14 @@ public class UserService implements UserDetailsService {
         }
     }
 
+    private static String escapeLike(String value) {
+        return value.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
     /**
      * Loads a user by their username (email).
      * Method is used for Spring Security authentication.
+     * The user is taken from the cache if present, blocked users are returned locked.
      *
      * @param username  The username (email) of the user to load.
      * @return A UserDetails object representing the user.
@@ -139,14 +225,48 @@ public class UserService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = findByEmail(username);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "not_found";
+
+        try {
+            UserDetailsCache.CachedUser user = userCache.get(username);
+
+            if (user != null) {
+                outcome = "cached";
+            } else {
+                long version = userCache.version();
+                user = UserDetailsCache.CachedUser.of(repo.findByEmail(username)
+                        .orElseThrow(() -> new UsernameNotFoundException("User not found")));
+                userCache.put(user, version);
+                outcome = "found";
+            }
+
+            return new UserPrincipal(user.id(), user.email(), user.password(), user.blocked(),
+                    authorities.get(user.role()));
+        } finally {
+            sample.stop(meterRegistry.timer("library.users.load", "outcome", outcome));
+        }
+    }
+
+    /**
+     * Stores the password of the user hashed again with the configured cost.
+     * Method is called by Spring Security after a successful login with a hash of another cost.
+     *
+     * @param user         The authenticated user.
+     * @param newPassword  The new hash of the password.
+     * @return The user with the new hash.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        log.info("Rehashing password of user: {}", user.getUsername());
 
-        GrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + user.getRole().toString());
+        repo.updatePassword(user.getUsername(), newPassword);
+        userCache.invalidate(user.getUsername());
+        meterRegistry.counter("library.users.rehashed").increment();
 
-        return new org.springframework.security.core.userdetails.User(
-                user.getEmail(),
-                user.getPassword(),
-                Collections.singletonList(authority)
-        );
+        UserPrincipal principal = (UserPrincipal) user;
+        return new UserPrincipal(principal.getId(), principal.getUsername(), newPassword,
+                !principal.isAccountNonLocked(), principal.getAuthorities());
     }
 }
@@ -0,0 +1,9 @@
+-- Leases of the scheduled jobs: a job runs on the node which holds its unexpired lease.
+-- The owner extends the lease with heartbeats while the job runs, an expired lease of a crashed node is taken over
+CREATE TABLE job_leases (
+                            name VARCHAR(64) NOT NULL,
+                            owner VARCHAR(255),
+                            locked_until DATETIME(3) NOT NULL,
+                            heartbeat_at DATETIME(3),
+                            PRIMARY KEY (name)
+);
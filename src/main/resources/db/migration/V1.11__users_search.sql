@@ -0,0 +1,5 @@
+-- Users page searched by name prefix, the email prefix uses users_email_idx
+CREATE INDEX users_name_idx ON users (name);
+
+-- Users page filtered by blocked users, the primary key is appended by InnoDB for the order of the page
+CREATE INDEX users_blocked_idx ON users (blocked);
@@ -0,0 +1,14 @@
+-- HTTP sessions shared by all nodes when library.sessions.store=jdbc. Times are epoch milliseconds,
+-- the attributes are encoded by SessionAttributeCodec
+CREATE TABLE sessions (
+                          id VARCHAR(64) NOT NULL,
+                          created_at BIGINT NOT NULL,
+                          last_accessed_at BIGINT NOT NULL,
+                          max_inactive_seconds INT NOT NULL,
+                          expires_at BIGINT NOT NULL,
+                          attributes BLOB NOT NULL,
+                          PRIMARY KEY (id)
+);
+
+-- Expired sessions are deleted in batches
+CREATE INDEX sessions_expires_at_idx ON sessions (expires_at);
@@ -0,0 +1,5 @@
+-- Idempotency key of the order which placed the hold, unique per user like the key of a subscription,
+-- so a repeated order gets its place in the queue instead of ordering again
+ALTER TABLE holds ADD COLUMN order_key VARCHAR(64);
+
+CREATE UNIQUE INDEX holds_user_id_order_key_idx ON holds (user_id, order_key);
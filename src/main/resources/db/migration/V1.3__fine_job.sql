@@ -0,0 +1,17 @@
+CREATE TABLE fine_job_runs (
+                               run_date DATE NOT NULL,
+                               last_id INTEGER NOT NULL,
+                               chunk_size INTEGER NOT NULL,
+                               finished BOOLEAN NOT NULL,
+                               PRIMARY KEY (run_date)
+);
+
+CREATE TABLE fine_job_chunks (
+                                 id INTEGER NOT NULL AUTO_INCREMENT,
+                                 run_date DATE NOT NULL,
+                                 first_id INTEGER NOT NULL,
+                                 last_id INTEGER NOT NULL,
+                                 PRIMARY KEY (id),
+                                 UNIQUE (run_date, first_id),
+                                 FOREIGN KEY (run_date) REFERENCES fine_job_runs(run_date)
+);
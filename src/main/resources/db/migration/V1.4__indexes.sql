@@ -0,0 +1,17 @@
+-- Book lookups on add, edit and import, and catalog pages sorted or paged by title
+CREATE INDEX books_title_author_year_idx ON books (title, author, publication_year);
+
+-- Catalog pages sorted or paged by author, the primary key is appended by InnoDB for the keyset
+CREATE INDEX books_author_idx ON books (author);
+
+-- Login, registration and every order look users up by email
+CREATE INDEX users_email_idx ON users (email);
+
+-- Subscriptions of a user and the fine updates, which count the overdue subscriptions of each user
+CREATE INDEX subscriptions_user_id_idx ON subscriptions (user_id, approved, start_date);
+
+-- Pending subscription count and overdue scans
+CREATE INDEX subscriptions_approved_start_date_idx ON subscriptions (approved, start_date);
+
+-- Librarian page, pending subscriptions first and the newest first
+CREATE INDEX subscriptions_approved_id_idx ON subscriptions (approved, id DESC);
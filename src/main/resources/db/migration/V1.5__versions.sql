@@ -0,0 +1,4 @@
+-- Optimistic locking of books and subscriptions, bulk updates of these tables must increment the version too
+ALTER TABLE books ADD COLUMN version INTEGER NOT NULL DEFAULT 0;
+
+ALTER TABLE subscriptions ADD COLUMN version INTEGER NOT NULL DEFAULT 0;
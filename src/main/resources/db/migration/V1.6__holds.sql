@@ -0,0 +1,22 @@
+-- Hold queues of unavailable books. Tickets are numbered per book: head is the ticket served next
+-- and tail the last issued one, so the position of a hold is its ticket minus the head plus one
+CREATE TABLE hold_queues (
+                             book_id INTEGER NOT NULL,
+                             head BIGINT NOT NULL,
+                             tail BIGINT NOT NULL,
+                             PRIMARY KEY (book_id),
+                             FOREIGN KEY (book_id) REFERENCES books(id)
+);
+
+CREATE TABLE holds (
+                       id INTEGER NOT NULL AUTO_INCREMENT,
+                       book_id INTEGER NOT NULL,
+                       user_id INTEGER NOT NULL,
+                       ticket BIGINT NOT NULL,
+                       created_at datetime(6) NOT NULL,
+                       PRIMARY KEY (id),
+                       UNIQUE (book_id, ticket),
+                       UNIQUE (user_id, book_id),
+                       FOREIGN KEY (book_id) REFERENCES books(id),
+                       FOREIGN KEY (user_id) REFERENCES users(id)
+);
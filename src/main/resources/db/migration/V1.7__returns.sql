@@ -0,0 +1,19 @@
+-- Returned subscriptions are closed: they keep their history but no longer hold a copy or accrue fines
+ALTER TABLE subscriptions ADD COLUMN status ENUM('OPEN', 'RETURNED') NOT NULL DEFAULT 'OPEN';
+
+ALTER TABLE subscriptions ADD COLUMN returned_on DATE;
+
+-- The indexes of the fine updates and the librarian page are replaced by ones starting with the status,
+-- so closed subscriptions are skipped by the index. New indexes are created first,
+-- as the index on user_id is needed by its foreign key
+CREATE INDEX subscriptions_user_id_status_idx ON subscriptions (user_id, status, approved, start_date);
+
+CREATE INDEX subscriptions_status_approved_start_date_idx ON subscriptions (status, approved, start_date);
+
+CREATE INDEX subscriptions_status_approved_id_idx ON subscriptions (status, approved, id DESC);
+
+ALTER TABLE subscriptions DROP INDEX subscriptions_user_id_idx;
+
+ALTER TABLE subscriptions DROP INDEX subscriptions_approved_start_date_idx;
+
+ALTER TABLE subscriptions DROP INDEX subscriptions_approved_id_idx;
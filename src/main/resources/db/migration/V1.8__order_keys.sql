@@ -0,0 +1,5 @@
+-- Idempotency key of the order which created the subscription, unique per user,
+-- so a repeated order is recognized by any application node
+ALTER TABLE subscriptions ADD COLUMN order_key VARCHAR(64);
+
+CREATE UNIQUE INDEX subscriptions_user_id_order_key_idx ON subscriptions (user_id, order_key);
@@ -0,0 +1,9 @@
+-- The day an approved subscription is due back, fines accrue from the next day
+ALTER TABLE subscriptions ADD COLUMN due_date DATE;
+
+UPDATE subscriptions SET due_date = TIMESTAMPADD(DAY, period, start_date) WHERE approved = true;
+
+-- Open overdue subscriptions are found by due date, for one user when their fine is computed on read
+CREATE INDEX subscriptions_user_id_status_due_date_idx ON subscriptions (user_id, status, due_date);
+
+CREATE INDEX subscriptions_status_due_date_idx ON subscriptions (status, due_date);
@@ -2,6 +2,7 @@ package com.epam.library.integration;
 
 import com.epam.library.entity.Book;
 import com.epam.library.repository.BookRepository;
+import com.epam.library.service.CatalogPageCache;
 import org.junit.After;
 import org.junit.Test;
 import org.junit.jupiter.api.BeforeEach;
@@ -29,11 +30,15 @@ public class BookIntegrationTest {
     private MockMvc mockMvc;
     @Autowired
     private BookRepository bookRepository;
+    @Autowired
+    private CatalogPageCache pageCache;
 
     @After
     @BeforeEach
     public void cleanDatabase() {
         bookRepository.deleteAll();
+        // Books are saved around BookService, so cached pages must be dropped explicitly
+        pageCache.invalidate();
     }
 
     @Test
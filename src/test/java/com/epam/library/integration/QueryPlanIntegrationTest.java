@@ -0,0 +1,310 @@
+package com.epam.library.integration;
+
+import com.epam.library.entity.Subscription;
+import com.epam.library.repository.BookRepository;
+import com.epam.library.repository.SubscriptionRepository;
+import com.epam.library.repository.UserRepository;
+import com.epam.library.service.DatasetGenerator;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs EXPLAIN for the repository queries and fails if one of them reads a whole table.
+ * The SQL and the parameters of a query are recorded while the repository method runs on a generated data set,
+ * then the same statement is explained. Queries which read all rows by design are not checked:
+ * the fine updates of all subscriptions.
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@TestPropertySource(locations = "classpath:application_integration.properties")
+public class QueryPlanIntegrationTest {
+
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private SubscriptionRepository subscriptionRepository;
+    @Autowired
+    private DatasetGenerator generator;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // A statement as sent to the database, with its parameters by index
+    private record Statement(String sql, Map<Integer, Object> parameters) {}
+
+    private static final List<Statement> statements = Collections.synchronizedList(new ArrayList<>());
+    private static volatile boolean recording;
+
+    /**
+     * Wraps the data source to record the prepared statements executed while recording is on.
+     */
+    @TestConfiguration
+    static class RecordingConfig {
+
+        @Bean
+        static BeanPostProcessor recordingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? proxy(DataSource.class, dataSource, null) : bean;
+                }
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, Statement statement) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (p, method, args) -> {
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+
+                String name = method.getName();
+                if (result instanceof Connection connection) {
+                    return proxy(Connection.class, connection, null);
+                }
+                if (result instanceof PreparedStatement prepared && name.equals("prepareStatement")) {
+                    return proxy(PreparedStatement.class, prepared, new Statement((String) args[0], new TreeMap<>()));
+                }
+                if (statement != null && name.startsWith("set") && args != null && args.length >= 2
+                        && args[0] instanceof Integer index) {
+                    statement.parameters().put(index, args[1]);
+                }
+                if (statement != null && name.startsWith("execute") && recording) {
+                    statements.add(new Statement(statement.sql(), new TreeMap<>(statement.parameters())));
+                }
+                return result;
+            });
+        }
+    }
+
+    @Before
+    public void generateData() {
+        generator.generate(new DatasetGenerator.Spec(1000, 5000, 10000, 0.8, 0.1, 0.2, 1.1, 42));
+        jdbcTemplate.execute("analyze table books, users, subscriptions");
+    }
+
+    @After
+    public void cleanDatabase() {
+        recording = false;
+        statements.clear();
+        jdbcTemplate.update("delete from holds");
+        jdbcTemplate.update("delete from hold_queues");
+        jdbcTemplate.update("delete from subscriptions");
+        jdbcTemplate.update("delete from users");
+        jdbcTemplate.update("delete from books");
+    }
+
+    // Records the first statement executed by the query and returns its plan
+    private List<Map<String, Object>> explain(Runnable query) {
+        statements.clear();
+        recording = true;
+        try {
+            query.run();
+        } finally {
+            recording = false;
+        }
+
+        assertFalse("The query executed no statement", statements.isEmpty());
+        Statement statement = statements.get(0);
+        return jdbcTemplate.queryForList("explain " + statement.sql(), statement.parameters().values().toArray());
+    }
+
+    // Fails if a table of the plan is read with a full table scan.
+    // Derived tables are the results of subqueries, which are read in full
+    private static void assertNoFullScan(List<Map<String, Object>> plan) {
+        for (Map<String, Object> step : plan) {
+            String table = (String) step.get("table");
+            if (table != null && !table.startsWith("<derived")) {
+                assertNotEquals("Full scan of " + table + " in " + plan, "ALL", step.get("type"));
+            }
+        }
+    }
+
+    private String someBookTitle() {
+        return jdbcTemplate.queryForObject("select title from books order by id limit 1 offset 100", String.class);
+    }
+
+    @Test
+    public void testFindBookByTitleAuthorAndYear() {
+        Map<String, Object> book = jdbcTemplate.queryForMap(
+                "select title, author, publication_year from books order by id limit 1 offset 100");
+
+        assertNoFullScan(explain(() -> bookRepository.findByTitleAndAuthorAndPublicationYear(
+                (String) book.get("title"), (String) book.get("author"), (Integer) book.get("publication_year"))));
+    }
+
+    @Test
+    public void testCatalogPageByTitle() {
+        assertNoFullScan(explain(() -> bookRepository.findAllBy(
+                PageRequest.of(0, 5, Sort.by("title", "id")))));
+    }
+
+    @Test
+    public void testCatalogPageByAuthor() {
+        assertNoFullScan(explain(() -> bookRepository.findAllBy(
+                PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "author", "id")))));
+    }
+
+    @Test
+    public void testKeysetPageByTitle() {
+        String title = someBookTitle();
+
+        assertNoFullScan(explain(() -> bookRepository.findByTitleGreaterThanOrTitleAndIdGreaterThan(
+                title, title, 100, PageRequest.of(0, 6, Sort.by("title", "id")))));
+    }
+
+    @Test
+    public void testKeysetPageByAuthor() {
+        String author = jdbcTemplate.queryForObject("select author from books order by id limit 1 offset 100",
+                String.class);
+
+        assertNoFullScan(explain(() -> bookRepository.findByAuthorLessThanOrAuthorAndIdLessThan(
+                author, author, 100, PageRequest.of(0, 6, Sort.by(Sort.Direction.DESC, "author", "id")))));
+    }
+
+    @Test
+    public void testDeleteBookByTitle() {
+        String title = someBookTitle();
+
+        // The derived delete selects the book by title first, the plan of that select is checked
+        assertNoFullScan(explain(() -> transactionTemplate.executeWithoutResult(status -> {
+            bookRepository.deleteByTitle(title);
+            status.setRollbackOnly();
+        })));
+    }
+
+    @Test
+    public void testFindUserByEmail() {
+        assertNoFullScan(explain(() -> userRepository.findByEmail("user500@example.com")));
+    }
+
+    @Test
+    public void testFindBlockedUserIds() {
+        assertNoFullScan(explain(() -> userRepository.findBlockedIds()));
+    }
+
+    @Test
+    public void testFindSubscriptionsByUserEmail() {
+        String email = jdbcTemplate.queryForObject("select u.email from users u " +
+                "join subscriptions s on s.user_id = u.id order by s.id limit 1", String.class);
+
+        assertNoFullScan(explain(() -> subscriptionRepository.findByUserEmail(email)));
+    }
+
+    @Test
+    public void testCountPendingSubscriptions() {
+        assertNoFullScan(explain(() -> subscriptionRepository.countByApprovedFalseAndStatus(Subscription.Status.OPEN)));
+    }
+
+    @Test
+    public void testFindOpenSubscriptionsToReturn() {
+        int firstId = jdbcTemplate.queryForObject("select min(id) from subscriptions", Integer.class);
+
+        assertNoFullScan(explain(() -> subscriptionRepository.findByIdInAndStatus(
+                List.of(firstId, firstId + 1, firstId + 2), Subscription.Status.OPEN)));
+    }
+
+    @Test
+    public void testLockPendingSubscriptionsOfUser() {
+        String email = jdbcTemplate.queryForObject("select u.email from users u " +
+                "join subscriptions s on s.user_id = u.id where s.approved = false order by s.id limit 1", String.class);
+
+        assertNoFullScan(explain(() -> transactionTemplate.executeWithoutResult(status -> {
+            subscriptionRepository.lockPendingByUserEmail(email);
+            status.setRollbackOnly();
+        })));
+    }
+
+    @Test
+    public void testSumAccruedFinesOfUser() {
+        int userId = jdbcTemplate.queryForObject("select user_id from subscriptions order by id limit 1",
+                Integer.class);
+
+        assertNoFullScan(explain(() -> subscriptionRepository.sumAccruedFines(userId, LocalDate.now(), 10)));
+    }
+
+    @Test
+    public void testLibrarianPage() {
+        assertNoFullScan(explain(() -> subscriptionRepository.findViews("", "", PageRequest.of(0, 20))));
+    }
+
+    @Test
+    public void testLibrarianPageFilteredByEmail() {
+        assertNoFullScan(explain(() -> subscriptionRepository.findViews("user50", "", PageRequest.of(0, 20))));
+    }
+
+    @Test
+    public void testUsersPage() {
+        assertNoFullScan(explain(() -> userRepository.findViews("", "", false, false, true, 10,
+                LocalDate.now(), PageRequest.of(0, 20))));
+    }
+
+    @Test
+    public void testUsersPageFilteredByName() {
+        String name = jdbcTemplate.queryForObject("select name from users order by id desc limit 1", String.class);
+
+        assertNoFullScan(explain(() -> userRepository.findViews(name.substring(0, 4), "", false, false, true, 10,
+                LocalDate.now(), PageRequest.of(0, 20))));
+    }
+
+    @Test
+    public void testUsersPageFilteredByEmail() {
+        assertNoFullScan(explain(() -> userRepository.findViews("", "user50", false, false, true, 10,
+                LocalDate.now(), PageRequest.of(0, 20))));
+    }
+
+    @Test
+    public void testUsersPageOfBlockedUsers() {
+        assertNoFullScan(explain(() -> userRepository.findViews("", "", true, false, true, 10, LocalDate.now(),
+                PageRequest.of(0, 20))));
+    }
+
+    @Test
+    public void testAddOverdueFinesInRange() {
+        int firstId = jdbcTemplate.queryForObject("select min(id) from subscriptions", Integer.class);
+
+        assertNoFullScan(explain(() -> transactionTemplate.executeWithoutResult(status -> {
+            userRepository.addOverdueFines(1, LocalDate.now(), firstId, firstId + 99);
+            status.setRollbackOnly();
+        })));
+
+        assertNoFullScan(explain(() -> transactionTemplate.executeWithoutResult(status -> {
+            subscriptionRepository.addOverdueFines(1, LocalDate.now(),
+                    firstId, firstId + 99);
+            status.setRollbackOnly();
+        })));
+    }
+}
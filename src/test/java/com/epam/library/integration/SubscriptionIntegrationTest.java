@@ -3,9 +3,13 @@ package com.epam.library.integration;
 import com.epam.library.entity.Book;
 import com.epam.library.entity.Subscription;
 import com.epam.library.entity.User;
+import com.epam.library.dto.OrderResult;
 import com.epam.library.repository.BookRepository;
+import com.epam.library.repository.HoldQueueRepository;
+import com.epam.library.repository.HoldRepository;
 import com.epam.library.repository.SubscriptionRepository;
 import com.epam.library.repository.UserRepository;
+import com.epam.library.service.SubscriptionService;
 import org.junit.After;
 import org.junit.Test;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,13 +17,22 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertEquals;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -40,10 +53,18 @@ public class SubscriptionIntegrationTest {
     private UserRepository userRepository;
     @Autowired
     private SubscriptionRepository subscriptionRepository;
+    @Autowired
+    private HoldRepository holdRepository;
+    @Autowired
+    private HoldQueueRepository holdQueueRepository;
+    @Autowired
+    private SubscriptionService subscriptionService;
 
     @After
     @BeforeEach
     public void cleanDatabase() {
+        holdRepository.deleteAll();
+        holdQueueRepository.deleteAll();
         subscriptionRepository.deleteAll();
         userRepository.deleteAll();
         bookRepository.deleteAll();
@@ -95,22 +116,44 @@ public class SubscriptionIntegrationTest {
                 .andExpect(view().name("librarian_subscriptions"))
                 .andExpect(model().attribute("subscriptions", hasItem(
                         allOf(
-                                hasProperty("user",
-                                        hasProperty("email", is("johndoe@example.com"))),
-                                hasProperty("book",
-                                        hasProperty("title", is("The Lord of the Rings")))
+                                hasProperty("email", is("johndoe@example.com")),
+                                hasProperty("title", is("The Lord of the Rings"))
                         )
                 )))
                 .andExpect(model().attribute("subscriptions", hasItem(
                         allOf(
-                                hasProperty("user",
-                                        hasProperty("email", is("jackdoe@example.com"))),
-                                hasProperty("book",
-                                        hasProperty("title", is("The Hobbit")))
+                                hasProperty("email", is("jackdoe@example.com")),
+                                hasProperty("title", is("The Hobbit"))
                         )
                 )));
     }
 
+    @Test
+    @WithMockUser(username = "jackdoe@example.com", roles = {"LIBRARIAN"})
+    public void testSubscriptionsAsLibrarian_filtered() throws Exception {
+        // Create the subscriptions
+        User userReader = userRepository.save(new User("John Doe", "johndoe@example.com",
+                passwordEncoder.encode("password"), User.Role.READER));
+        User userLibrarian = userRepository.save(new User("Jack Doe", "jackdoe@example.com",
+                passwordEncoder.encode("password"), User.Role.LIBRARIAN));
+        Book book1 = new Book("The Lord of the Rings", "J.R.R. Tolkien", 1954);
+        Book book2 = new Book("The Hobbit", "J.R.R. Tolkien", 1937);
+        bookRepository.save(book1);
+        bookRepository.save(book2);
+        subscriptionRepository.save(new Subscription(userReader, book1));
+        subscriptionRepository.save(new Subscription(userLibrarian, book2));
+
+        // Perform the request and validate the response
+        mockMvc.perform(get("/subscriptions")
+                        .param("email", "john")
+                        .param("title", "The Lord"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("librarian_subscriptions"))
+                .andExpect(model().attribute("subscriptions", hasSize(1)))
+                .andExpect(model().attribute("subscriptions", hasItem(
+                        hasProperty("email", is("johndoe@example.com")))));
+    }
+
     @Test
     @WithMockUser(username = "johndoe@example.com", roles = {"READER"})
     public void testOrderBook() throws Exception {
@@ -166,4 +209,85 @@ public class SubscriptionIntegrationTest {
                 .andExpect(flash().attributeExists("msg_code"))
                 .andExpect(flash().attribute("msg_code", "cant_approve"));
     }
+
+    @Test
+    @WithMockUser(username = "johndoe@example.com", roles = {"LIBRARIAN"})
+    public void testSubscriptionsReturn() throws Exception {
+        // Create an approved subscription of the only copy
+        User user = userRepository.save(new User("Jack Doe", "jackdoe@example.com",
+                passwordEncoder.encode("password"), User.Role.READER));
+        Book book = new Book("The Lord of the Rings", "J.R.R. Tolkien", 1954);
+        book.setAvailableCopies(0);
+        bookRepository.save(book);
+        Subscription subscription = new Subscription(user, book);
+        subscription.setApproved(true);
+        subscriptionRepository.save(subscription);
+
+        // Perform the request and validate the response
+        mockMvc.perform(post("/return")
+                        .param("subscriptionId", subscription.getId().toString()))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("subscriptions"));
+
+        // The copy is back and the subscription is closed
+        assertEquals(1, bookRepository.findById(book.getId()).get().getAvailableCopies());
+        assertEquals(Subscription.Status.RETURNED,
+                subscriptionRepository.findById(subscription.getId()).get().getStatus());
+
+        // A second return fails
+        mockMvc.perform(post("/return")
+                        .param("subscriptionId", subscription.getId().toString()))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("error"))
+                .andExpect(flash().attribute("msg_code", "cant_return"));
+    }
+
+    @Test
+    public void testConcurrentOrdersDoNotOversell() throws Exception {
+        // Create the user and a book with fewer copies than orders
+        int copies = 50;
+        int orders = 2000;
+        int threads = 32;
+
+        User user = userRepository.save(new User("John Doe", "johndoe@example.com",
+                passwordEncoder.encode("password"), User.Role.READER));
+        Book book = new Book("The Lord of the Rings", "J.R.R. Tolkien", 1954);
+        book.setNumOfCopies(copies);
+        book.setAvailableCopies(copies);
+        Integer bookId = bookRepository.save(book).get().getId();
+
+        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
+                user.getEmail(),
+                user.getPassword(),
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_READER")));
+
+        // Fire all orders at once
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger placed = new AtomicInteger();
+        AtomicInteger queued = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < orders; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                OrderResult result = subscriptionService.orderBook(userDetails, bookId, null);
+                (result.isQueued() ? queued : placed).incrementAndGet();
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        // Every copy is taken exactly once, the other orders hold one place in the queue
+        assertEquals(copies, placed.get());
+        assertEquals(orders - copies, queued.get());
+        assertEquals(1, holdRepository.count());
+        assertEquals(0, bookRepository.findById(bookId).get().getAvailableCopies());
+        assertEquals(copies, subscriptionRepository.findByUserEmail(user.getEmail()).size());
+    }
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+package com.epam.library.unit.config;
+
+import com.epam.library.config.BasicAuthRateLimitFilter;
+import com.epam.library.config.PasswordHashingBusyException;
+import com.epam.library.service.LoginRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.security.web.AuthenticationEntryPoint;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.Assert.*;
+
+public class BasicAuthRateLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static MockHttpServletRequest request(String ip, String credentials) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/actuator/prometheus");
+        request.setRemoteAddr(ip);
+        if (credentials != null) {
+            request.addHeader("Authorization", "Basic " + credentials);
+        }
+        return request;
+    }
+
+    private static String encode(String credentials) {
+        return Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private MockHttpServletResponse filter(BasicAuthRateLimitFilter filter, MockHttpServletRequest request)
+            throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    private static void fail(AuthenticationEntryPoint entryPoint, MockHttpServletRequest request) throws Exception {
+        entryPoint.commence(request, new MockHttpServletResponse(), new BadCredentialsException("Bad credentials"));
+    }
+
+    @Test
+    public void testSuccessfulAuthenticationsNotLimited() throws Exception {
+        // Arrange
+        BasicAuthRateLimitFilter filter = new BasicAuthRateLimitFilter(
+                new LoginRateLimiter(1, 1, 1, 1, 1024, 1024), meterRegistry);
+
+        // Act and Assert
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, filter(filter, request("10.0.0.1", encode("admin@example.com:secret"))).getStatus());
+        }
+    }
+
+    @Test
+    public void testFailuresLimitedByAccount() throws Exception {
+        // Arrange
+        BasicAuthRateLimitFilter filter = new BasicAuthRateLimitFilter(
+                new LoginRateLimiter(10, 1, 1, 1, 1024, 1024), meterRegistry);
+        AuthenticationEntryPoint entryPoint = filter.entryPoint();
+        fail(entryPoint, request("10.0.0.1", encode("admin@example.com:wrong")));
+
+        // Act
+        MockHttpServletResponse response = filter(filter, request("10.0.0.2", encode("Admin@example.com:secret")));
+
+        // Assert
+        assertEquals(429, response.getStatus());
+        assertEquals("60", response.getHeader("Retry-After"));
+        assertEquals(1, meterRegistry.counter("library.logins.limited", "path", "basic", "scope", "account")
+                .count(), 0);
+    }
+
+    @Test
+    public void testUndecodableFailuresLimitedByIp() throws Exception {
+        // Arrange
+        BasicAuthRateLimitFilter filter = new BasicAuthRateLimitFilter(
+                new LoginRateLimiter(1, 1, 10, 1, 1024, 1024), meterRegistry);
+        fail(filter.entryPoint(), request("10.0.0.1", "%%%"));
+
+        // Act
+        MockHttpServletResponse response = filter(filter, request("10.0.0.1", "%%%"));
+
+        // Assert
+        assertEquals(429, response.getStatus());
+        assertEquals(1, meterRegistry.counter("library.logins.limited", "path", "basic", "scope", "ip")
+                .count(), 0);
+        assertEquals(200, filter(filter, request("10.0.0.2", "%%%")).getStatus());
+    }
+
+    @Test
+    public void testEntryPointChallengesWithoutCountingAnonymousRequests() throws Exception {
+        // Arrange
+        BasicAuthRateLimitFilter filter = new BasicAuthRateLimitFilter(
+                new LoginRateLimiter(1, 1, 1, 1, 1024, 1024), meterRegistry);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filter.entryPoint().commence(request("10.0.0.1", null), response,
+                new InsufficientAuthenticationException("Full authentication is required"));
+
+        // Assert
+        assertEquals(401, response.getStatus());
+        assertEquals("Basic realm=\"Library\"", response.getHeader("WWW-Authenticate"));
+        assertEquals(200, filter(filter, request("10.0.0.1", encode("admin@example.com:secret"))).getStatus());
+    }
+
+    @Test
+    public void testBusyHashingNotCounted() throws Exception {
+        // Arrange
+        BasicAuthRateLimitFilter filter = new BasicAuthRateLimitFilter(
+                new LoginRateLimiter(1, 1, 1, 1, 1024, 1024), meterRegistry);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // Act
+        filter.entryPoint().commence(request("10.0.0.1", encode("admin@example.com:secret")), response,
+                new PasswordHashingBusyException("Password hashing is busy"));
+
+        // Assert
+        assertEquals(503, response.getStatus());
+        assertEquals(200, filter(filter, request("10.0.0.1", encode("admin@example.com:secret"))).getStatus());
+    }
+}
@@ -0,0 +1,86 @@
+package com.epam.library.unit.config;
+
+import com.epam.library.config.BlockedUserFilter;
+import com.epam.library.dto.UserPrincipal;
+import com.epam.library.service.BlockedUsers;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BlockedUserFilterTest {
+
+    @Mock
+    private BlockedUsers blockedUsers;
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books");
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+    private final MockFilterChain chain = new MockFilterChain();
+
+    private void authenticate() {
+        UserPrincipal principal = new UserPrincipal(3, "johndoe@example.com", "", false,
+                List.of(new SimpleGrantedAuthority("ROLE_READER")));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @After
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testBlockedUserIsSignedOut() throws Exception {
+        // Arrange
+        authenticate();
+        MockHttpSession session = new MockHttpSession();
+        request.setSession(session);
+        Mockito.when(blockedUsers.contains(3)).thenReturn(true);
+
+        // Act
+        new BlockedUserFilter(blockedUsers).doFilter(request, response, chain);
+
+        // Assert
+        assertEquals("/login?blocked", response.getRedirectedUrl());
+        assertNull(chain.getRequest());
+        assertTrue(session.isInvalid());
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    public void testUserNotBlocked() throws Exception {
+        // Arrange
+        authenticate();
+
+        // Act
+        new BlockedUserFilter(blockedUsers).doFilter(request, response, chain);
+
+        // Assert
+        assertSame(request, chain.getRequest());
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    public void testAnonymousRequest() throws Exception {
+        // Act
+        new BlockedUserFilter(blockedUsers).doFilter(request, response, chain);
+
+        // Assert
+        assertSame(request, chain.getRequest());
+        Mockito.verifyNoInteractions(blockedUsers);
+    }
+}
@@ -0,0 +1,86 @@
+package com.epam.library.unit.config;
+
+import com.epam.library.config.BoundedPasswordEncoder;
+import com.epam.library.config.PasswordHashingBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BoundedPasswordEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<BoundedPasswordEncoder> encoders = new ArrayList<>();
+
+    private BoundedPasswordEncoder encoder(int strength, int threads, int queueCapacity) {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(strength, threads, queueCapacity, meterRegistry);
+        encoders.add(encoder);
+        return encoder;
+    }
+
+    @After
+    public void tearDown() {
+        encoders.forEach(BoundedPasswordEncoder::shutdown);
+    }
+
+    @Test
+    public void testEncodeAndMatch() {
+        // Arrange
+        BoundedPasswordEncoder encoder = encoder(4, 1, 1);
+
+        // Act
+        String hash = encoder.encode("password");
+
+        // Assert
+        assertTrue(hash.startsWith("$2a$04$"));
+        assertTrue(encoder.matches("password", hash));
+        assertFalse(encoder.matches("wrong", hash));
+    }
+
+    @Test
+    public void testUpgradeEncodingOfOtherCost() {
+        // Arrange
+        BoundedPasswordEncoder encoder = encoder(5, 1, 1);
+
+        // Act and Assert
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+        assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("password")));
+        assertFalse(encoder.upgradeEncoding(encoder.encode("password")));
+        assertFalse(encoder.upgradeEncoding("plain"));
+        assertFalse(encoder.upgradeEncoding(null));
+    }
+
+    @Test
+    public void testRejectedWhenQueueIsFull() throws Exception {
+        // Arrange
+        BoundedPasswordEncoder encoder = encoder(14, 1, 1);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+
+        // Act: one hash runs for about a second and one waits in the queue
+        List<Future<String>> hashes = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            hashes.add(callers.submit(() -> encoder.encode("password")));
+            Thread.sleep(100);
+        }
+
+        // Assert
+        assertThrows(PasswordHashingBusyException.class, () -> encoder.encode("password"));
+        assertEquals(1, meterRegistry.counter("library.passwords.rejected").count(), 0);
+        assertEquals(1, meterRegistry.get("library.passwords.queue").gauge().value(), 0);
+        assertFalse(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("password")));
+
+        for (Future<String> hash : hashes) {
+            assertTrue(hash.get(1, TimeUnit.MINUTES).startsWith("$2a$14$"));
+        }
+        callers.shutdown();
+    }
+}
@@ -0,0 +1,128 @@
+package com.epam.library.unit.config;
+
+import com.epam.library.config.JobLock;
+import com.epam.library.config.JobLockAspect;
+import com.epam.library.service.JobLeaseService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JobLockAspectTest {
+
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+    @Mock
+    private MethodSignature signature;
+    @Mock
+    private JobLeaseService leases;
+    @Mock
+    private JobLock jobLock;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final Duration lease = Duration.ofMinutes(10);
+
+    private JobLockAspect aspect;
+
+    @Before
+    public void setUp() {
+        aspect = new JobLockAspect(leases, meterRegistry, lease, Duration.ofMinutes(1));
+        Mockito.lenient().when(joinPoint.getSignature()).thenReturn(signature);
+        Mockito.lenient().when(jobLock.value()).thenReturn("fines");
+        Mockito.lenient().when(jobLock.holdAtLeast()).thenReturn(true);
+    }
+
+    @After
+    public void tearDown() {
+        aspect.shutdown();
+    }
+
+    private double runs(String outcome) {
+        return meterRegistry.counter("library.jobs.runs", "job", "fines", "outcome", outcome).count();
+    }
+
+    @Test
+    public void testRunWithLease() throws Throwable {
+        // Arrange
+        Instant start = Instant.now();
+        Mockito.when(leases.acquire("fines", lease)).thenReturn(true);
+        Mockito.when(joinPoint.proceed()).thenReturn(5);
+
+        // Act
+        Object result = aspect.lock(joinPoint, jobLock);
+
+        // Assert
+        assertEquals(5, result);
+        Mockito.verify(leases).release(Mockito.eq("fines"), Mockito.argThat(until ->
+                !until.isBefore(start.plus(Duration.ofMinutes(1)))));
+        assertEquals(1, runs("success"), 0);
+    }
+
+    @Test
+    public void testReleaseWithoutHold() throws Throwable {
+        // Arrange
+        Mockito.when(jobLock.holdAtLeast()).thenReturn(false);
+        Mockito.when(leases.acquire("fines", lease)).thenReturn(true);
+
+        // Act
+        aspect.lock(joinPoint, jobLock);
+
+        // Assert
+        Mockito.verify(leases).release(Mockito.eq("fines"), Mockito.argThat(until ->
+                until.isBefore(Instant.now().plusSeconds(1))));
+    }
+
+    @Test
+    public void testSkipWithoutLease() throws Throwable {
+        // Arrange
+        Mockito.when(leases.acquire("fines", lease)).thenReturn(false);
+        Mockito.when(signature.getReturnType()).thenReturn((Class) int.class);
+
+        // Act
+        Object result = aspect.lock(joinPoint, jobLock);
+
+        // Assert
+        assertEquals(0, result);
+        Mockito.verify(joinPoint, Mockito.never()).proceed();
+        Mockito.verify(leases, Mockito.never()).release(Mockito.any(), Mockito.any());
+        assertEquals(1, runs("skipped"), 0);
+    }
+
+    @Test
+    public void testSkipVoidJob() throws Throwable {
+        // Arrange
+        Mockito.when(leases.acquire("fines", lease)).thenReturn(false);
+        Mockito.when(signature.getReturnType()).thenReturn((Class) void.class);
+
+        // Act & Assert
+        assertNull(aspect.lock(joinPoint, jobLock));
+    }
+
+    @Test
+    public void testReleaseAfterFailure() throws Throwable {
+        // Arrange
+        IllegalStateException failure = new IllegalStateException("Lock wait timeout");
+        Mockito.when(leases.acquire("fines", lease)).thenReturn(true);
+        Mockito.when(joinPoint.proceed()).thenThrow(failure);
+        Mockito.doThrow(new IllegalStateException("Connection lost")).when(leases)
+                .release(Mockito.eq("fines"), Mockito.any());
+
+        // Act & Assert
+        assertSame(failure, assertThrows(IllegalStateException.class, () -> aspect.lock(joinPoint, jobLock)));
+        Mockito.verify(leases).release(Mockito.eq("fines"), Mockito.any());
+        assertEquals(1, runs("failure"), 0);
+    }
+}
@@ -0,0 +1,78 @@
+package com.epam.library.unit.config;
+
+import com.epam.library.config.LoginRateLimitFilter;
+import com.epam.library.service.LoginRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.Assert.*;
+
+public class LoginRateLimitFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static MockHttpServletRequest request(String method, String path, String ip) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setRemoteAddr(ip);
+        return request;
+    }
+
+    private MockHttpServletResponse filter(LoginRateLimitFilter filter, MockHttpServletRequest request)
+            throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+
+    @Test
+    public void testLoginLimitedByIp() throws Exception {
+        // Arrange
+        LoginRateLimitFilter filter = new LoginRateLimitFilter(new LoginRateLimiter(2, 1, 10, 1, 1024, 1024), meterRegistry);
+
+        // Act
+        filter(filter, request("POST", "/login", "10.0.0.1"));
+        filter(filter, request("POST", "/login", "10.0.0.1"));
+        MockHttpServletResponse response = filter(filter, request("POST", "/login", "10.0.0.1"));
+
+        // Assert
+        assertEquals(429, response.getStatus());
+        assertEquals("60", response.getHeader("Retry-After"));
+        assertEquals(1, meterRegistry.counter("library.logins.limited", "path", "login", "scope", "ip")
+                .count(), 0);
+        assertEquals(200, filter(filter, request("POST", "/login", "10.0.0.2")).getStatus());
+    }
+
+    @Test
+    public void testRegisterLimitedByAccount() throws Exception {
+        // Arrange
+        LoginRateLimitFilter filter = new LoginRateLimitFilter(new LoginRateLimiter(10, 1, 1, 1, 1024, 1024), meterRegistry);
+        MockHttpServletRequest first = request("POST", "/register", "10.0.0.1");
+        first.setParameter("email", "johndoe@example.com");
+        MockHttpServletRequest second = request("POST", "/register", "10.0.0.2");
+        second.setParameter("email", " JohnDoe@example.com");
+
+        // Act
+        filter(filter, first);
+        MockHttpServletResponse response = filter(filter, second);
+
+        // Assert
+        assertEquals(429, response.getStatus());
+        assertEquals(1, meterRegistry.counter("library.logins.limited", "path", "register", "scope", "account")
+                .count(), 0);
+    }
+
+    @Test
+    public void testOtherRequestsNotLimited() throws Exception {
+        // Arrange
+        LoginRateLimitFilter filter = new LoginRateLimitFilter(new LoginRateLimiter(1, 1, 1, 1, 1024, 1024), meterRegistry);
+
+        // Act and Assert
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, filter(filter, request("GET", "/login", "10.0.0.1")).getStatus());
+            assertEquals(200, filter(filter, request("POST", "/order", "10.0.0.1")).getStatus());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.epam.library.unit.config;
+
+import com.epam.library.config.RetryOnConflictAspect;
+import com.epam.library.entity.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RetryOnConflictAspectTest {
+
+    @Mock
+    private ProceedingJoinPoint joinPoint;
+    @Mock
+    private Signature signature;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final RetryOnConflictAspect aspect = new RetryOnConflictAspect(meterRegistry, 3, Duration.ZERO);
+
+    private final ObjectOptimisticLockingFailureException conflict =
+            new ObjectOptimisticLockingFailureException(Book.class, 42);
+
+    @Before
+    public void setUp() {
+        Mockito.lenient().when(joinPoint.getSignature()).thenReturn(signature);
+        Mockito.lenient().when(signature.getDeclaringType()).thenReturn(String.class);
+        Mockito.lenient().when(signature.getName()).thenReturn("edit");
+        Mockito.lenient().when(joinPoint.getArgs()).thenReturn(new Object[] {42, "Title"});
+    }
+
+    private double count(String name) {
+        return meterRegistry.find(name).counters().stream().mapToDouble(c -> c.count()).sum();
+    }
+
+    @Test
+    public void testRetryUntilSuccess() throws Throwable {
+        // Arrange
+        Mockito.when(joinPoint.proceed()).thenThrow(conflict).thenThrow(conflict).thenReturn("edited");
+
+        // Act
+        Object result = aspect.retry(joinPoint);
+
+        // Assert
+        assertEquals("edited", result);
+        Mockito.verify(joinPoint, Mockito.times(3)).proceed();
+        assertEquals(2, count("library.lock.conflicts"), 0);
+        assertEquals(2, count("library.lock.retries"), 0);
+        assertNotNull(meterRegistry.find("library.lock.conflicts")
+                .tags("operation", "String.edit").counter());
+    }
+
+    @Test
+    public void testGiveUpAfterMaxAttempts() throws Throwable {
+        // Arrange
+        Mockito.when(joinPoint.proceed()).thenThrow(conflict);
+
+        // Act & Assert
+        assertSame(conflict, assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> aspect.retry(joinPoint)));
+        Mockito.verify(joinPoint, Mockito.times(3)).proceed();
+        assertEquals(3, count("library.lock.conflicts"), 0);
+        assertEquals(2, count("library.lock.retries"), 0);
+    }
+
+    @Test
+    public void testOtherExceptionsAreNotRetried() throws Throwable {
+        // Arrange
+        Mockito.when(joinPoint.proceed()).thenThrow(new IllegalStateException());
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> aspect.retry(joinPoint));
+        Mockito.verify(joinPoint).proceed();
+        assertEquals(0, count("library.lock.conflicts"), 0);
+    }
+
+    @Test
+    public void testNoRetryInsideTransaction() throws Throwable {
+        // Arrange
+        Mockito.when(joinPoint.proceed()).thenThrow(conflict);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        try {
+            // Act & Assert
+            assertThrows(ObjectOptimisticLockingFailureException.class, () -> aspect.retry(joinPoint));
+            Mockito.verify(joinPoint).proceed();
+            assertEquals(0, count("library.lock.conflicts"), 0);
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+    }
+}
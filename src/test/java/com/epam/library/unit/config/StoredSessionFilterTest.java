@@ -0,0 +1,153 @@
+package com.epam.library.unit.config;
+
+import com.epam.library.config.StoredSessionFilter;
+import com.epam.library.service.SessionStore;
+import com.epam.library.service.StoredSession;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class StoredSessionFilterTest {
+
+    @Mock
+    private SessionStore store;
+
+    private final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/books");
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    private void filter(Consumer<HttpServletRequest> handler) throws Exception {
+        new StoredSessionFilter(store, Duration.ofMinutes(30))
+                .doFilter(request, response, (req, res) -> handler.accept((HttpServletRequest) req));
+    }
+
+    private StoredSession stored(long lastAccessedTime) {
+        StoredSession session = new StoredSession("abc", lastAccessedTime, lastAccessedTime, 1800,
+                Map.of("name", "value"));
+        request.setCookies(new Cookie("SESSION", "abc"));
+        Mockito.when(store.load(ArgumentMatchers.eq("abc"), ArgumentMatchers.anyLong())).thenReturn(session);
+        return session;
+    }
+
+    @Test
+    public void testNewSessionIsSaved() throws Exception {
+        // Act
+        filter(req -> req.getSession().setAttribute("name", "value"));
+
+        // Assert
+        ArgumentCaptor<StoredSession> saved = ArgumentCaptor.forClass(StoredSession.class);
+        Mockito.verify(store).save(saved.capture(), ArgumentMatchers.isNull());
+        assertEquals("value", saved.getValue().getAttributes().get("name"));
+        assertEquals(1800, saved.getValue().getMaxInactiveInterval());
+        String cookie = response.getHeader(HttpHeaders.SET_COOKIE);
+        assertTrue(cookie.startsWith("SESSION=" + saved.getValue().getId()));
+        assertTrue(cookie.contains("HttpOnly"));
+        assertTrue(cookie.contains("SameSite=Lax"));
+    }
+
+    @Test
+    public void testNoSessionIsNotStored() throws Exception {
+        // Act
+        filter(req -> assertNull(req.getSession(false)));
+
+        // Assert
+        Mockito.verifyNoInteractions(store);
+        assertNull(response.getHeader(HttpHeaders.SET_COOKIE));
+    }
+
+    @Test
+    public void testStoredSessionIsLoaded() throws Exception {
+        // Arrange
+        stored(System.currentTimeMillis());
+
+        // Act
+        filter(req -> {
+            HttpSession session = req.getSession(false);
+            assertEquals("value", session.getAttribute("name"));
+            assertFalse(session.isNew());
+            assertTrue(req.isRequestedSessionIdValid());
+        });
+
+        // Assert
+        Mockito.verify(store, Mockito.never()).save(ArgumentMatchers.any(), ArgumentMatchers.any());
+        Mockito.verify(store, Mockito.never()).touch(ArgumentMatchers.any());
+        assertNull(response.getHeader(HttpHeaders.SET_COOKIE));
+    }
+
+    @Test
+    public void testReadSessionIsTouchedOncePerMinute() throws Exception {
+        // Arrange
+        StoredSession session = stored(System.currentTimeMillis() - Duration.ofMinutes(2).toMillis());
+
+        // Act
+        filter(req -> req.getSession().getAttribute("name"));
+
+        // Assert
+        Mockito.verify(store).touch(session);
+        Mockito.verify(store, Mockito.never()).save(ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+
+    @Test
+    public void testChangedSessionIdReplacesStoredSession() throws Exception {
+        // Arrange
+        StoredSession session = stored(System.currentTimeMillis());
+
+        // Act
+        filter(HttpServletRequest::changeSessionId);
+
+        // Assert
+        assertNotEquals("abc", session.getId());
+        Mockito.verify(store).save(session, "abc");
+        assertTrue(response.getHeader(HttpHeaders.SET_COOKIE).startsWith("SESSION=" + session.getId()));
+    }
+
+    @Test
+    public void testInvalidatedSessionIsDeleted() throws Exception {
+        // Arrange
+        stored(System.currentTimeMillis());
+
+        // Act
+        filter(req -> {
+            req.getSession().invalidate();
+            assertNull(req.getSession(false));
+        });
+
+        // Assert
+        Mockito.verify(store).delete("abc");
+        Mockito.verify(store, Mockito.never()).save(ArgumentMatchers.any(), ArgumentMatchers.any());
+        assertTrue(response.getHeader(HttpHeaders.SET_COOKIE).contains("Max-Age=0"));
+    }
+
+    @Test
+    public void testExpiredSessionIsReplaced() throws Exception {
+        // Arrange
+        request.setCookies(new Cookie("SESSION", "expired"));
+
+        // Act
+        filter(req -> {
+            assertTrue(req.getSession().isNew());
+            assertFalse(req.isRequestedSessionIdValid());
+        });
+
+        // Assert
+        ArgumentCaptor<StoredSession> saved = ArgumentCaptor.forClass(StoredSession.class);
+        Mockito.verify(store).save(saved.capture(), ArgumentMatchers.isNull());
+        assertNotEquals("expired", saved.getValue().getId());
+    }
+}
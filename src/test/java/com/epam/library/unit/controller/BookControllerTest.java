@@ -2,6 +2,8 @@ package com.epam.library.unit.controller;
 
 import com.epam.library.controller.BookController;
 import com.epam.library.entity.Book;
+import com.epam.library.service.BookExportService;
+import com.epam.library.service.BookImportService;
 import com.epam.library.service.BookService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -11,12 +13,23 @@ import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.ui.Model;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 @RunWith(MockitoJUnitRunner.class)
 public class BookControllerTest {
@@ -27,6 +40,10 @@ public class BookControllerTest {
     RedirectAttributes redirectAttributes;
     @Mock
     private BookService bookService;
+    @Mock
+    private BookImportService bookImportService;
+    @Mock
+    private BookExportService bookExportService;
     @InjectMocks
     private BookController controller;
 
@@ -64,6 +81,38 @@ public class BookControllerTest {
                 Mockito.anyInt(), Mockito.anyString(), Mockito.anyString());
     }
 
+    @Test
+    public void testBooksAfter() {
+        // Arrange
+        Book book = new Book();
+        Mockito.when(bookService.getBooksAfter("", "", "cursor", "title", "asc"))
+                .thenReturn(new SliceImpl<>(List.of(book), PageRequest.of(0, 5), true));
+        Mockito.when(bookService.cursorAfter(book, "title", "asc")).thenReturn("next");
+
+        // Act
+        String result = controller.booksAfter("cursor", "title", "asc", "", "",
+                redirectAttributes, model);
+
+        // Assert
+        assertEquals("books", result);
+        Mockito.verify(model).addAttribute("nextCursor", "next");
+    }
+
+    @Test
+    public void testBooksAfterError() {
+        // Arrange
+        Mockito.when(bookService.getBooksAfter("", "", "invalid", "title", "asc"))
+                .thenThrow(new IllegalArgumentException());
+
+        // Act
+        String result = controller.booksAfter("invalid", "title", "asc", "", "",
+                redirectAttributes, model);
+
+        // Assert
+        assertEquals("redirect:error", result);
+        Mockito.verify(redirectAttributes).addFlashAttribute("msg_code", "invalid_page");
+    }
+
     @Test
     public void testAddBookPage() {
         // Act
@@ -103,6 +152,90 @@ public class BookControllerTest {
         Mockito.verify(redirectAttributes).addFlashAttribute("msg_code", "invalid_input");
     }
 
+    @Test
+    public void testImportBooks() throws Exception {
+        // Arrange
+        MockMultipartFile file = new MockMultipartFile("file", "books.json", "application/json", "[]".getBytes());
+        BookImportService.ImportResult imported = new BookImportService.ImportResult(3, 2, 1, 0);
+        Mockito.when(bookImportService.importBooks(Mockito.any(InputStream.class),
+                Mockito.eq(BookImportService.Format.JSON))).thenReturn(imported);
+
+        // Act
+        String result = controller.importBooks(file, redirectAttributes);
+
+        // Assert
+        assertEquals("redirect:add-book", result);
+        Mockito.verify(redirectAttributes).addFlashAttribute("imported", imported);
+    }
+
+    @Test
+    public void testImportBooks_Error() throws Exception {
+        // Arrange
+        MockMultipartFile file = new MockMultipartFile("file", "books.csv", "text/csv", "\"".getBytes());
+        Mockito.when(bookImportService.importBooks(Mockito.any(InputStream.class),
+                Mockito.eq(BookImportService.Format.CSV))).thenThrow(new IOException());
+
+        // Act
+        String result = controller.importBooks(file, redirectAttributes);
+
+        // Assert
+        assertEquals("redirect:error", result);
+        Mockito.verify(redirectAttributes).addFlashAttribute("msg_code", "invalid_input");
+    }
+
+    @Test
+    public void testExportBooks() throws Exception {
+        // Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Mockito.when(bookExportService.export(Mockito.any(OutputStream.class),
+                Mockito.eq(BookExportService.Format.CSV))).thenAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write("title\n".getBytes(StandardCharsets.UTF_8));
+            return 0;
+        });
+
+        // Act
+        String result = controller.exportBooks("csv", false, response, redirectAttributes);
+
+        // Assert
+        assertNull(result);
+        assertEquals("text/csv;charset=UTF-8", response.getContentType());
+        assertEquals("attachment; filename=\"books.csv\"", response.getHeader("Content-Disposition"));
+        assertEquals("title\n", response.getContentAsString());
+    }
+
+    @Test
+    public void testExportBooks_Gzip() throws Exception {
+        // Arrange
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        Mockito.when(bookExportService.export(Mockito.any(OutputStream.class),
+                Mockito.eq(BookExportService.Format.NDJSON))).thenAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write("{}\n".getBytes(StandardCharsets.UTF_8));
+            return 1;
+        });
+
+        // Act
+        String result = controller.exportBooks("ndjson", true, response, redirectAttributes);
+
+        // Assert
+        assertNull(result);
+        assertEquals("application/gzip", response.getContentType());
+        assertEquals("attachment; filename=\"books.ndjson.gz\"", response.getHeader("Content-Disposition"));
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertEquals("{}\n", new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    public void testExportBooks_Error() throws Exception {
+        // Act
+        String result = controller.exportBooks("xml", false, new MockHttpServletResponse(), redirectAttributes);
+
+        // Assert
+        assertEquals("redirect:error", result);
+        Mockito.verify(redirectAttributes).addFlashAttribute("msg_code", "invalid_input");
+        Mockito.verifyNoInteractions(bookExportService);
+    }
+
     @Test
     public void testEditBookPage() throws Exception {
         // Assert
@@ -1,23 +1,39 @@
 package com.epam.library.unit.controller;
 
 import com.epam.library.controller.SubscriptionController;
+import com.epam.library.dto.HoldView;
+import com.epam.library.dto.OrderResult;
+import com.epam.library.dto.SubscriptionView;
 import com.epam.library.entity.Subscription;
 import com.epam.library.entity.User;
+import com.epam.library.service.FineService;
+import com.epam.library.service.HoldService;
+import com.epam.library.service.OrderKeyCache;
 import com.epam.library.service.SubscriptionService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.ui.Model;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 
@@ -27,6 +43,13 @@ public class SubscriptionControllerTest {
     @Mock
     private SubscriptionService subscriptionService;
     @Mock
+    private HoldService holdService;
+    @Mock
+    private FineService fineService;
+    @Spy
+    private OrderKeyCache orderKeyCache = new OrderKeyCache(100, Duration.ofMinutes(10), Duration.ofMinutes(1),
+            new SimpleMeterRegistry());
+    @Mock
     private Model model;
     @Mock
     private RedirectAttributes attributes;
@@ -44,17 +67,38 @@ public class SubscriptionControllerTest {
                 ));
 
         String expectedViewName = "librarian_subscriptions";
-        List<Subscription> subscriptions = new ArrayList<>();
-        subscriptions.add(new Subscription());
+        List<SubscriptionView> subscriptions = new ArrayList<>();
+        subscriptions.add(new SubscriptionView(1, "The Hobbit", "J.R.R. Tolkien", 1937,
+                "Jack Doe", "jackdoe@example.com", false, null, 0, null, 0));
 
-        Mockito.when(subscriptionService.findAll()).thenReturn(subscriptions);
+        Mockito.when(subscriptionService.findViews("", "", 1))
+                .thenReturn(new SliceImpl<>(subscriptions, PageRequest.of(0, 20), false));
 
         // Act
-        String actualViewName = controller.subscriptions(userDetails, model);
+        String actualViewName = controller.subscriptions(userDetails, 1, "", "", attributes, model);
 
         // Assert
         assertEquals(expectedViewName, actualViewName);
         Mockito.verify(model).addAttribute("subscriptions", subscriptions);
+        Mockito.verify(model).addAttribute("hasNext", false);
+    }
+
+    @Test
+    public void testSubscriptionsAdminInvalidPage() {
+        // Arrange
+        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
+                "johndoe@example.com",
+                "password",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_LIBRARIAN")));
+
+        Mockito.when(subscriptionService.findViews("", "", 0)).thenThrow(new IllegalArgumentException());
+
+        // Act
+        String actualViewName = controller.subscriptions(userDetails, 0, "", "", attributes, model);
+
+        // Assert
+        assertEquals("redirect:error", actualViewName);
+        Mockito.verify(attributes).addFlashAttribute("msg_code", "invalid_page");
     }
 
     @Test
@@ -71,14 +115,20 @@ public class SubscriptionControllerTest {
         List<Subscription> subscriptions = new ArrayList<>();
         subscriptions.add(new Subscription());
 
+        List<HoldView> holds = List.of(new HoldView("The Hobbit", "J.R.R. Tolkien", 1937, 2, LocalDateTime.now()));
+
         Mockito.when(subscriptionService.findByUserEmail(userDetails.getUsername())).thenReturn(subscriptions);
+        Mockito.when(holdService.findViewsByUserEmail(userDetails.getUsername())).thenReturn(holds);
+        Mockito.when(fineService.finesOf(subscriptions)).thenReturn(Map.of(1, 20L));
 
         // Act
-        String actualViewName = controller.subscriptions(userDetails, model);
+        String actualViewName = controller.subscriptions(userDetails, 1, "", "", attributes, model);
 
         // Assert
         assertEquals(expectedViewName, actualViewName);
         Mockito.verify(model).addAttribute("subscriptions", subscriptions);
+        Mockito.verify(model).addAttribute("holds", holds);
+        Mockito.verify(model).addAttribute("fines", Map.of(1, 20L));
     }
 
     @Test
@@ -107,13 +157,118 @@ public class SubscriptionControllerTest {
         Integer bookId = 1;
         Subscription subscription = new Subscription();
 
-        Mockito.when(subscriptionService.orderBook(userDetails, bookId)).thenReturn(subscription);
+        Mockito.when(subscriptionService.orderBook(userDetails, bookId, null)).thenReturn(OrderResult.ordered(subscription));
 
         // Act
-        String actualViewName = controller.orderBook(userDetails, bookId, attributes);
+        String actualViewName = controller.orderBook(userDetails, bookId, "", attributes);
 
         // Assert
         assertEquals(expectedViewName, actualViewName);
+        Mockito.verifyNoInteractions(attributes);
+    }
+
+    @Test
+    public void testOrderBookQueued() throws Exception {
+        // Arrange
+        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
+                "johndoe@example.com",
+                "password",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_READER")));
+
+        Integer bookId = 1;
+
+        Mockito.when(subscriptionService.orderBook(userDetails, bookId, null)).thenReturn(OrderResult.queued(4));
+
+        // Act
+        String actualViewName = controller.orderBook(userDetails, bookId, "", attributes);
+
+        // Assert
+        assertEquals("redirect:order", actualViewName);
+        Mockito.verify(attributes).addFlashAttribute("queue_position", 4);
+    }
+
+    @Test
+    public void testOrderBookRepeatedKey() throws Exception {
+        // Arrange
+        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
+                "johndoe@example.com",
+                "password",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_READER")));
+
+        Mockito.when(subscriptionService.orderBook(userDetails, 1, "key1"))
+                .thenReturn(OrderResult.ordered(new Subscription()));
+
+        // Act
+        String first = controller.orderBook(userDetails, 1, "key1", attributes);
+        String second = controller.orderBook(userDetails, 1, "key1", attributes);
+
+        // Assert
+        assertEquals("redirect:order", first);
+        assertEquals("redirect:order", second);
+        Mockito.verify(subscriptionService, Mockito.times(1)).orderBook(userDetails, 1, "key1");
+    }
+
+    @Test
+    public void testOrderBookConcurrentKey() throws Exception {
+        // Arrange
+        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
+                "johndoe@example.com",
+                "password",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_READER")));
+
+        // The key was inserted by another node, the retry finds its subscription
+        Mockito.when(subscriptionService.orderBook(userDetails, 1, "key1"))
+                .thenThrow(violation("subscriptions.subscriptions_user_id_order_key_idx"))
+                .thenReturn(OrderResult.ordered(new Subscription()));
+
+        // Act
+        String actualViewName = controller.orderBook(userDetails, 1, "key1", attributes);
+
+        // Assert
+        assertEquals("redirect:order", actualViewName);
+        Mockito.verify(subscriptionService, Mockito.times(2)).orderBook(userDetails, 1, "key1");
+    }
+
+    @Test
+    public void testOrderBookOtherViolationNotRepeated() throws Exception {
+        // Arrange
+        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
+                "johndoe@example.com",
+                "password",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_READER")));
+
+        Mockito.when(subscriptionService.orderBook(userDetails, 1, "key1"))
+                .thenThrow(violation("holds.user_id"));
+
+        // Act
+        String actualViewName = controller.orderBook(userDetails, 1, "key1", attributes);
+
+        // Assert
+        assertEquals("redirect:error", actualViewName);
+        Mockito.verify(attributes).addFlashAttribute("msg_code", "cant_order");
+        Mockito.verify(subscriptionService, Mockito.times(1)).orderBook(userDetails, 1, "key1");
+    }
+
+    private static DataIntegrityViolationException violation(String constraint) {
+        return new DataIntegrityViolationException("Duplicate entry", new ConstraintViolationException(
+                "Duplicate entry", new SQLException("Duplicate entry for key '" + constraint + "'"), constraint));
+    }
+
+    @Test
+    public void testOrderBookKeyTooLong() {
+        // Arrange
+        UserDetails userDetails = new org.springframework.security.core.userdetails.User(
+                "johndoe@example.com",
+                "password",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_READER")));
+
+        // Act
+        String actualViewName = controller.orderBook(userDetails, 1, "k".repeat(65), attributes);
+
+        // Assert
+        assertEquals("redirect:error", actualViewName);
+        Mockito.verify(attributes).addFlashAttribute("msg_code", "invalid_input");
+        Mockito.verifyNoInteractions(subscriptionService);
     }
 
     @Test
@@ -129,10 +284,10 @@ public class SubscriptionControllerTest {
         String expectedViewName = "redirect:error";
         Integer bookId = 1;
 
-        Mockito.when(subscriptionService.orderBook(userDetails, bookId)).thenThrow(new Exception());
+        Mockito.when(subscriptionService.orderBook(userDetails, bookId, null)).thenThrow(new Exception());
 
         // Act
-        String actualViewName = controller.orderBook(userDetails, bookId, attributes);
+        String actualViewName = controller.orderBook(userDetails, bookId, "", attributes);
 
         // Assert
         assertEquals(expectedViewName, actualViewName);
@@ -171,4 +326,77 @@ public class SubscriptionControllerTest {
         assertEquals(expectedViewName, actualViewName);
         Mockito.verify(attributes).addFlashAttribute("msg_code", "cant_approve");
     }
+
+    @Test
+    public void testReturnBooks() {
+        // Arrange
+        List<Integer> subscriptionIds = List.of(1, 2);
+
+        Mockito.when(subscriptionService.returnBooks(subscriptionIds)).thenReturn(2);
+
+        // Act
+        String actualViewName = controller.returnBooks(subscriptionIds, attributes);
+
+        // Assert
+        assertEquals("redirect:subscriptions", actualViewName);
+    }
+
+    @Test
+    public void testReturnBooksNothingReturned() {
+        // Arrange
+        List<Integer> subscriptionIds = List.of(1);
+
+        Mockito.when(subscriptionService.returnBooks(subscriptionIds)).thenReturn(0);
+
+        // Act
+        String actualViewName = controller.returnBooks(subscriptionIds, attributes);
+
+        // Assert
+        assertEquals("redirect:error", actualViewName);
+        Mockito.verify(attributes).addFlashAttribute("msg_code", "cant_return");
+    }
+
+    @Test
+    public void testApproveSubscriptions() {
+        // Arrange
+        List<Integer> subscriptionIds = List.of(1, 2);
+        Map<Integer, SubscriptionService.ApprovalResult> results = Map.of(
+                1, SubscriptionService.ApprovalResult.APPROVED, 2, SubscriptionService.ApprovalResult.NOT_FOUND);
+
+        Mockito.when(subscriptionService.approveSubscriptions(subscriptionIds)).thenReturn(results);
+
+        // Act
+        String actualViewName = controller.approveSubscriptions(subscriptionIds, "", attributes);
+
+        // Assert
+        assertEquals("redirect:subscriptions", actualViewName);
+        Mockito.verify(attributes).addFlashAttribute("approval", results);
+    }
+
+    @Test
+    public void testApproveSubscriptionsOfUser() {
+        // Arrange
+        Map<Integer, SubscriptionService.ApprovalResult> results = Map.of(
+                3, SubscriptionService.ApprovalResult.APPROVED);
+
+        Mockito.when(subscriptionService.approvePendingOf("jackdoe@example.com")).thenReturn(results);
+
+        // Act
+        String actualViewName = controller.approveSubscriptions(null, "jackdoe@example.com", attributes);
+
+        // Assert
+        assertEquals("redirect:subscriptions", actualViewName);
+        Mockito.verify(attributes).addFlashAttribute("approval", results);
+    }
+
+    @Test
+    public void testApproveSubscriptionsWithoutInput() {
+        // Act
+        String actualViewName = controller.approveSubscriptions(List.of(), "", attributes);
+
+        // Assert
+        assertEquals("redirect:error", actualViewName);
+        Mockito.verify(attributes).addFlashAttribute("msg_code", "invalid_input");
+        Mockito.verifyNoInteractions(subscriptionService);
+    }
 }
\ No newline at end of file
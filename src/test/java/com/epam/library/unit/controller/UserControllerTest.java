@@ -1,7 +1,10 @@
 package com.epam.library.unit.controller;
 
+import com.epam.library.config.PasswordHashingBusyException;
 import com.epam.library.controller.UserController;
+import com.epam.library.dto.UserView;
 import com.epam.library.entity.User;
+import com.epam.library.service.FineService;
 import com.epam.library.service.UserService;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -9,17 +12,21 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.ui.Model;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
 
 @RunWith(MockitoJUnitRunner.class)
 public class UserControllerTest {
@@ -27,6 +34,8 @@ public class UserControllerTest {
     @Mock
     private UserService userService;
     @Mock
+    private FineService fineService;
+    @Mock
     private Model model;
     @Mock
     private RedirectAttributes attributes;
@@ -82,6 +91,21 @@ public class UserControllerTest {
         Mockito.verify(attributes).addFlashAttribute("error", true);
     }
 
+    @Test
+    public void testRegisterWhenHashingBusy() throws Exception {
+        // Arrange
+        Mockito.when(userService.register("John Doe", "johndoe@example.com", "password123"))
+                .thenThrow(new PasswordHashingBusyException("Password hashing queue is full"));
+
+        // Act
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> controller.registerUser("John Doe", "johndoe@example.com", "password123", attributes));
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, e.getStatusCode());
+        Mockito.verifyNoInteractions(attributes);
+    }
+
     @Test
     public void testAccount() {
         // Arrange
@@ -97,6 +121,7 @@ public class UserControllerTest {
                 ));
 
         Mockito.when(userService.findByEmail(email)).thenReturn(user);
+        Mockito.when(fineService.fineOf(user)).thenReturn(30L);
 
         // Act
         String actualViewName = controller.account(userDetails, attributes, model);
@@ -104,6 +129,7 @@ public class UserControllerTest {
         // Assert
         assertEquals("account", actualViewName);
         Mockito.verify(model).addAttribute("user", user);
+        Mockito.verify(model).addAttribute("fine", 30L);
     }
 
     @Test
@@ -131,17 +157,34 @@ public class UserControllerTest {
     @Test
     public void testReaders() {
         // Arrange
-        List<User> users = new ArrayList<>();
-        users.add(new User());
+        List<UserView> users = List.of(
+                new UserView(1, "John Doe", "johndoe@example.com", User.Role.READER, true, 0));
 
-        Mockito.when(userService.findAllNotAdmin()).thenReturn(users);
+        Mockito.when(userService.findViews("John", "", true, false, 1))
+                .thenReturn(new SliceImpl<>(users, PageRequest.of(0, 20), true));
 
         // Act
-        String actualViewName = controller.users(model);
+        String actualViewName = controller.users(1, "John", "", true, false, attributes, model);
 
         // Assert
         assertEquals("users", actualViewName);
         Mockito.verify(model).addAttribute("users", users);
+        Mockito.verify(model).addAttribute("hasNext", true);
+        Mockito.verify(model).addAttribute("name", "John");
+        Mockito.verify(model).addAttribute("blocked", true);
+    }
+
+    @Test
+    public void testReadersInvalidPage() {
+        // Arrange
+        Mockito.when(userService.findViews("", "", false, false, 0)).thenThrow(new IllegalArgumentException());
+
+        // Act
+        String actualViewName = controller.users(0, "", "", false, false, attributes, model);
+
+        // Assert
+        assertEquals("redirect:error", actualViewName);
+        Mockito.verify(attributes).addFlashAttribute("msg_code", "invalid_page");
     }
 
     @Test
@@ -0,0 +1,69 @@
+package com.epam.library.unit.service;
+
+import com.epam.library.repository.UserRepository;
+import com.epam.library.service.BlockedUsers;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BlockedUsersTest {
+
+    @Mock
+    private UserRepository repo;
+    @InjectMocks
+    private BlockedUsers blockedUsers;
+
+    @Test
+    public void testReload() {
+        // Arrange
+        Mockito.when(repo.findBlockedIds()).thenReturn(List.of(7, 3, 5));
+
+        // Act
+        blockedUsers.reload();
+
+        // Assert
+        assertTrue(blockedUsers.contains(3));
+        assertTrue(blockedUsers.contains(7));
+        assertFalse(blockedUsers.contains(4));
+        assertEquals(3, blockedUsers.size());
+    }
+
+    @Test
+    public void testUpdate() {
+        // Act
+        blockedUsers.update(5, true);
+        blockedUsers.update(2, true);
+        blockedUsers.update(9, true);
+        blockedUsers.update(5, true);
+        blockedUsers.update(2, false);
+
+        // Assert
+        assertTrue(blockedUsers.contains(5));
+        assertTrue(blockedUsers.contains(9));
+        assertFalse(blockedUsers.contains(2));
+        assertEquals(2, blockedUsers.size());
+    }
+
+    @Test
+    public void testReloadStartedBeforeUpdateKeepsIt() {
+        // Arrange
+        Mockito.when(repo.findBlockedIds()).thenAnswer(invocation -> {
+            blockedUsers.update(4, true);
+            return List.of();
+        });
+
+        // Act
+        blockedUsers.reload();
+
+        // Assert
+        assertTrue(blockedUsers.contains(4));
+    }
+}
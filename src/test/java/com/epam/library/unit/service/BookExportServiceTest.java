@@ -0,0 +1,115 @@
+package com.epam.library.unit.service;
+
+import com.epam.library.entity.Book;
+import com.epam.library.repository.BookRepository;
+import com.epam.library.service.BookExportService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BookExportServiceTest {
+
+    @Mock
+    private BookRepository repo;
+    @Mock
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private BookExportService exportService;
+
+    @Before
+    public void setUp() {
+        exportService = new BookExportService(repo, entityManager, objectMapper, new SimpleMeterRegistry());
+    }
+
+    private static Book book(int id, String title, String author) {
+        Book book = new Book(title, author, 2000 + id);
+        book.setId(id);
+        book.setNumOfCopies(3);
+        book.setAvailableCopies(2);
+        return book;
+    }
+
+    @Test
+    public void testExportCsv() throws IOException {
+        // Arrange
+        AtomicBoolean closed = new AtomicBoolean();
+        Mockito.when(repo.streamAll()).thenReturn(Stream.of(book(1, "Plain", "Author"),
+                book(2, "War, and \"Peace\"", "Leo Tolstoy")).onClose(() -> closed.set(true)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        int count = exportService.export(out, BookExportService.Format.CSV);
+
+        // Assert
+        assertEquals(2, count);
+        assertEquals("""
+                title,author,publicationYear,copies,availableCopies,id
+                Plain,Author,2001,3,2,1
+                "War, and ""Peace\""",Leo Tolstoy,2002,3,2,2
+                """, out.toString(StandardCharsets.UTF_8));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void testExportNdjson() throws IOException {
+        // Arrange
+        Mockito.when(repo.streamAll()).thenReturn(Stream.of(book(1, "Тихий сад", "Олена \"О\" Мельник"),
+                book(2, "B", "C")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        int count = exportService.export(out, BookExportService.Format.NDJSON);
+
+        // Assert
+        assertEquals(2, count);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n", -1);
+        assertEquals(3, lines.length);
+        assertEquals("", lines[2]);
+
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1, first.get("id").asInt());
+        assertEquals("Тихий сад", first.get("title").asText());
+        assertEquals("Олена \"О\" Мельник", first.get("author").asText());
+        assertEquals(3, first.get("copies").asInt());
+        assertEquals(2, objectMapper.readTree(lines[1]).get("id").asInt());
+    }
+
+    @Test
+    public void testExportClearsPersistenceContext() throws IOException {
+        // Arrange
+        Mockito.when(repo.streamAll()).thenReturn(IntStream.rangeClosed(1, 2500)
+                .mapToObj(id -> book(id, "Title " + id, "Author")));
+
+        // Act
+        int count = exportService.export(new ByteArrayOutputStream(), BookExportService.Format.CSV);
+
+        // Assert
+        assertEquals(2500, count);
+        Mockito.verify(entityManager, Mockito.times(2)).clear();
+    }
+
+    @Test
+    public void testFormatOf() {
+        assertEquals(BookExportService.Format.NDJSON, BookExportService.Format.of("ndjson"));
+        assertThrows(IllegalArgumentException.class, () -> BookExportService.Format.of("xml"));
+    }
+}
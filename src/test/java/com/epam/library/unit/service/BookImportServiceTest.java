@@ -0,0 +1,231 @@
+package com.epam.library.unit.service;
+
+import com.epam.library.entity.Book;
+import com.epam.library.service.BookImportService;
+import com.epam.library.service.BookSearchIndex;
+import com.epam.library.service.CatalogPageCache;
+import com.epam.library.service.HoldService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.startsWith;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BookImportServiceTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Mock
+    private BookSearchIndex searchIndex;
+    @Mock
+    private CatalogPageCache pageCache;
+    @Mock
+    private HoldService holdService;
+
+    // Books table as rows of id, title, author and publication year
+    private final List<Object[]> books = new ArrayList<>();
+    // Rows of the update and insert batches
+    private final List<Map<String, Object>> updates = new ArrayList<>();
+    private final List<Map<String, Object>> inserts = new ArrayList<>();
+    private int transactions;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() throws SQLException {
+        books.add(new Object[] {7, "Existing", "Author", 2000});
+
+        // The malformed file is rejected before the database is queried
+        Mockito.lenient().doAnswer(invocation -> {
+            Collection<String> titles = (Collection<String>) invocation.<Map<String, Object>>getArgument(1)
+                    .get("titles");
+            RowCallbackHandler handler = invocation.getArgument(2);
+            // Titles are compared ignoring case, as by the collation of the column
+            for (Object[] book : books) {
+                if (titles.stream().anyMatch(title -> title.equalsIgnoreCase((String) book[1]))) {
+                    handler.processRow(row(book));
+                }
+            }
+            return null;
+        }).when(jdbcTemplate).query(startsWith("select id"), anyMap(), any(RowCallbackHandler.class));
+
+        Mockito.lenient().when(jdbcTemplate.batchUpdate(anyString(), any(Map[].class))).thenAnswer(invocation -> {
+            Map<String, Object>[] batch = invocation.getArgument(1);
+            if (invocation.<String>getArgument(0).startsWith("insert")) {
+                for (Map<String, Object> book : batch) {
+                    inserts.add(book);
+                    books.add(new Object[] {100 + inserts.size(), book.get("title"), book.get("author"),
+                            book.get("publicationYear")});
+                }
+            } else {
+                updates.addAll(List.of(batch));
+            }
+            return new int[batch.length];
+        });
+    }
+
+    private BookImportService service(int batchSize) {
+        // Commits without a database, so the after commit callbacks of the service are run
+        AbstractPlatformTransactionManager transactionManager = new AbstractPlatformTransactionManager() {
+            @Override
+            protected Object doGetTransaction() {
+                return new Object();
+            }
+
+            @Override
+            protected void doBegin(Object transaction, TransactionDefinition definition) {
+                transactions++;
+            }
+
+            @Override
+            protected void doCommit(DefaultTransactionStatus status) {
+            }
+
+            @Override
+            protected void doRollback(DefaultTransactionStatus status) {
+            }
+        };
+
+        return new BookImportService(jdbcTemplate, new TransactionTemplate(transactionManager), searchIndex,
+                pageCache, holdService, new SimpleMeterRegistry(), new ObjectMapper(), batchSize);
+    }
+
+    private static ResultSet row(Object[] book) throws SQLException {
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        // The id is read only for the requested books
+        Mockito.lenient().when(rs.getInt("id")).thenReturn((int) book[0]);
+        Mockito.when(rs.getString("title")).thenReturn((String) book[1]);
+        Mockito.when(rs.getString("author")).thenReturn((String) book[2]);
+        Mockito.when(rs.getInt("publication_year")).thenReturn((int) book[3]);
+        return rs;
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testImportCsv() throws IOException {
+        // Arrange
+        String csv = """
+                title,author,publicationYear,copies
+                "War, and ""Peace\""",Leo Tolstoy,1869,2
+                Existing,Author,2000,3
+                Existing,Author,2000
+                Existing,Someone Else,2000
+
+                Bad year,Author,year
+                ,Author,2000
+                No copies,Author,2001,0
+                """;
+
+        // Act
+        BookImportService.ImportResult result = service(1000).importBooks(stream(csv), BookImportService.Format.CSV);
+
+        // Assert
+        assertEquals(new BookImportService.ImportResult(7, 2, 4, 3), result);
+        assertEquals(List.of(Map.of("id", 7, "copies", 4)), updates);
+        // The added copies go to the hold queue first
+        Mockito.verify(holdService).allocateCopies(Map.of(7, 4));
+
+        assertEquals(2, inserts.size());
+        assertEquals("War, and \"Peace\"", inserts.get(0).get("title"));
+        assertEquals(2, inserts.get(0).get("copies"));
+        assertEquals("Someone Else", inserts.get(1).get("author"));
+        assertEquals(1, transactions);
+
+        ArgumentCaptor<Book> indexed = ArgumentCaptor.forClass(Book.class);
+        Mockito.verify(searchIndex, Mockito.times(2)).put(indexed.capture());
+        assertTrue(indexed.getAllValues().stream().allMatch(book -> book.getId() > 100));
+        Mockito.verify(pageCache).invalidate();
+    }
+
+    @Test
+    public void testImportMatchesBooksAsCollation() throws IOException {
+        // Arrange
+        String csv = "existing,AUTHOR,2000\nExisting ,Áuthor,2000,2\nNew,Author,2001\nNEW,author,2001\n";
+
+        // Act
+        BookImportService.ImportResult result = service(1000).importBooks(stream(csv), BookImportService.Format.CSV);
+
+        // Assert
+        assertEquals(new BookImportService.ImportResult(4, 1, 3, 0), result);
+        assertEquals(List.of(Map.of("id", 7, "copies", 3)), updates);
+        assertEquals(List.of(Map.of("title", "New", "author", "Author", "publicationYear", 2001, "copies", 2)),
+                inserts);
+    }
+
+    @Test
+    public void testImportJson() throws IOException {
+        // Arrange
+        String json = """
+                [
+                  {"title": "A", "author": "B", "publicationYear": 1999, "copies": 2, "tags": ["x"]},
+                  {"title": "A", "author": "B", "publicationYear": "1999"},
+                  {"title": "C"}
+                ]
+                """;
+
+        // Act
+        BookImportService.ImportResult result = service(1000).importBooks(stream(json),
+                BookImportService.Format.JSON);
+
+        // Assert
+        assertEquals(new BookImportService.ImportResult(3, 1, 0, 1), result);
+        assertEquals(List.of(Map.of("title", "A", "author", "B", "publicationYear", 1999, "copies", 3)), inserts);
+        assertTrue(updates.isEmpty());
+        Mockito.verifyNoInteractions(holdService);
+    }
+
+    @Test
+    public void testImportInChunks() throws IOException {
+        // Arrange
+        String csv = "A,X,2001\nB,X,2002\nA,X,2001\nC,X,2003\nD,X,2004\nE,X,2005\n";
+
+        // Act
+        BookImportService.ImportResult result = service(2).importBooks(stream(csv), BookImportService.Format.CSV);
+
+        // Assert
+        // A is inserted by the first chunk and gets a copy in the second one
+        assertEquals(new BookImportService.ImportResult(6, 5, 1, 0), result);
+        assertEquals(List.of(Map.of("id", 101, "copies", 1)), updates);
+        assertEquals(3, transactions);
+        Mockito.verify(pageCache, Mockito.times(3)).invalidate();
+        Mockito.verify(searchIndex, Mockito.times(5)).put(any(Book.class));
+    }
+
+    @Test
+    public void testImportMalformedJson() {
+        // Act & Assert
+        assertThrows(IOException.class, () -> service(1000).importBooks(stream("{\"title\": \"A\"}"),
+                BookImportService.Format.JSON));
+        Mockito.verifyNoInteractions(jdbcTemplate);
+    }
+}
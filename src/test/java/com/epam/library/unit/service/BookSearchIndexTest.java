@@ -0,0 +1,88 @@
+package com.epam.library.unit.service;
+
+import com.epam.library.entity.Book;
+import com.epam.library.repository.BookRepository;
+import com.epam.library.service.BookSearchIndex;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class BookSearchIndexTest {
+
+    @Mock
+    private BookRepository repo;
+    @InjectMocks
+    private BookSearchIndex searchIndex;
+
+    @Before
+    public void setUp() {
+        Mockito.when(repo.findAll(Mockito.any(Pageable.class))).thenReturn(new PageImpl<>(List.of(
+                book(1, "The Lord of the Rings", "J.R.R. Tolkien"),
+                book(2, "The Hobbit", "J.R.R. Tolkien"),
+                book(3, "War and Peace", "Leo Tolstoy"),
+                book(4, "Кобзар", "Тарас Шевченко")
+        )));
+
+        searchIndex.rebuild();
+    }
+
+    @Test
+    public void testIsReady() {
+        assertTrue(searchIndex.isReady());
+    }
+
+    @Test
+    public void testSearchByTitle() {
+        assertEquals(List.of(2, 1), searchIndex.search("the", "title", "title", false));
+    }
+
+    @Test
+    public void testSearchIgnoresCase() {
+        assertEquals(List.of(1), searchIndex.search("LORD", "title", "title", false));
+        assertEquals(List.of(4), searchIndex.search("КОБЗ", "title", "title", false));
+    }
+
+    @Test
+    public void testSearchByAuthorSortedDescending() {
+        assertEquals(List.of(3, 2, 1), searchIndex.search("to", "author", "author", true));
+    }
+
+    @Test
+    public void testSearchMatchesSubstringOnly() {
+        // Every trigram of the query is indexed, but the query itself is not a substring
+        assertTrue(searchIndex.search("the hobbit lord", "title", "title", false).isEmpty());
+        assertTrue(searchIndex.search("missing", "title", "title", false).isEmpty());
+    }
+
+    @Test
+    public void testPutReplacesEditedBook() {
+        searchIndex.put(book(2, "The Silmarillion", "J.R.R. Tolkien"));
+
+        assertTrue(searchIndex.search("hobbit", "title", "title", false).isEmpty());
+        assertEquals(List.of(2), searchIndex.search("silmaril", "title", "title", false));
+    }
+
+    @Test
+    public void testPutAddsNewBook() {
+        searchIndex.put(book(5, "Anna Karenina", "Leo Tolstoy"));
+
+        assertEquals(List.of(5, 3), searchIndex.search("tolstoy", "author", "title", false));
+    }
+
+    private static Book book(int id, String title, String author) {
+        Book book = new Book(title, author, 2000);
+        book.setId(id);
+        return book;
+    }
+}
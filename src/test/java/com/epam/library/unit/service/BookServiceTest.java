@@ -2,22 +2,30 @@ package com.epam.library.unit.service;
 
 import com.epam.library.entity.Book;
 import com.epam.library.repository.BookRepository;
+import com.epam.library.service.BookSearchIndex;
+import com.epam.library.service.CatalogPageCache;
 import com.epam.library.service.BookService;
+import com.epam.library.service.HoldService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentMatchers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.data.domain.*;
 
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -25,6 +33,14 @@ public class BookServiceTest {
 
     @Mock
     private BookRepository repo;
+    @Mock
+    private BookSearchIndex searchIndex;
+    @Mock
+    private CatalogPageCache pageCache;
+    @Mock
+    private HoldService holdService;
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
     @InjectMocks
     private BookService bookService;
 
@@ -74,6 +90,7 @@ public class BookServiceTest {
         String publicationYear = "2022";
 
         Book existingBook = new Book(bookTitle, bookAuthor, Integer.parseInt(publicationYear));
+        existingBook.setId(5);
         existingBook.setNumOfCopies(1);
         existingBook.setAvailableCopies(1);
 
@@ -92,6 +109,18 @@ public class BookServiceTest {
         Mockito.verify(repo, Mockito.times(1))
                 .findByTitleAndAuthorAndPublicationYear(bookTitle, bookAuthor, Integer.parseInt(publicationYear));
         Mockito.verify(repo, Mockito.times(1)).save(Mockito.any(Book.class));
+        Mockito.verify(holdService).allocate(5);
+    }
+
+    @Test
+    public void testReleaseCopies() {
+        // Act
+        bookService.releaseCopies(Map.of(5, 2));
+
+        // Assert
+        Mockito.verify(repo).releaseCopies(5, 2);
+        Mockito.verify(pageCache).invalidate();
+        Mockito.verify(holdService).allocateCopies(Map.of(5, 2));
     }
 
     @Test
@@ -230,6 +259,7 @@ public class BookServiceTest {
         // Assert
         assertEquals(expectedBooks.size(), actualBooks.getTotalElements());
         assertEquals(expectedBooks, actualBooks.getContent());
+        assertEquals(1, meterRegistry.get("library.books.search").tag("field", "author").timer().count());
     }
 
     @Test
@@ -324,6 +354,206 @@ public class BookServiceTest {
         assertEquals(expectedBooks, actualBooks);
     }
 
+    @Test
+    public void testGetBooksFromPageCache() {
+        // Arrange
+        Page<Book> cachedBooks = new PageImpl<>(List.of(new Book("The Hobbit", "J.R.R. Tolkien", 1937)));
+
+        Mockito.when(pageCache.get(new CatalogPageCache.Key("", "", 1, "title", "asc")))
+                .thenReturn(cachedBooks);
+
+        // Act
+        Page<Book> actualBooks = bookService.getBooks("", "", 1, "title", "asc");
+
+        // Assert
+        assertEquals(cachedBooks, actualBooks);
+        Mockito.verifyNoInteractions(repo);
+    }
+
+    @Test
+    public void testGetBooksIsCached() {
+        // Arrange
+        Page<Book> expectedBooks = new PageImpl<>(Collections.emptyList());
+
+        Mockito.when(pageCache.version()).thenReturn(7L);
+        Mockito.when(repo.findAll(Mockito.any(Pageable.class))).thenReturn(expectedBooks);
+
+        // Act
+        bookService.getBooks("", "", 1, "title", "asc");
+
+        // Assert
+        Mockito.verify(pageCache).put(new CatalogPageCache.Key("", "", 1, "title", "asc"), expectedBooks, 7L);
+    }
+
+    @Test
+    public void testEditBookInvalidatesPageCache() throws Exception {
+        // Arrange
+        Book book = new Book();
+        book.setId(1);
+
+        Mockito.when(repo.findByTitleAndAuthorAndPublicationYear("Title", "Author", 2023))
+                .thenReturn(Optional.empty());
+        Mockito.when(repo.findById(1)).thenReturn(Optional.of(book));
+
+        // Act
+        bookService.edit(1, "Title", "Author", "2023");
+
+        // Assert
+        Mockito.verify(pageCache).invalidate();
+    }
+
+    @Test
+    public void testGetBooksFromSearchIndex() {
+        // Arrange
+        String searchQuery = "tolkien";
+        String searchField = "author";
+        int pageNo = 2;
+        String sortField = "title";
+        String sortOrder = "asc";
+
+        Book book6 = new Book("Book 6", "J.R.R. Tolkien", 1954);
+        book6.setId(6);
+        Book book7 = new Book("Book 7", "J.R.R. Tolkien", 1937);
+        book7.setId(7);
+
+        Mockito.when(searchIndex.isReady()).thenReturn(true);
+        Mockito.when(searchIndex.search(searchQuery, searchField, sortField, false))
+                .thenReturn(List.of(1, 2, 3, 4, 5, 6, 7));
+        Mockito.when(repo.findByIdIn(List.of(6, 7))).thenReturn(List.of(book7, book6));
+
+        // Act
+        Page<Book> actualBooks = bookService.getBooks(searchQuery, searchField, pageNo, sortField, sortOrder);
+
+        // Assert
+        assertEquals(7, actualBooks.getTotalElements());
+        assertEquals(2, actualBooks.getTotalPages());
+        assertEquals(List.of(book6, book7), actualBooks.getContent());
+        Mockito.verify(repo, Mockito.never()).findByAuthorContaining(Mockito.anyString(), Mockito.any(Pageable.class));
+    }
+
+    @Test
+    public void testGetBooksFromSearchIndex_InvalidPageNumber() {
+        // Arrange
+        Mockito.when(searchIndex.isReady()).thenReturn(true);
+        Mockito.when(searchIndex.search("tolkien", "title", "title", false)).thenReturn(List.of(1, 2));
+
+        // Assert
+        assertThrows(Exception.class, () ->
+                bookService.getBooks("tolkien", "title", 2, "title", "asc"));
+    }
+
+    @Test
+    public void testGetBooksAfterFirstSlice() {
+        // Arrange
+        Pageable pageable = PageRequest.of(0, bookService.getPageSize(),
+                Sort.by(Sort.Direction.ASC, "title", "id"));
+        Slice<Book> expectedBooks = new SliceImpl<>(List.of(new Book("The Hobbit", "J.R.R. Tolkien", 1937)),
+                pageable, true);
+
+        Mockito.when(repo.findAllBy(pageable)).thenReturn(expectedBooks);
+
+        // Act
+        Slice<Book> actualBooks = bookService.getBooksAfter("", "", "", "title", "asc");
+
+        // Assert
+        assertEquals(expectedBooks, actualBooks);
+    }
+
+    @Test
+    public void testGetBooksAfterCursor() {
+        // Arrange
+        Book lastBook = new Book("The Hobbit", "J.R.R. Tolkien", 1937);
+        lastBook.setId(12);
+        String cursor = bookService.cursorAfter(lastBook, "author", "desc");
+
+        Pageable pageable = PageRequest.of(0, bookService.getPageSize(),
+                Sort.by(Sort.Direction.DESC, "author", "id"));
+        Slice<Book> expectedBooks = new SliceImpl<>(List.of(new Book("War and Peace", "Leo Tolstoy", 1869)),
+                pageable, false);
+
+        Mockito.when(repo.findByAuthorLessThanOrAuthorAndIdLessThan(
+                "J.R.R. Tolkien", "J.R.R. Tolkien", 12, pageable)).thenReturn(expectedBooks);
+
+        // Act
+        Slice<Book> actualBooks = bookService.getBooksAfter("", "", cursor, "author", "desc");
+
+        // Assert
+        assertEquals(expectedBooks, actualBooks);
+    }
+
+    @Test
+    public void testGetBooksAfterCursorWithOtherSort() {
+        // Arrange
+        Book lastBook = new Book("The Hobbit", "J.R.R. Tolkien", 1937);
+        lastBook.setId(12);
+        String cursor = bookService.cursorAfter(lastBook, "title", "asc");
+
+        // Assert
+        assertThrows(IllegalArgumentException.class, () ->
+                bookService.getBooksAfter("", "", cursor, "author", "asc"));
+    }
+
+    @Test
+    public void testGetBooksAfterInvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () ->
+                bookService.getBooksAfter("", "", "not a cursor", "title", "asc"));
+    }
+
+    @Test
+    public void testGetBooksAfterCursorFromSearchIndex() {
+        // Arrange
+        Book lastBook = new Book("Book 5", "J.R.R. Tolkien", 1954);
+        lastBook.setId(5);
+        Book book6 = new Book("Book 6", "J.R.R. Tolkien", 1954);
+        book6.setId(6);
+        String cursor = bookService.cursorAfter(lastBook, "title", "asc");
+
+        Mockito.when(searchIndex.isReady()).thenReturn(true);
+        Mockito.when(searchIndex.search("tolkien", "author", "title", false))
+                .thenReturn(List.of(1, 2, 3, 4, 5, 6));
+        Mockito.when(repo.findByIdIn(List.of(6))).thenReturn(List.of(book6));
+
+        // Act
+        Slice<Book> actualBooks = bookService.getBooksAfter("tolkien", "author", cursor, "title", "asc");
+
+        // Assert
+        assertEquals(List.of(book6), actualBooks.getContent());
+        assertFalse(actualBooks.hasNext());
+    }
+
+    @Test
+    public void testAddNewBookIsIndexed() throws Exception {
+        // Arrange
+        Mockito.when(repo.findByTitleAndAuthorAndPublicationYear("Title", "Author", 2023))
+                .thenReturn(Optional.empty());
+
+        // Act
+        Book book = bookService.add("Title", "Author", "2023");
+
+        // Assert
+        Mockito.verify(searchIndex).put(book);
+    }
+
+    @Test
+    public void testReserveCopy() {
+        // Arrange
+        Mockito.when(repo.reserveCopy(1)).thenReturn(1);
+
+        // Act and Assert
+        assertTrue(bookService.reserveCopy(1));
+        Mockito.verify(pageCache).invalidate();
+    }
+
+    @Test
+    public void testReserveCopy_NoAvailableCopies() {
+        // Arrange
+        Mockito.when(repo.reserveCopy(1)).thenReturn(0);
+
+        // Act and Assert
+        assertFalse(bookService.reserveCopy(1));
+        Mockito.verify(pageCache, Mockito.never()).invalidate();
+    }
+
     @Test
     public void testGetById() throws Exception {
         // Arrange
@@ -0,0 +1,95 @@
+package com.epam.library.unit.service;
+
+import com.epam.library.entity.Book;
+import com.epam.library.service.CatalogPageCache;
+import org.junit.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CatalogPageCacheTest {
+
+    private final Page<Book> page = new PageImpl<>(List.of(new Book("The Hobbit", "J.R.R. Tolkien", 1937)));
+
+    @Test
+    public void testGetCachedPage() {
+        // Arrange
+        CatalogPageCache cache = new CatalogPageCache(10, Duration.ofMinutes(1));
+        cache.put(key(1), page, cache.version());
+
+        // Act and Assert
+        assertSame(page, cache.get(key(1)));
+        assertNull(cache.get(key(2)));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testInvalidate() {
+        // Arrange
+        CatalogPageCache cache = new CatalogPageCache(10, Duration.ofMinutes(1));
+        cache.put(key(1), page, cache.version());
+
+        // Act
+        cache.invalidate();
+
+        // Assert
+        assertNull(cache.get(key(1)));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void testPageLoadedBeforeChangeIsNotCached() {
+        // Arrange
+        CatalogPageCache cache = new CatalogPageCache(10, Duration.ofMinutes(1));
+        long version = cache.version();
+
+        // Act
+        cache.invalidate();
+        cache.put(key(1), page, version);
+
+        // Assert
+        assertNull(cache.get(key(1)));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testEvictLeastRecentlyUsed() {
+        // Arrange
+        CatalogPageCache cache = new CatalogPageCache(2, Duration.ofMinutes(1));
+        cache.put(key(1), page, cache.version());
+        cache.put(key(2), page, cache.version());
+        cache.get(key(1));
+
+        // Act
+        cache.put(key(3), page, cache.version());
+
+        // Assert
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(key(1)));
+        assertNull(cache.get(key(2)));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void testExpiredEntry() throws InterruptedException {
+        // Arrange
+        CatalogPageCache cache = new CatalogPageCache(10, Duration.ofMillis(1));
+        cache.put(key(1), page, cache.version());
+
+        // Act
+        Thread.sleep(5);
+
+        // Assert
+        assertNull(cache.get(key(1)));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    private static CatalogPageCache.Key key(int pageNo) {
+        return new CatalogPageCache.Key("", "", pageNo, "title", "asc");
+    }
+}
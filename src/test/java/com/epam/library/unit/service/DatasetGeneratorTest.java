@@ -0,0 +1,177 @@
+package com.epam.library.unit.service;
+
+import com.epam.library.service.DatasetGenerator;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DatasetGeneratorTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PasswordEncoder passwordEncoder;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private DatasetGenerator generator;
+
+    // Inserted rows by table, copied because the generator reuses its batch list
+    private final Map<String, List<Object[]>> inserted = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        generator = new DatasetGenerator(jdbcTemplate, new TransactionTemplate(transactionManager), passwordEncoder);
+
+        Mockito.when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            String[] words = invocation.<String>getArgument(0).split(" ");
+            String table = words[0].equals("update") ? "updated " + words[1] : words[2];
+            inserted.computeIfAbsent(table, t -> new ArrayList<>()).addAll(invocation.getArgument(1));
+            return new int[0];
+        });
+    }
+
+    @Test
+    public void testGenerate() {
+        // Arrange
+        Mockito.when(jdbcTemplate.queryForObject("select coalesce(max(id), 0) from users", Integer.class))
+                .thenReturn(3);
+        Mockito.when(jdbcTemplate.queryForObject("select coalesce(max(id), 0) from books", Integer.class))
+                .thenReturn(25);
+        Mockito.when(jdbcTemplate.queryForObject("select coalesce(max(id), 0) from subscriptions", Integer.class))
+                .thenReturn(0);
+        // Book 14 is missing, subscriptions must not refer to it. Books have 1 to 5 available copies
+        Mockito.when(jdbcTemplate.queryForList("select id from users order by id", Integer.class))
+                .thenReturn(IntStream.rangeClosed(1, 13).boxed().toList());
+        Mockito.when(jdbcTemplate.query(eq("select id, available_copies from books order by id"),
+                        ArgumentMatchers.<RowMapper<int[]>>any()))
+                .thenReturn(IntStream.rangeClosed(1, 225).filter(id -> id != 14)
+                        .mapToObj(id -> new int[] {id, 1 + id % 5}).toList());
+        Mockito.when(passwordEncoder.encode("password")).thenReturn("encoded");
+
+        // Act
+        generator.generate(new DatasetGenerator.Spec(10, 200, 12000, 0.8, 0.1, 0.2, 1.1, 1));
+
+        // Assert
+        List<Object[]> users = inserted.get("users");
+        assertEquals(10, users.size());
+        assertEquals(4, users.get(0)[0]);
+        assertEquals("user13@example.com", users.get(9)[2]);
+
+        List<Object[]> books = inserted.get("books");
+        Set<Object> titles = new HashSet<>();
+        for (Object[] book : books) {
+            titles.add(book[1]);
+        }
+        assertEquals(200, books.size());
+        assertEquals(200, titles.size());
+
+        List<Object[]> subscriptions = inserted.get("subscriptions");
+        assertEquals(12000, subscriptions.size());
+
+        LocalDate today = LocalDate.now();
+        int open = 0;
+        int pending = 0;
+        int overdue = 0;
+        int lateReturns = 0;
+        int[] orders = new int[226];
+        int[] held = new int[226];
+        for (Object[] subscription : subscriptions) {
+            int bookId = (int) subscription[1];
+            int userId = (int) subscription[2];
+            assertTrue(bookId >= 1 && bookId <= 225 && bookId != 14);
+            assertTrue(userId >= 1 && userId <= 13);
+            orders[bookId]++;
+
+            if (subscription[8].equals("RETURNED")) {
+                LocalDate returnedOn = (LocalDate) subscription[9];
+                assertTrue(returnedOn.isBefore(today));
+                assertTrue(returnedOn.isAfter((LocalDate) subscription[4]));
+                assertEquals(returnedOn.isAfter((LocalDate) subscription[7]), (long) subscription[6] > 0);
+                lateReturns += (long) subscription[6] > 0 ? 1 : 0;
+                continue;
+            }
+
+            open++;
+            held[bookId]++;
+            assertNull(subscription[9]);
+
+            if (!(boolean) subscription[3]) {
+                pending++;
+                assertEquals(0L, subscription[6]);
+                continue;
+            }
+
+            assertEquals(((LocalDate) subscription[4]).plusDays(60), subscription[7]);
+            if ((long) subscription[6] > 0) {
+                overdue++;
+                assertTrue(((LocalDate) subscription[4]).isBefore(today.minusDays(60)));
+            }
+        }
+
+        // Most subscriptions are returned, the open ones never hold more copies than a book has
+        assertTrue(open < 12000 * 0.2);
+        assertTrue(lateReturns > 0);
+        assertEquals(0.1, (double) pending / open, 0.05);
+        assertTrue(overdue > 0);
+
+        Map<Integer, Integer> taken = new HashMap<>();
+        for (Object[] update : inserted.get("updated books")) {
+            taken.put((int) update[1], (int) update[0]);
+        }
+        for (int bookId = 1; bookId <= 225; bookId++) {
+            assertTrue(held[bookId] <= 1 + bookId % 5);
+            assertEquals(held[bookId], (int) taken.getOrDefault(bookId, 0));
+        }
+
+        // The most popular book is ordered far more often than with uniform popularity
+        int maxOrders = 0;
+        for (int count : orders) {
+            maxOrders = Math.max(maxOrders, count);
+        }
+        assertTrue(maxOrders > 10 * 12000 / 224);
+
+        Mockito.verify(jdbcTemplate).update(startsWith("update users u set fine"), Mockito.eq(1), Mockito.eq(1));
+    }
+
+    @Test
+    public void testGenerateBooksOnly() {
+        // Arrange
+        Mockito.when(jdbcTemplate.queryForObject("select coalesce(max(id), 0) from books", Integer.class))
+                .thenReturn(25);
+
+        // Act
+        generator.generate(DatasetGenerator.Spec.books(7));
+
+        // Assert
+        assertEquals(7, inserted.get("books").size());
+        assertFalse(inserted.containsKey("users"));
+        assertFalse(inserted.containsKey("subscriptions"));
+        Mockito.verifyNoInteractions(passwordEncoder);
+    }
+}
@@ -0,0 +1,149 @@
+package com.epam.library.unit.service;
+
+import com.epam.library.entity.FineJobChunk;
+import com.epam.library.entity.FineJobRun;
+import com.epam.library.repository.FineJobChunkRepository;
+import com.epam.library.repository.FineJobRunRepository;
+import com.epam.library.repository.SubscriptionRepository;
+import com.epam.library.service.FineJobService;
+import com.epam.library.service.FineService;
+import com.epam.library.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FineJobServiceTest {
+
+    @Mock
+    private SubscriptionRepository subscriptionRepo;
+    @Mock
+    private FineJobRunRepository runRepo;
+    @Mock
+    private FineJobChunkRepository chunkRepo;
+    @Mock
+    private UserService userService;
+    @Mock
+    private FineService fineService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private FineJobService fineJobService;
+
+    private final LocalDate today = LocalDate.now();
+
+    @Before
+    public void setUp() {
+        fineJobService = new FineJobService(subscriptionRepo, runRepo, chunkRepo, userService, fineService,
+                new TransactionTemplate(transactionManager), new SimpleMeterRegistry(), 10, 2);
+    }
+
+    @Test
+    public void testRunProcessesAllRanges() {
+        // Arrange
+        Mockito.when(runRepo.findById(today)).thenReturn(Optional.empty());
+        Mockito.when(subscriptionRepo.findMaxId()).thenReturn(25);
+        Mockito.when(runRepo.save(Mockito.any(FineJobRun.class))).thenAnswer(i -> i.getArgument(0));
+        Mockito.when(subscriptionRepo.addOverdueFines(anyLong(), eq(today), anyInt(), anyInt())).thenReturn(1);
+
+        // Act
+        boolean finished = fineJobService.run(today);
+
+        // Assert
+        assertTrue(finished);
+        Mockito.verify(subscriptionRepo).addOverdueFines(10, today, 1, 10);
+        Mockito.verify(subscriptionRepo).addOverdueFines(10, today, 11, 20);
+        Mockito.verify(subscriptionRepo).addOverdueFines(10, today, 21, 25);
+        Mockito.verify(userService).addOverdueFines(10, today, 21, 25);
+        Mockito.verify(chunkRepo, Mockito.times(3)).save(Mockito.any(FineJobChunk.class));
+    }
+
+    @Test
+    public void testRunResumesWithoutProcessedRanges() {
+        // Arrange
+        Mockito.when(runRepo.findById(today)).thenReturn(Optional.of(new FineJobRun(today, 25, 10)));
+        Mockito.when(chunkRepo.findByRunDate(today)).thenReturn(List.of(
+                new FineJobChunk(today, 1, 10), new FineJobChunk(today, 21, 25)));
+
+        // Act
+        boolean finished = fineJobService.run(today);
+
+        // Assert
+        assertTrue(finished);
+        Mockito.verify(subscriptionRepo).addOverdueFines(10, today, 11, 20);
+        Mockito.verify(subscriptionRepo, Mockito.times(1))
+                .addOverdueFines(anyLong(), eq(today), anyInt(), anyInt());
+        Mockito.verify(userService, Mockito.times(1))
+                .addOverdueFines(anyLong(), eq(today), anyInt(), anyInt());
+    }
+
+    @Test
+    public void testRunFinishedRun() {
+        // Arrange
+        FineJobRun run = new FineJobRun(today, 25, 10);
+        run.setFinished(true);
+        Mockito.when(runRepo.findById(today)).thenReturn(Optional.of(run));
+
+        // Act
+        boolean finished = fineJobService.run(today);
+
+        // Assert
+        assertTrue(finished);
+        Mockito.verifyNoInteractions(subscriptionRepo, userService, chunkRepo);
+    }
+
+    @Test
+    public void testRunWithFailedRange() {
+        // Arrange
+        Mockito.when(runRepo.findById(today)).thenReturn(Optional.of(new FineJobRun(today, 5, 10)));
+        Mockito.when(subscriptionRepo.addOverdueFines(10, today, 1, 5))
+                .thenThrow(new RuntimeException("Lock wait timeout"));
+
+        // Act
+        boolean finished = fineJobService.run(today);
+
+        // Assert
+        assertFalse(finished);
+        Mockito.verify(chunkRepo, Mockito.never()).save(Mockito.any(FineJobChunk.class));
+        Mockito.verify(runRepo, Mockito.never()).save(Mockito.any(FineJobRun.class));
+    }
+
+    @Test
+    public void testRunSkippedForLazyFines() {
+        // Arrange
+        Mockito.when(fineService.isLazy()).thenReturn(true);
+
+        // Act
+        boolean finished = fineJobService.run(today);
+
+        // Assert
+        assertTrue(finished);
+        Mockito.verifyNoInteractions(runRepo, subscriptionRepo, userService, chunkRepo);
+    }
+
+    @Test
+    public void testHasUnfinishedRuns() {
+        // Arrange
+        Mockito.when(runRepo.existsByFinishedFalse()).thenReturn(true);
+
+        // Act and Assert
+        assertTrue(fineJobService.hasUnfinishedRuns());
+        Mockito.when(fineService.isLazy()).thenReturn(true);
+        assertFalse(fineJobService.hasUnfinishedRuns());
+    }
+}
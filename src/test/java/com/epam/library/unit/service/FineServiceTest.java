@@ -0,0 +1,142 @@
+package com.epam.library.unit.service;
+
+import com.epam.library.dto.SubscriptionView;
+import com.epam.library.entity.Book;
+import com.epam.library.entity.Subscription;
+import com.epam.library.entity.User;
+import com.epam.library.repository.SubscriptionRepository;
+import com.epam.library.repository.UserRepository;
+import com.epam.library.service.FineService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FineServiceTest {
+
+    @Mock
+    private SubscriptionRepository subscriptionRepo;
+    @Mock
+    private UserRepository userRepo;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LocalDate today = LocalDate.now();
+
+    private FineService fineService(String mode) {
+        return new FineService(subscriptionRepo, userRepo, meterRegistry, mode);
+    }
+
+    private static Subscription subscription(LocalDate dueDate, long fine) {
+        User user = new User("John Doe", "johndoe@example.com", "password", User.Role.READER);
+        user.setId(3);
+        Subscription subscription = new Subscription(user, new Book("The Hobbit", "J.R.R. Tolkien", 1937));
+        subscription.setDueDate(dueDate);
+        subscription.setFine(fine);
+        return subscription;
+    }
+
+    @Test
+    public void testFineOn() {
+        assertEquals(0, FineService.fineOn(null, today));
+        assertEquals(0, FineService.fineOn(today, today));
+        assertEquals(0, FineService.fineOn(today.plusDays(5), today));
+        assertEquals(30, FineService.fineOn(today.minusDays(3), today));
+    }
+
+    @Test
+    public void testModeOf() {
+        assertEquals(FineService.Mode.LAZY, FineService.Mode.of(" lazy"));
+        assertThrows(IllegalArgumentException.class, () -> FineService.Mode.of("weekly"));
+    }
+
+    @Test
+    public void testNightlyFinesAreStored() {
+        // Arrange
+        FineService fineService = fineService("nightly");
+        Subscription subscription = subscription(today.minusDays(3), 10);
+        User user = subscription.getUser();
+        user.addFine(10);
+
+        // Act and Assert
+        assertEquals(10, fineService.fineOf(subscription));
+        assertEquals(10, fineService.fineOf(user));
+        fineService.settle(List.of(subscription), today);
+        assertEquals(10, subscription.getFine());
+        Mockito.verifyNoInteractions(subscriptionRepo, userRepo);
+    }
+
+    @Test
+    public void testLazyFinesAreComputed() {
+        // Arrange
+        FineService fineService = fineService("lazy");
+        Subscription overdue = subscription(today.minusDays(3), 10);
+        Subscription returned = subscription(today.minusDays(3), 20);
+        returned.markReturned(today.minusDays(1));
+        SubscriptionView view = new SubscriptionView(1, "The Hobbit", "J.R.R. Tolkien", 1937, "John Doe",
+                "johndoe@example.com", true, today.minusDays(62), 60, today.minusDays(2), 0);
+
+        // Act and Assert
+        assertEquals(30, fineService.fineOf(overdue));
+        assertEquals(20, fineService.fineOf(returned));
+        assertEquals(20, fineService.withCurrentFine(view).getFine());
+    }
+
+    @Test
+    public void testLazyFineOfUser() {
+        // Arrange
+        FineService fineService = fineService("lazy");
+        User user = subscription(null, 0).getUser();
+        user.addFine(50);
+
+        Mockito.when(subscriptionRepo.sumAccruedFines(3, today, 10)).thenReturn(40L);
+
+        // Act and Assert
+        assertEquals(90, fineService.fineOf(user));
+    }
+
+    @Test
+    public void testSettle() {
+        // Arrange
+        FineService fineService = fineService("lazy");
+        Subscription overdue = subscription(today.minusDays(4), 10);
+        Subscription onTime = subscription(today.plusDays(1), 0);
+
+        // Act
+        fineService.settle(List.of(overdue, onTime), today);
+
+        // Assert
+        assertEquals(40, overdue.getFine());
+        assertEquals(0, onTime.getFine());
+        Mockito.verify(userRepo).addFine(3, 30);
+        Mockito.verifyNoMoreInteractions(userRepo);
+    }
+
+    @Test
+    public void testMaterializeFines() {
+        // Arrange
+        Mockito.when(userRepo.materializeFines(10, today)).thenReturn(2);
+        Mockito.when(subscriptionRepo.materializeFines(10, today)).thenReturn(5);
+
+        // Act
+        int subscriptions = fineService("lazy").materializeFines();
+
+        // Assert
+        assertEquals(5, subscriptions);
+        assertEquals(5, meterRegistry.get("library.fines.subscriptions").tag("engine", "materialize")
+                .counter().count(), 0);
+    }
+
+    @Test
+    public void testMaterializeFinesNightly() {
+        assertEquals(0, fineService("nightly").materializeFines());
+        Mockito.verifyNoInteractions(subscriptionRepo, userRepo);
+    }
+}
@@ -0,0 +1,221 @@
+package com.epam.library.unit.service;
+
+import com.epam.library.dto.OrderResult;
+import com.epam.library.entity.Book;
+import com.epam.library.entity.Hold;
+import com.epam.library.entity.HoldQueue;
+import com.epam.library.entity.Subscription;
+import com.epam.library.entity.User;
+import com.epam.library.repository.BookRepository;
+import com.epam.library.repository.HoldQueueRepository;
+import com.epam.library.repository.HoldRepository;
+import com.epam.library.repository.SubscriptionRepository;
+import com.epam.library.service.CatalogPageCache;
+import com.epam.library.service.HoldService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+
+@RunWith(MockitoJUnitRunner.class)
+public class HoldServiceTest {
+
+    @Mock
+    private HoldRepository holdRepo;
+    @Mock
+    private HoldQueueRepository queueRepo;
+    @Mock
+    private BookRepository bookRepo;
+    @Mock
+    private SubscriptionRepository subscriptionRepo;
+    @Mock
+    private CatalogPageCache pageCache;
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    @InjectMocks
+    private HoldService holdService;
+
+    private final int bookId = 10;
+    private final Book book = new Book("The Lord of the Rings", "J.R.R. Tolkien", 1954);
+    private final HoldQueue queue = new HoldQueue(bookId);
+    // Holds table by ticket
+    private final Map<Long, Hold> holds = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        book.setId(bookId);
+
+        Mockito.lenient().when(queueRepo.lockByBookId(bookId)).thenReturn(Optional.of(queue));
+        Mockito.lenient().when(holdRepo.save(any(Hold.class))).thenAnswer(invocation -> {
+            Hold hold = invocation.getArgument(0);
+            holds.put(hold.getTicket(), hold);
+            return hold;
+        });
+        Mockito.lenient().doAnswer(invocation -> holds.remove(invocation.<Hold>getArgument(0).getTicket()))
+                .when(holdRepo).delete(any(Hold.class));
+        Mockito.lenient().when(holdRepo.findByBookIdAndTicket(Mockito.eq(bookId), anyLong()))
+                .thenAnswer(invocation -> Optional.ofNullable(holds.get(invocation.<Long>getArgument(1))));
+        Mockito.lenient().when(holdRepo.findByUserIdAndBookId(anyInt(), Mockito.eq(bookId)))
+                .thenAnswer(invocation -> holds.values().stream()
+                        .filter(hold -> hold.getUser().getId().equals(invocation.getArgument(0)))
+                        .findFirst());
+    }
+
+    private static User user(int id) {
+        User user = new User("Reader " + id, "reader" + id + "@example.com", "password", User.Role.READER);
+        user.setId(id);
+        return user;
+    }
+
+    @Test
+    public void testEnqueueInOrder() {
+        // Arrange
+        Mockito.when(bookRepo.reserveCopy(bookId)).thenReturn(0);
+
+        // Act
+        OrderResult first = holdService.enqueue(user(1), book, null);
+        OrderResult second = holdService.enqueue(user(2), book, null);
+        OrderResult again = holdService.enqueue(user(1), book, null);
+
+        // Assert
+        assertTrue(first.isQueued());
+        assertEquals(1, first.queuePosition());
+        assertEquals(2, second.queuePosition());
+        // A reader already in the queue keeps their place
+        assertEquals(1, again.queuePosition());
+        assertEquals(2, holds.size());
+        Mockito.verify(queueRepo, Mockito.times(3)).createIfAbsent(bookId);
+        Mockito.verify(subscriptionRepo, Mockito.never()).save(any(Subscription.class));
+        assertEquals(2, meterRegistry.get("library.holds.enqueued").counter().count(), 0);
+    }
+
+    @Test
+    public void testEnqueueWithFreedCopy() {
+        // Arrange
+        // A copy freed after the order failed is allocated to the new hold
+        Mockito.when(bookRepo.reserveCopy(bookId)).thenReturn(1, 0);
+
+        // Act
+        OrderResult result = holdService.enqueue(user(1), book, null);
+
+        // Assert
+        assertFalse(result.isQueued());
+        assertEquals(Integer.valueOf(1), result.subscription().getUser().getId());
+        assertTrue(holds.isEmpty());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testRepeatedOrderFindsQueuedHold() {
+        // Arrange
+        Mockito.when(bookRepo.reserveCopy(bookId)).thenReturn(0);
+        Mockito.when(queueRepo.findById(bookId)).thenReturn(Optional.of(queue));
+        holdService.enqueue(user(1), book, null);
+        holdService.enqueue(user(2), book, "key1");
+        Mockito.when(holdRepo.findByUserIdAndOrderKey(2, "key1")).thenReturn(Optional.of(holds.get(2L)));
+
+        // Act
+        Optional<OrderResult> result = holdService.findQueued(user(2), "key1");
+
+        // Assert
+        assertTrue(result.isPresent());
+        assertTrue(result.get().isQueued());
+        assertEquals(2, result.get().queuePosition());
+        assertTrue(holdService.findQueued(user(2), "key2").isEmpty());
+    }
+
+    @Test
+    public void testAllocatedSubscriptionKeepsOrderKey() {
+        // Arrange
+        // A copy freed after the order failed is allocated to the new hold
+        Mockito.when(bookRepo.reserveCopy(bookId)).thenReturn(1, 0);
+
+        // Act
+        OrderResult result = holdService.enqueue(user(1), book, "key1");
+
+        // Assert
+        assertEquals("key1", result.subscription().getOrderKey());
+    }
+
+    @Test
+    public void testAllocateToHead() {
+        // Arrange
+        Mockito.when(bookRepo.reserveCopy(bookId)).thenReturn(0);
+        holdService.enqueue(user(1), book, null);
+        holdService.enqueue(user(2), book, null);
+        Mockito.when(bookRepo.reserveCopy(bookId)).thenReturn(1);
+
+        // Act
+        Optional<Subscription> subscription = holdService.allocate(bookId);
+
+        // Assert
+        assertTrue(subscription.isPresent());
+        assertEquals(Integer.valueOf(1), subscription.get().getUser().getId());
+        assertEquals(book, subscription.get().getBook());
+        Mockito.verify(subscriptionRepo).save(subscription.get());
+        Mockito.verify(pageCache).invalidate();
+        // The second reader moves up
+        assertEquals(1, queue.positionOf(holds.values().iterator().next().getTicket()));
+        assertEquals(1, meterRegistry.get("library.holds.allocated").counter().count(), 0);
+    }
+
+    @Test
+    public void testAllocateWithoutCopy() {
+        // Arrange
+        Mockito.when(bookRepo.reserveCopy(bookId)).thenReturn(0);
+        holdService.enqueue(user(1), book, null);
+
+        // Act
+        Optional<Subscription> subscription = holdService.allocate(bookId);
+
+        // Assert
+        assertTrue(subscription.isEmpty());
+        assertEquals(1, holds.size());
+        Mockito.verify(subscriptionRepo, Mockito.never()).save(any(Subscription.class));
+    }
+
+    @Test
+    public void testAllocateEmptyQueue() {
+        // Act
+        Optional<Subscription> subscription = holdService.allocate(bookId);
+
+        // Assert
+        assertTrue(subscription.isEmpty());
+        Mockito.verify(bookRepo, Mockito.never()).reserveCopy(any());
+    }
+
+    @Test
+    public void testAllocateCopies() {
+        // Arrange
+        Mockito.when(bookRepo.reserveCopy(bookId)).thenReturn(0);
+        holdService.enqueue(user(1), book, null);
+        holdService.enqueue(user(2), book, null);
+        holdService.enqueue(user(3), book, null);
+        Mockito.when(bookRepo.reserveCopy(bookId)).thenReturn(1);
+        Mockito.when(queueRepo.findWaiting(Mockito.anyCollection())).thenReturn(List.of(bookId));
+
+        // Act
+        int allocated = holdService.allocateCopies(Map.of(bookId, 2, 11, 5));
+
+        // Assert
+        assertEquals(2, allocated);
+        assertEquals(1, holds.size());
+        Mockito.verify(subscriptionRepo, Mockito.times(2)).save(any(Subscription.class));
+        Mockito.verify(queueRepo, Mockito.never()).lockByBookId(11);
+    }
+}
@@ -0,0 +1,75 @@
+package com.epam.library.unit.service;
+
+import com.epam.library.service.JdbcSessionStore;
+import com.epam.library.service.SessionAttributeCodec;
+import com.epam.library.service.StoredSession;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JdbcSessionStoreTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private ResultSet rs;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private JdbcSessionStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        store = new JdbcSessionStore(jdbcTemplate, meterRegistry, 1000);
+
+        Mockito.when(rs.getString("id")).thenReturn("abc");
+        Mockito.when(jdbcTemplate.query(anyString(), ArgumentMatchers.<RowMapper<StoredSession>>any(),
+                        eq("abc"), eq(5L)))
+                .thenAnswer(invocation -> List.of(invocation.<RowMapper<StoredSession>>getArgument(1).mapRow(rs, 0)));
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        // Arrange
+        Mockito.when(rs.getInt("max_inactive_seconds")).thenReturn(1800);
+        Mockito.when(rs.getBytes("attributes")).thenReturn(SessionAttributeCodec.encode(Map.of("name", "value")));
+
+        // Act
+        StoredSession session = store.load("abc", 5);
+
+        // Assert
+        assertEquals("abc", session.getId());
+        assertEquals(1800, session.getMaxInactiveInterval());
+        assertEquals("value", session.getAttributes().get("name"));
+    }
+
+    @Test
+    public void testUndecodableSessionIsDeleted() throws Exception {
+        // Arrange
+        Mockito.when(rs.getBytes("attributes")).thenReturn(new byte[]{1, 0, 0, 0, 1, 0});
+
+        // Act
+        StoredSession session = store.load("abc", 5);
+
+        // Assert
+        assertNull(session);
+        Mockito.verify(jdbcTemplate).update("delete from sessions where id = ?", "abc");
+        assertEquals(1, meterRegistry.counter("library.sessions.undecodable").count(), 0);
+    }
+}
@@ -0,0 +1,78 @@
+package com.epam.library.unit.service;
+
+import com.epam.library.repository.JobLeaseRepository;
+import com.epam.library.service.JobLeaseService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+@RunWith(MockitoJUnitRunner.class)
+public class JobLeaseServiceTest {
+
+    @Mock
+    private JobLeaseRepository repo;
+
+    @Test
+    public void testAcquire() {
+        // Arrange
+        JobLeaseService leases = new JobLeaseService(repo, "node-1");
+        Mockito.when(repo.acquire(eq("fines"), eq("node-1"), any(), any())).thenReturn(1);
+
+        // Act
+        boolean acquired = leases.acquire("fines", Duration.ofMinutes(10));
+
+        // Assert
+        assertTrue(acquired);
+        Mockito.verify(repo).createIfAbsent("fines", Instant.EPOCH);
+        Mockito.verify(repo).acquire(eq("fines"), eq("node-1"), any(),
+                Mockito.argThat(until -> until.isAfter(Instant.now().plus(Duration.ofMinutes(9)))));
+    }
+
+    @Test
+    public void testAcquireHeldByAnotherNode() {
+        // Arrange
+        JobLeaseService leases = new JobLeaseService(repo, "node-1");
+        Mockito.when(repo.acquire(eq("fines"), eq("node-1"), any(), any())).thenReturn(0);
+
+        // Act & Assert
+        assertFalse(leases.acquire("fines", Duration.ofMinutes(10)));
+    }
+
+    @Test
+    public void testExtendTakenOver() {
+        // Arrange
+        JobLeaseService leases = new JobLeaseService(repo, "node-1");
+        Mockito.when(repo.extend(eq("fines"), eq("node-1"), any(), any())).thenReturn(0);
+
+        // Act & Assert
+        assertFalse(leases.extend("fines", Duration.ofMinutes(10)));
+    }
+
+    @Test
+    public void testReleaseNotBeforeNow() {
+        // Arrange
+        JobLeaseService leases = new JobLeaseService(repo, "node-1");
+        Instant before = Instant.now();
+
+        // Act
+        leases.release("fines", before.minusSeconds(60));
+
+        // Assert
+        Mockito.verify(repo).extend(eq("fines"), eq("node-1"), any(),
+                Mockito.argThat(until -> !until.isBefore(before)));
+    }
+
+    @Test
+    public void testGeneratedOwnersAreDistinct() {
+        assertNotEquals(new JobLeaseService(repo, "").getOwner(), new JobLeaseService(repo, "").getOwner());
+    }
+}
@@ -0,0 +1,133 @@
+package com.epam.library.unit.service;
+
+import com.epam.library.service.LoginRateLimiter;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class LoginRateLimiterTest {
+
+    private static final LoginRateLimiter.Scope IP = LoginRateLimiter.Scope.IP;
+    private static final LoginRateLimiter.Scope ACCOUNT = LoginRateLimiter.Scope.ACCOUNT;
+
+    @Test
+    public void testBurstUpToCapacity() {
+        // Arrange
+        LoginRateLimiter limiter = new LoginRateLimiter(3, 1, 2, 1, 1024, 1024);
+
+        // Act and Assert
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire(IP, "10.0.0.1").isZero());
+        }
+        Duration wait = limiter.tryAcquire(IP, "10.0.0.1");
+        assertTrue(wait.compareTo(Duration.ofSeconds(55)) > 0 && wait.compareTo(Duration.ofMinutes(1)) <= 0);
+        assertTrue(limiter.tryAcquire(IP, "10.0.0.2").isZero());
+    }
+
+    @Test
+    public void testAccountsAreCaseInsensitive() {
+        // Arrange
+        LoginRateLimiter limiter = new LoginRateLimiter(10, 1, 1, 1, 1024, 1024);
+
+        // Act and Assert
+        assertTrue(limiter.tryAcquire(ACCOUNT, "johndoe@example.com").isZero());
+        assertFalse(limiter.tryAcquire(ACCOUNT, "JohnDoe@example.com").isZero());
+        assertTrue(limiter.tryAcquire(IP, "johndoe@example.com").isZero());
+    }
+
+    @Test
+    public void testRefill() throws InterruptedException {
+        // Arrange: one attempt every 10 ms
+        LoginRateLimiter limiter = new LoginRateLimiter(1, 6000, 1, 1, 1024, 1024);
+        limiter.tryAcquire(IP, "10.0.0.1");
+
+        // Act
+        Thread.sleep(20);
+
+        // Assert
+        assertTrue(limiter.tryAcquire(IP, "10.0.0.1").isZero());
+    }
+
+    @Test
+    public void testWaitTimeTakesNoAttempt() {
+        // Arrange
+        LoginRateLimiter limiter = new LoginRateLimiter(1, 1, 1, 1, 1024, 1024);
+
+        // Act and Assert
+        assertTrue(limiter.waitTime(ACCOUNT, "johndoe@example.com").isZero());
+        assertTrue(limiter.waitTime(ACCOUNT, "johndoe@example.com").isZero());
+        assertTrue(limiter.tryAcquire(ACCOUNT, "johndoe@example.com").isZero());
+        assertFalse(limiter.waitTime(ACCOUNT, "JohnDoe@example.com").isZero());
+    }
+
+    @Test
+    public void testKeysShareBucketsOfBoundedTable() {
+        // Arrange
+        LoginRateLimiter limiter = new LoginRateLimiter(1, 1, 1, 1, 1, 1);
+
+        // Act and Assert
+        assertTrue(limiter.tryAcquire(IP, "10.0.0.1").isZero());
+        assertFalse(limiter.tryAcquire(IP, "10.0.0.2").isZero());
+    }
+
+    @Test
+    public void testKeysWithEqualStringHashesHaveOwnBuckets() {
+        // Arrange
+        LoginRateLimiter limiter = new LoginRateLimiter(1, 1, 1, 1, 1024, 1 << 20);
+        List<String> keys = List.of("AaAa@example.com", "AaBB@example.com", "BBAa@example.com", "BBBB@example.com");
+        assertEquals(1, keys.stream().map(String::hashCode).distinct().count());
+
+        // Act and Assert
+        assertTrue(limiter.tryAcquire(ACCOUNT, keys.get(0)).isZero());
+        assertTrue(keys.stream().skip(1).anyMatch(key -> limiter.tryAcquire(ACCOUNT, key).isZero()));
+    }
+
+    @Test
+    public void testInvalidLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new LoginRateLimiter(0, 1, 1, 1, 1024, 1024));
+        assertThrows(IllegalArgumentException.class, () -> new LoginRateLimiter(1, 1, 1, 1, 1000, 1024));
+        assertThrows(IllegalArgumentException.class, () -> new LoginRateLimiter(1, 1, 1, 1, 1024, 1000));
+    }
+
+    @Test
+    public void testConcurrentAttemptsDoNotExceedCapacity() throws Exception {
+        // Arrange
+        LoginRateLimiter limiter = new LoginRateLimiter(100, 1, 1, 1, 1024, 1024);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                int allowed = 0;
+                for (int j = 0; j < 1000; j++) {
+                    if (limiter.tryAcquire(IP, "10.0.0.1").isZero()) {
+                        allowed++;
+                    }
+                }
+                return allowed;
+            }));
+        }
+        start.countDown();
+
+        // Assert
+        int allowed = 0;
+        for (Future<Integer> future : futures) {
+            allowed += future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        assertEquals(100, allowed);
+    }
+}
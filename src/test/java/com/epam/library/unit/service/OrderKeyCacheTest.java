@@ -0,0 +1,173 @@
+package com.epam.library.unit.service;
+
+import com.epam.library.dto.OrderResult;
+import com.epam.library.service.OrderKeyCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class OrderKeyCacheTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static OrderKeyCache.Key key(String orderKey) {
+        return new OrderKeyCache.Key("johndoe@example.com", orderKey);
+    }
+
+    @Test
+    public void testRepeatedKeyGetsFirstResult() throws Exception {
+        // Arrange
+        OrderKeyCache cache = new OrderKeyCache(10, Duration.ofMinutes(10), Duration.ofMinutes(1), meterRegistry);
+        AtomicInteger orders = new AtomicInteger();
+
+        // Act
+        OrderResult first = cache.execute(key("a"), () -> OrderResult.queued(orders.incrementAndGet()));
+        OrderResult second = cache.execute(key("a"), () -> OrderResult.queued(orders.incrementAndGet()));
+        OrderResult other = cache.execute(key("b"), () -> OrderResult.queued(orders.incrementAndGet()));
+
+        // Assert
+        assertSame(first, second);
+        assertEquals(2, other.queuePosition());
+        assertEquals(2, orders.get());
+        assertEquals(1, meterRegistry.counter("library.orders.repeated").count(), 0);
+    }
+
+    @Test
+    public void testKeysAreScopedToUser() throws Exception {
+        // Arrange
+        OrderKeyCache cache = new OrderKeyCache(10, Duration.ofMinutes(10), Duration.ofMinutes(1), meterRegistry);
+
+        // Act
+        cache.execute(new OrderKeyCache.Key("a@example.com", "k"), () -> OrderResult.queued(1));
+        OrderResult result = cache.execute(new OrderKeyCache.Key("b@example.com", "k"), () -> OrderResult.queued(2));
+
+        // Assert
+        assertEquals(2, result.queuePosition());
+    }
+
+    @Test
+    public void testFailedOrderCanBeRepeated() throws Exception {
+        // Arrange
+        OrderKeyCache cache = new OrderKeyCache(10, Duration.ofMinutes(10), Duration.ofMinutes(1), meterRegistry);
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> cache.execute(key("a"), () -> {
+            throw new IllegalStateException();
+        }));
+        OrderResult result = cache.execute(key("a"), () -> OrderResult.queued(1));
+
+        // Assert
+        assertEquals(1, result.queuePosition());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testOrderFailedWithErrorCanBeRepeated() throws Exception {
+        // Arrange
+        OrderKeyCache cache = new OrderKeyCache(10, Duration.ofMinutes(10), Duration.ofMinutes(1), meterRegistry);
+
+        // Act
+        assertThrows(AssertionError.class, () -> cache.execute(key("a"), () -> {
+            throw new AssertionError();
+        }));
+        OrderResult result = cache.execute(key("a"), () -> OrderResult.queued(1));
+
+        // Assert
+        assertEquals(1, result.queuePosition());
+    }
+
+    @Test
+    public void testRepeatTimesOutWhileFirstOrderRuns() throws Exception {
+        // Arrange
+        OrderKeyCache cache = new OrderKeyCache(10, Duration.ofMinutes(10), Duration.ofMillis(50), meterRegistry);
+        CountDownLatch placing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<OrderResult> first = executor.submit(() -> cache.execute(key("a"), () -> {
+            placing.countDown();
+            release.await();
+            return OrderResult.queued(1);
+        }));
+        placing.await();
+
+        // Act & Assert
+        assertThrows(TimeoutException.class, () -> cache.execute(key("a"), () -> OrderResult.queued(2)));
+        release.countDown();
+        assertEquals(1, first.get(1, TimeUnit.MINUTES).queuePosition());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testExpiredKeyIsOrderedAgain() throws Exception {
+        // Arrange
+        OrderKeyCache cache = new OrderKeyCache(10, Duration.ZERO, Duration.ofMinutes(1), meterRegistry);
+        cache.execute(key("a"), () -> OrderResult.queued(1));
+        Thread.sleep(1);
+
+        // Act
+        OrderResult result = cache.execute(key("a"), () -> OrderResult.queued(2));
+
+        // Assert
+        assertEquals(2, result.queuePosition());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testOldestKeysEvictedWhenFull() throws Exception {
+        // Arrange
+        OrderKeyCache cache = new OrderKeyCache(2, Duration.ofMinutes(10), Duration.ofMinutes(1), meterRegistry);
+
+        // Act
+        for (int i = 1; i <= 3; i++) {
+            int position = i;
+            cache.execute(key("k" + i), () -> OrderResult.queued(position));
+        }
+        OrderResult first = cache.execute(key("k1"), () -> OrderResult.queued(4));
+
+        // Assert
+        assertEquals(4, first.queuePosition());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testConcurrentRepeatsWaitForFirstOrder() throws Exception {
+        // Arrange
+        OrderKeyCache cache = new OrderKeyCache(10, Duration.ofMinutes(10), Duration.ofMinutes(1), meterRegistry);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger orders = new AtomicInteger();
+        List<Future<OrderResult>> futures = new ArrayList<>();
+
+        // Act
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return cache.execute(key("a"), () -> {
+                    Thread.sleep(50);
+                    return OrderResult.queued(orders.incrementAndGet());
+                });
+            }));
+        }
+        start.countDown();
+
+        // Assert
+        for (Future<OrderResult> future : futures) {
+            assertEquals(1, future.get(1, TimeUnit.MINUTES).queuePosition());
+        }
+        executor.shutdown();
+        assertEquals(1, orders.get());
+    }
+}
@@ -0,0 +1,90 @@
+package com.epam.library.unit.service;
+
+import com.epam.library.dto.UserPrincipal;
+import com.epam.library.service.SessionAttributeCodec;
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.csrf.DefaultCsrfToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class SessionAttributeCodecTest {
+
+    private static SecurityContext securityContext() {
+        UserPrincipal principal = new UserPrincipal(3, "johndoe@example.com", "", false,
+                List.of(new SimpleGrantedAuthority("ROLE_READER")));
+        return new SecurityContextImpl(
+                UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities()));
+    }
+
+    @Test
+    public void testSecurityContextIsDecoded() {
+        // Act
+        Map<String, Object> attributes = SessionAttributeCodec.decode(
+                SessionAttributeCodec.encode(Map.of("SPRING_SECURITY_CONTEXT", securityContext())));
+
+        // Assert
+        SecurityContext context = (SecurityContext) attributes.get("SPRING_SECURITY_CONTEXT");
+        UserPrincipal principal = (UserPrincipal) context.getAuthentication().getPrincipal();
+        assertTrue(context.getAuthentication().isAuthenticated());
+        assertEquals(3, principal.getId().intValue());
+        assertEquals("johndoe@example.com", principal.getUsername());
+        assertTrue(principal.isAccountNonLocked());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_READER")),
+                List.copyOf(context.getAuthentication().getAuthorities()));
+    }
+
+    @Test
+    public void testSecurityContextIsCompact() throws Exception {
+        // Arrange
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(serialized)) {
+            out.writeObject(securityContext());
+        }
+
+        // Act
+        byte[] encoded = SessionAttributeCodec.encode(Map.of("SPRING_SECURITY_CONTEXT", securityContext()));
+
+        // Assert
+        assertTrue(encoded.length * 10 < serialized.size());
+    }
+
+    @Test
+    public void testOtherAttributesAreDecoded() {
+        // Arrange
+        DefaultCsrfToken token = new DefaultCsrfToken("X-CSRF-TOKEN", "_csrf", "token");
+
+        // Act
+        Map<String, Object> attributes = SessionAttributeCodec.decode(SessionAttributeCodec.encode(
+                Map.of("locale", Locale.of("uk"), "name", "value", "csrf", token)));
+
+        // Assert
+        assertEquals(Locale.of("uk"), attributes.get("locale"));
+        assertEquals("value", attributes.get("name"));
+        assertEquals("token", ((DefaultCsrfToken) attributes.get("csrf")).getToken());
+    }
+
+    @Test
+    public void testNotSerializableAttributesAreSkipped() {
+        // Act
+        Map<String, Object> attributes = SessionAttributeCodec.decode(
+                SessionAttributeCodec.encode(Map.of("thread", new Object(), "name", "value")));
+
+        // Assert
+        assertEquals(Map.of("name", "value"), attributes);
+    }
+
+    @Test
+    public void testUnknownVersionIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> SessionAttributeCodec.decode(new byte[]{9, 0, 0, 0, 0}));
+    }
+}
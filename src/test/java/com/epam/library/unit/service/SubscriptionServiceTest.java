@@ -1,24 +1,34 @@
 package com.epam.library.unit.service;
 
+import com.epam.library.dto.OrderResult;
+import com.epam.library.dto.SubscriptionView;
 import com.epam.library.entity.Book;
 import com.epam.library.entity.Subscription;
 import com.epam.library.entity.User;
 import com.epam.library.repository.SubscriptionRepository;
 import com.epam.library.service.BookService;
+import com.epam.library.service.FineService;
+import com.epam.library.service.HoldService;
 import com.epam.library.service.SubscriptionService;
 import com.epam.library.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 
 import java.time.LocalDate;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.Assert.*;
@@ -32,6 +42,12 @@ public class SubscriptionServiceTest {
     private UserService userService;
     @Mock
     private BookService bookService;
+    @Mock
+    private HoldService holdService;
+    @Mock
+    private FineService fineService;
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
     @InjectMocks
     private SubscriptionService subscriptionService;
 
@@ -95,33 +111,146 @@ public class SubscriptionServiceTest {
         assertTrue(foundSubscriptions.contains(subscription));
     }
 
+    @Test
+    public void testFindViews() {
+        // Arrange
+        Slice<SubscriptionView> expected = new SliceImpl<>(List.of(new SubscriptionView(1, "The Hobbit",
+                "J.R.R. Tolkien", 1937, "John Doe", "john_doe@example.com", false, null, 0, null, 0)));
+
+        Mockito.when(subscriptionRepo.findViews("john!_doe", "", PageRequest.of(1, 20))).thenReturn(expected);
+
+        // Act
+        Slice<SubscriptionView> actual = subscriptionService.findViews("john_doe", "", 2);
+
+        // Assert
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testFindViews_LazyFines() {
+        // Arrange
+        SubscriptionView view = new SubscriptionView(1, "The Hobbit", "J.R.R. Tolkien", 1937, "John Doe",
+                "john_doe@example.com", true, LocalDate.now().minusDays(63), 60, LocalDate.now().minusDays(3), 0);
+        SubscriptionView current = view.withFine(30);
+
+        Mockito.when(subscriptionRepo.findViews("", "", PageRequest.of(0, 20)))
+                .thenReturn(new SliceImpl<>(List.of(view)));
+        Mockito.when(fineService.isLazy()).thenReturn(true);
+        Mockito.when(fineService.withCurrentFine(view)).thenReturn(current);
+
+        // Act
+        Slice<SubscriptionView> actual = subscriptionService.findViews("", "", 1);
+
+        // Assert
+        assertEquals(List.of(current), actual.getContent());
+    }
+
+    @Test
+    public void testFindViewsInvalidPage() {
+        assertThrows(IllegalArgumentException.class, () -> subscriptionService.findViews("", "", 0));
+    }
+
     @Test
     public void testOrderBook() throws Exception {
         // Arrange
         User user = new User("John Doe", "johndoe@example.com", "password", User.Role.READER);
         int bookId = 10;
-        Book book = new Book("The Lord of the Rings", "J.R.R. Tolkien", 1954);
         Book updatedBook = new Book("The Lord of the Rings", "J.R.R. Tolkien", 1954);
         int availableCopies = 5;
-        book.setAvailableCopies(availableCopies);
         updatedBook.setAvailableCopies(availableCopies - 1);
         Subscription subscription = new Subscription(user, updatedBook);
 
-        Mockito.when(bookService.findById(bookId)).thenReturn(book);
+        Mockito.when(bookService.reserveCopy(bookId)).thenReturn(true);
+        Mockito.when(bookService.findById(bookId)).thenReturn(updatedBook);
         Mockito.when(userService.findByEmail(user.getEmail())).thenReturn(user);
 
         // Act
         GrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + user.getRole().toString());
-        Subscription newSubscription = subscriptionService.orderBook(new org.springframework.security.core.userdetails.User(
+        OrderResult result = subscriptionService.orderBook(new org.springframework.security.core.userdetails.User(
                 user.getEmail(),
                 user.getPassword(),
                 Collections.singletonList(authority)
-        ), bookId);
+        ), bookId, null);
+        Subscription newSubscription = result.subscription();
 
         // Assert
+        assertFalse(result.isQueued());
         assertEquals(subscription, newSubscription);
         assertEquals(user, newSubscription.getUser());
         assertEquals(updatedBook, newSubscription.getBook());
+        assertEquals(1, meterRegistry.get("library.subscriptions.order").tag("outcome", "success").timer().count());
+    }
+
+    @Test
+    public void testOrderBook_RepeatedKey() throws Exception {
+        // Arrange
+        User user = new User("John Doe", "johndoe@example.com", "password", User.Role.READER);
+        user.setId(7);
+        Subscription ordered = new Subscription(user, new Book("The Hobbit", "J.R.R. Tolkien", 1937));
+
+        Mockito.when(userService.findByEmail(user.getEmail())).thenReturn(user);
+        Mockito.when(subscriptionRepo.findByUserIdAndOrderKey(7, "key1")).thenReturn(Optional.of(ordered));
+
+        // Act
+        OrderResult result = subscriptionService.orderBook(new org.springframework.security.core.userdetails.User(
+                user.getEmail(),
+                user.getPassword(),
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_READER"))
+        ), 10, "key1");
+
+        // Assert
+        assertSame(ordered, result.subscription());
+        Mockito.verify(bookService, Mockito.never()).reserveCopy(Mockito.any());
+        Mockito.verify(subscriptionRepo, Mockito.never()).save(Mockito.any(Subscription.class));
+        assertEquals(1, meterRegistry.get("library.subscriptions.order").tag("outcome", "repeated").timer().count());
+    }
+
+    @Test
+    public void testOrderBook_RepeatedQueuedKey() throws Exception {
+        // Arrange
+        User user = new User("John Doe", "johndoe@example.com", "password", User.Role.READER);
+        user.setId(7);
+
+        Mockito.when(userService.findByEmail(user.getEmail())).thenReturn(user);
+        Mockito.when(subscriptionRepo.findByUserIdAndOrderKey(7, "key1")).thenReturn(Optional.empty());
+        Mockito.when(holdService.findQueued(user, "key1")).thenReturn(Optional.of(OrderResult.queued(2)));
+
+        // Act
+        OrderResult result = subscriptionService.orderBook(new org.springframework.security.core.userdetails.User(
+                user.getEmail(),
+                user.getPassword(),
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_READER"))
+        ), 10, "key1");
+
+        // Assert
+        assertTrue(result.isQueued());
+        assertEquals(2, result.queuePosition());
+        Mockito.verify(bookService, Mockito.never()).reserveCopy(Mockito.any());
+        assertEquals(1, meterRegistry.get("library.subscriptions.order").tag("outcome", "repeated").timer().count());
+    }
+
+    @Test
+    public void testOrderBook_NewKey() throws Exception {
+        // Arrange
+        User user = new User("John Doe", "johndoe@example.com", "password", User.Role.READER);
+        user.setId(7);
+        Book book = new Book("The Hobbit", "J.R.R. Tolkien", 1937);
+
+        Mockito.when(userService.findByEmail(user.getEmail())).thenReturn(user);
+        Mockito.when(subscriptionRepo.findByUserIdAndOrderKey(7, "key1")).thenReturn(Optional.empty());
+        Mockito.when(bookService.reserveCopy(10)).thenReturn(true);
+        Mockito.when(bookService.findById(10)).thenReturn(book);
+
+        // Act
+        OrderResult result = subscriptionService.orderBook(new org.springframework.security.core.userdetails.User(
+                user.getEmail(),
+                user.getPassword(),
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_READER"))
+        ), 10, "key1");
+
+        // Assert
+        assertEquals("key1", result.subscription().getOrderKey());
+        Mockito.verify(subscriptionRepo).save(result.subscription());
     }
 
     @Test
@@ -140,7 +269,35 @@ public class SubscriptionServiceTest {
                         user.getEmail(),
                         user.getPassword(),
                         Collections.singletonList(authority)
-        ), bookId));
+        ), bookId, null));
+        assertEquals(1, meterRegistry.get("library.subscriptions.order").tag("outcome", "not_found").timer().count());
+    }
+
+    @Test
+    public void testOrderBook_NoAvailableCopies() throws Exception {
+        // Arrange
+        User user = new User("John Doe", "johndoe@example.com", "password", User.Role.READER);
+        int bookId = 10;
+        Book book = new Book("The Lord of the Rings", "J.R.R. Tolkien", 1954);
+
+        Mockito.when(userService.findByEmail(user.getEmail())).thenReturn(user);
+        Mockito.when(bookService.reserveCopy(bookId)).thenReturn(false);
+        Mockito.when(bookService.findById(bookId)).thenReturn(book);
+        Mockito.when(holdService.enqueue(user, book, null)).thenReturn(OrderResult.queued(3));
+
+        // Act
+        GrantedAuthority authority = new SimpleGrantedAuthority("ROLE_" + user.getRole().toString());
+        OrderResult result = subscriptionService.orderBook(new org.springframework.security.core.userdetails.User(
+                user.getEmail(),
+                user.getPassword(),
+                Collections.singletonList(authority)
+        ), bookId, null);
+
+        // Assert
+        assertTrue(result.isQueued());
+        assertEquals(3, result.queuePosition());
+        Mockito.verify(subscriptionRepo, Mockito.never()).save(Mockito.any(Subscription.class));
+        assertEquals(1, meterRegistry.get("library.subscriptions.order").tag("outcome", "queued").timer().count());
     }
 
     @Test
@@ -162,22 +319,162 @@ public class SubscriptionServiceTest {
 
         // Assert that the subscription is approved
         assertTrue(subscription.isApproved());
+        assertEquals(LocalDate.now().plusDays(60), subscription.getDueDate());
     }
 
     @Test
-    public void testCalculateAndAddFines() {
+    public void testApproveReturnedSubscription() {
         // Arrange
-        User user = new User("John Doe", "johndoe@example.com", "password", User.Role.READER);
-        Book book = new Book("The Lord of the Rings", "J.R.R. Tolkien", 1954);
+        Subscription subscription = new Subscription();
+        subscription.markReturned(LocalDate.now());
+
+        Mockito.when(subscriptionRepo.findById(1)).thenReturn(Optional.of(subscription));
+
+        // Act & Assert
+        assertThrows(Exception.class, () -> subscriptionService.approveSubscription(1));
+        assertFalse(subscription.isApproved());
+    }
+
+    @Test
+    public void testApproveSubscriptions() {
+        // Arrange
+        // 1 and 3 are pending, 2 is already approved and 4 does not exist
+        Mockito.when(subscriptionRepo.findIds(List.of(1, 2, 3, 4))).thenReturn(List.of(1, 2, 3));
+        Mockito.when(subscriptionRepo.lockPending(List.of(1, 2, 3, 4))).thenReturn(List.of(1, 3));
+        Mockito.when(subscriptionRepo.approve(List.of(1, 3), LocalDate.now(), 60, LocalDate.now().plusDays(60)))
+                .thenReturn(2);
+
+        // Act
+        Map<Integer, SubscriptionService.ApprovalResult> results =
+                subscriptionService.approveSubscriptions(List.of(1, 2, 3, 4));
+
+        // Assert
+        assertEquals(List.of(1, 2, 3, 4), List.copyOf(results.keySet()));
+        assertEquals(SubscriptionService.ApprovalResult.APPROVED, results.get(1));
+        assertEquals(SubscriptionService.ApprovalResult.NOT_PENDING, results.get(2));
+        assertEquals(SubscriptionService.ApprovalResult.APPROVED, results.get(3));
+        assertEquals(SubscriptionService.ApprovalResult.NOT_FOUND, results.get(4));
+        Mockito.verify(subscriptionRepo, Mockito.never()).save(Mockito.any(Subscription.class));
+        assertEquals(2, meterRegistry.get("library.subscriptions.approved").counter().count(), 0);
+    }
+
+    @Test
+    public void testApproveSubscriptions_NonePending() {
+        // Arrange
+        Mockito.when(subscriptionRepo.findIds(List.of(2))).thenReturn(List.of(2));
+        Mockito.when(subscriptionRepo.lockPending(List.of(2))).thenReturn(List.of());
+
+        // Act
+        Map<Integer, SubscriptionService.ApprovalResult> results = subscriptionService.approveSubscriptions(List.of(2));
+
+        // Assert
+        assertEquals(Map.of(2, SubscriptionService.ApprovalResult.NOT_PENDING), results);
+        Mockito.verify(subscriptionRepo, Mockito.never()).approve(Mockito.any(), Mockito.any(), Mockito.anyInt(),
+                Mockito.any());
+    }
+
+    @Test
+    public void testApprovePendingOf() {
+        // Arrange
+        Mockito.when(subscriptionRepo.lockPendingByUserEmail("johndoe@example.com")).thenReturn(List.of(5, 6));
+        Mockito.when(subscriptionRepo.approve(List.of(5, 6), LocalDate.now(), 60, LocalDate.now().plusDays(60)))
+                .thenReturn(2);
+
+        // Act
+        Map<Integer, SubscriptionService.ApprovalResult> results =
+                subscriptionService.approvePendingOf("johndoe@example.com");
+
+        // Assert
+        assertEquals(Map.of(5, SubscriptionService.ApprovalResult.APPROVED,
+                6, SubscriptionService.ApprovalResult.APPROVED), results);
+    }
+
+    private static Subscription subscription(User user, int bookId) {
+        Book book = new Book("Book " + bookId, "Author", 2000);
+        book.setId(bookId);
         Subscription subscription = new Subscription(user, book);
-        subscription.setStartDate(LocalDate.now().minusDays(80));
+        subscription.setApproved(true);
+        return subscription;
+    }
 
-        Mockito.when(subscriptionRepo.findAll()).thenReturn(List.of(subscription));
+    @Test
+    public void testReturnBooks() {
+        // Arrange
+        User user = new User("John Doe", "johndoe@example.com", "password", User.Role.READER);
+        List<Subscription> subscriptions = List.of(subscription(user, 1), subscription(user, 1),
+                subscription(user, 2));
+
+        // The already returned subscription 4 is not found as open
+        Mockito.when(subscriptionRepo.findByIdInAndStatus(List.of(1, 2, 3, 4), Subscription.Status.OPEN))
+                .thenReturn(subscriptions);
+
+        // Act
+        int returned = subscriptionService.returnBooks(List.of(1, 2, 3, 4));
+
+        // Assert
+        assertEquals(3, returned);
+        assertTrue(subscriptions.stream().allMatch(Subscription::isReturned));
+        assertEquals(LocalDate.now(), subscriptions.get(0).getReturnedOn());
+        Mockito.verify(subscriptionRepo).saveAll(subscriptions);
+        Mockito.verify(bookService).releaseCopies(Map.of(1, 2, 2, 1));
+        Mockito.verify(fineService).settle(subscriptions, LocalDate.now());
+        assertEquals(3, meterRegistry.get("library.subscriptions.returned").counter().count(), 0);
+    }
+
+    @Test
+    public void testReturnBook() throws Exception {
+        // Arrange
+        User user = new User("John Doe", "johndoe@example.com", "password", User.Role.READER);
+        Subscription subscription = subscription(user, 5);
+
+        Mockito.when(subscriptionRepo.findByIdInAndStatus(List.of(7), Subscription.Status.OPEN))
+                .thenReturn(List.of(subscription));
+
+        // Act
+        Subscription returned = subscriptionService.returnBook(7);
+
+        // Assert
+        assertSame(subscription, returned);
+        assertTrue(returned.isReturned());
+        Mockito.verify(bookService).releaseCopies(Map.of(5, 1));
+    }
+
+    @Test
+    public void testReturnBook_NotOpen() {
+        // Arrange
+        Mockito.when(subscriptionRepo.findByIdInAndStatus(List.of(7), Subscription.Status.OPEN))
+                .thenReturn(List.of());
+
+        // Act & Assert
+        assertThrows(Exception.class, () -> subscriptionService.returnBook(7));
+        Mockito.verifyNoInteractions(bookService);
+        assertEquals(1, meterRegistry.get("library.subscriptions.return").tag("outcome", "not_found").timer().count());
+    }
+
+    @Test
+    public void testCalculateAndAddFines() {
+        // Arrange
+        Mockito.when(userService.addOverdueFines(10, LocalDate.now())).thenReturn(1);
+        Mockito.when(subscriptionRepo.addOverdueFines(10, LocalDate.now())).thenReturn(2);
+
+        // Act
+        subscriptionService.calculateAndAddFines();
+
+        // Assert
+        Mockito.verify(userService).addOverdueFines(10, LocalDate.now());
+        Mockito.verify(subscriptionRepo).addOverdueFines(10, LocalDate.now());
+        Mockito.verify(subscriptionRepo, Mockito.never()).findAll();
+    }
+
+    @Test
+    public void testCalculateAndAddFines_LazyFines() {
+        // Arrange
+        Mockito.when(fineService.isLazy()).thenReturn(true);
 
         // Act
         subscriptionService.calculateAndAddFines();
 
         // Assert
-        assertEquals(10, subscription.getFine());
+        Mockito.verifyNoInteractions(userService, subscriptionRepo);
     }
 }
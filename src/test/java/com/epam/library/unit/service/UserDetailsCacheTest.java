@@ -0,0 +1,89 @@
+package com.epam.library.unit.service;
+
+import com.epam.library.entity.User;
+import com.epam.library.service.UserDetailsCache;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.*;
+
+public class UserDetailsCacheTest {
+
+    private static UserDetailsCache.CachedUser user(String email) {
+        return new UserDetailsCache.CachedUser(1, email, "hash", User.Role.READER, false);
+    }
+
+    @Test
+    public void testGetCachedUser() {
+        // Arrange
+        UserDetailsCache cache = new UserDetailsCache(10, Duration.ofMinutes(1));
+        UserDetailsCache.CachedUser user = user("johndoe@example.com");
+        cache.put(user, cache.version());
+
+        // Act and Assert
+        assertSame(user, cache.get("JohnDoe@example.com"));
+        assertNull(cache.get("janedoe@example.com"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testInvalidate() {
+        // Arrange
+        UserDetailsCache cache = new UserDetailsCache(10, Duration.ofMinutes(1));
+        cache.put(user("johndoe@example.com"), cache.version());
+        cache.put(user("janedoe@example.com"), cache.version());
+
+        // Act
+        cache.invalidate("JOHNDOE@example.com");
+
+        // Assert
+        assertNull(cache.get("johndoe@example.com"));
+        assertNotNull(cache.get("janedoe@example.com"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void testUserLoadedBeforeInvalidateIsNotCached() {
+        // Arrange
+        UserDetailsCache cache = new UserDetailsCache(10, Duration.ofMinutes(1));
+        long version = cache.version();
+
+        // Act
+        cache.invalidate("johndoe@example.com");
+        cache.put(user("johndoe@example.com"), version);
+
+        // Assert
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testExpiredUserIsEvicted() throws InterruptedException {
+        // Arrange
+        UserDetailsCache cache = new UserDetailsCache(10, Duration.ZERO);
+        cache.put(user("johndoe@example.com"), cache.version());
+        Thread.sleep(1);
+
+        // Act and Assert
+        assertNull(cache.get("johndoe@example.com"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvictedWhenFull() {
+        // Arrange
+        UserDetailsCache cache = new UserDetailsCache(2, Duration.ofMinutes(1));
+        cache.put(user("a@example.com"), cache.version());
+        cache.put(user("b@example.com"), cache.version());
+        cache.get("a@example.com");
+
+        // Act
+        cache.put(user("c@example.com"), cache.version());
+
+        // Assert
+        assertNotNull(cache.get("a@example.com"));
+        assertNull(cache.get("b@example.com"));
+        assertEquals(2, cache.size());
+    }
+}
@@ -1,19 +1,32 @@
 package com.epam.library.unit.service;
 
+import com.epam.library.dto.UserView;
 import com.epam.library.entity.User;
+import com.epam.library.dto.UserPrincipal;
 import com.epam.library.repository.UserRepository;
+import com.epam.library.service.BlockedUsers;
+import com.epam.library.service.FineService;
+import com.epam.library.service.UserDetailsCache;
 import com.epam.library.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 
@@ -29,6 +42,14 @@ public class UserServiceTest {
     private UserRepository repo;
     @Mock
     public PasswordEncoder mockedPasswordEncoder;
+    @Mock
+    private FineService fineService;
+    @Mock
+    private BlockedUsers blockedUsers;
+    @Spy
+    private UserDetailsCache userCache = new UserDetailsCache(10, Duration.ofMinutes(1));
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
     @InjectMocks
     private UserService userService;
 
@@ -123,14 +144,40 @@ public class UserServiceTest {
     }
 
     @Test
-    public void testFindAllNotAdmin() {
-        User user = new User("John Doe", "johndoe@example.com", "password", User.Role.READER);
-        Mockito.when(repo.findByRoleNot(User.Role.ADMIN)).thenReturn(List.of(user));
+    public void testFindViews() {
+        // Arrange
+        UserView user = new UserView(1, "John Doe", "john_doe@example.com", User.Role.READER, true, 0);
+        Slice<UserView> expected = new SliceImpl<>(List.of(user), PageRequest.of(1, 20), false);
+        Mockito.when(repo.findViews("John", "john!_doe", true, false, false, 10, LocalDate.now(),
+                        PageRequest.of(1, 20)))
+                .thenReturn(expected);
+
+        // Act
+        Slice<UserView> actual = userService.findViews("John", "john_doe", true, false, 2);
+
+        // Assert
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testFindViewsWithLazyFines() {
+        // Arrange
+        UserView user = new UserView(1, "John Doe", "johndoe@example.com", User.Role.READER, false, 40);
+        Mockito.when(repo.findViews("", "", false, true, true, 10, LocalDate.now(), PageRequest.of(0, 20)))
+                .thenReturn(new SliceImpl<>(List.of(user), PageRequest.of(0, 20), false));
+        Mockito.when(fineService.isLazy()).thenReturn(true);
+
+        // Act
+        Slice<UserView> actual = userService.findViews("", "", false, true, 1);
 
-        List<User> users = userService.findAllNotAdmin();
+        // Assert
+        assertEquals(40, actual.getContent().get(0).getFine());
+    }
 
-        assertEquals(1, users.size());
-        assertTrue(users.contains(user));
+    @Test
+    public void testFindViewsInvalidPage() {
+        assertThrows(IllegalArgumentException.class, () -> userService.findViews("", "", false, false, 0));
+        Mockito.verifyNoInteractions(repo);
     }
 
     @Test
@@ -142,6 +189,8 @@ public class UserServiceTest {
         userService.blockUser(user.getId());
 
         Mockito.verify(repo, Mockito.times(1)).save(user);
+        Mockito.verify(userCache).invalidate("johndoe@example.com");
+        Mockito.verify(blockedUsers).update(1, true);
     }
 
     @Test
@@ -164,11 +213,65 @@ public class UserServiceTest {
         assertEquals(user.getPassword(), userDetails.getPassword());
     }
 
+    @Test
+    public void testLoadUserByUsernameCached() {
+        // Arrange
+        User user = new User("John Doe", "johndoe@example.com", "password", User.Role.LIBRARIAN);
+        user.setId(2);
+        user.setBlocked(true);
+        Mockito.when(repo.findByEmail("johndoe@example.com")).thenReturn(Optional.of(user));
+
+        // Act
+        userService.loadUserByUsername("johndoe@example.com");
+        UserPrincipal userDetails = (UserPrincipal) userService.loadUserByUsername("JohnDoe@example.com");
+
+        // Assert
+        Mockito.verify(repo, Mockito.times(1)).findByEmail(anyString());
+        assertEquals(2, userDetails.getId());
+        assertEquals("password", userDetails.getPassword());
+        assertFalse(userDetails.isAccountNonLocked());
+        assertEquals("ROLE_LIBRARIAN", userDetails.getAuthorities().iterator().next().getAuthority());
+        assertEquals(1, meterRegistry.get("library.users.load").tag("outcome", "cached").timer().count());
+    }
+
+    @Test
+    public void testSavedUserIsLoadedAgain() {
+        // Arrange
+        User user = new User("John Doe", "johndoe@example.com", "password", User.Role.READER);
+        Mockito.when(repo.findByEmail("johndoe@example.com")).thenReturn(Optional.of(user));
+        userService.loadUserByUsername("johndoe@example.com");
+
+        // Act
+        userService.save(user);
+        userService.loadUserByUsername("johndoe@example.com");
+
+        // Assert
+        Mockito.verify(repo, Mockito.times(2)).findByEmail("johndoe@example.com");
+    }
+
     @Test
     public void testLoadUserByUsernameNotFound() throws UsernameNotFoundException {
         String username = "johndoe@example.com";
         Mockito.when(repo.findByEmail(username)).thenReturn(Optional.empty());
 
         assertThrows(UsernameNotFoundException.class, () -> userService.loadUserByUsername(username));
+        assertEquals(1, meterRegistry.get("library.users.load").tag("outcome", "not_found").timer().count());
+    }
+
+    @Test
+    public void testUpdatePassword() {
+        // Arrange
+        UserPrincipal user = new UserPrincipal(1, "johndoe@example.com", "oldHash", false,
+                List.of(new SimpleGrantedAuthority("ROLE_READER")));
+
+        // Act
+        UserDetails updated = userService.updatePassword(user, "newHash");
+
+        // Assert
+        assertEquals("newHash", updated.getPassword());
+        assertEquals(user.getAuthorities(), updated.getAuthorities());
+        Mockito.verify(repo).updatePassword("johndoe@example.com", "newHash");
+        Mockito.verify(userCache).invalidate("johndoe@example.com");
+        assertEquals(1, meterRegistry.counter("library.users.rehashed").count(), 0);
     }
 }
\ No newline at end of file